@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH options, writing the results as JSON
+ * to jmh-result.json unless another format or file is given, so runs can be
+ * kept and compared over time
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * Run the benchmarks
+	 * 
+	 * @param args
+	 *            JMH options, such as a pattern of benchmarks to run, -p to
+	 *            choose parameters, or -rff to name the results file
+	 * @throws CommandLineOptionException
+	 *             If the options are not valid
+	 * @throws IOException
+	 *             If the help can not be written
+	 * @throws RunnerException
+	 *             If a benchmark fails
+	 */
+	public static void main(String[] args) throws CommandLineOptionException,
+			IOException, RunnerException {
+		CommandLineOptions options = new CommandLineOptions(args);
+
+		// Help and listing need no results
+		if (options.shouldHelp()) {
+			options.showHelp();
+			return;
+		}
+		if (options.shouldList()) {
+			new Runner(options).list();
+			return;
+		}
+
+		// Default to JSON in a known file
+		ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+		if (!options.getResultFormat().hasValue()) {
+			builder.resultFormat(ResultFormatType.JSON);
+		}
+		if (!options.getResult().hasValue()) {
+			builder.result("jmh-result.json");
+		}
+		new Runner(builder.build()).run();
+	}
+}
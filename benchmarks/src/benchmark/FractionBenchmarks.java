@@ -0,0 +1,158 @@
+package benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import solver.Fraction;
+
+/**
+ * Times Fraction arithmetic, and reducing a numerator and denominator to
+ * lowest terms, over pairs of fractions whose parts have a given number of
+ * bits. Small sizes stay on the long path, 128 bits needs BigInteger
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FractionBenchmarks {
+
+	// The number of pairs each invocation works through
+	private static final int COUNT = 1024;
+
+	// The number of bits in each numerator and denominator
+	@Param({ "8", "31", "62", "128" })
+	public int bits;
+
+	// The fractions, and the raw parts to reduce
+	private Fraction[] left, right;
+	private BigInteger[] denominators, numerators;
+
+	/**
+	 * Add pairs of fractions
+	 * 
+	 * @param blackhole
+	 *            Keeps the results alive
+	 */
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void add(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(this.left[i].add(this.right[i]));
+		}
+	}
+
+	/**
+	 * Compare pairs of fractions
+	 * 
+	 * @param blackhole
+	 *            Keeps the results alive
+	 */
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void compare(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(this.left[i].compareTo(this.right[i]));
+		}
+	}
+
+	/**
+	 * Divide pairs of fractions
+	 * 
+	 * @param blackhole
+	 *            Keeps the results alive
+	 */
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void divide(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(this.left[i].divideFraction(this.right[i]));
+		}
+	}
+
+	/**
+	 * Multiply pairs of fractions
+	 * 
+	 * @param blackhole
+	 *            Keeps the results alive
+	 */
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void multiply(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(this.left[i].multiplyFraction(this.right[i]));
+		}
+	}
+
+	/**
+	 * Reduce numerators and denominators that share a factor to lowest terms
+	 * 
+	 * @param blackhole
+	 *            Keeps the results alive
+	 */
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void reduce(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(Fraction.valueOf(this.numerators[i],
+					this.denominators[i]));
+		}
+	}
+
+	/**
+	 * Build the inputs
+	 */
+	@Setup
+	public void setUp() {
+		Random random = new Random(this.bits);
+		this.left = new Fraction[COUNT];
+		this.right = new Fraction[COUNT];
+		this.numerators = new BigInteger[COUNT];
+		this.denominators = new BigInteger[COUNT];
+		for (int i = 0; i < COUNT; i++) {
+			this.left[i] = Inputs.fraction(random, this.bits);
+			this.right[i] = Inputs.fraction(random, this.bits);
+
+			// Parts with a common factor, so reducing has work to do
+			BigInteger factor = new BigInteger(this.bits / 2 + 1, random)
+					.add(BigInteger.ONE);
+			this.numerators[i] = new BigInteger(this.bits, random)
+					.multiply(factor);
+			this.denominators[i] = new BigInteger(this.bits, random).add(
+					BigInteger.ONE).multiply(factor);
+		}
+	}
+
+	/**
+	 * Subtract pairs of fractions
+	 * 
+	 * @param blackhole
+	 *            Keeps the results alive
+	 */
+	@Benchmark
+	@OperationsPerInvocation(COUNT)
+	public void subtract(Blackhole blackhole) {
+		for (int i = 0; i < COUNT; i++) {
+			blackhole.consume(this.left[i].subtract(this.right[i]));
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import solver.Fraction;
+import solver.Matrix;
+import solver.Vector;
+
+/**
+ * Builds the seeded inputs the benchmarks run on, so every run measures the
+ * same values
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+final class Inputs {
+
+	/**
+	 * Get a random fraction with parts of a given size
+	 * 
+	 * @param random
+	 *            The source of randomness
+	 * @param bits
+	 *            The number of bits in the numerator and denominator
+	 * @return The fraction, which is never zero
+	 */
+	static Fraction fraction(Random random, int bits) {
+		// Keep the top bit set so the size is exact
+		BigInteger numerator = new BigInteger(bits, random).setBit(bits - 1);
+		BigInteger denominator = new BigInteger(bits, random).setBit(bits - 1);
+		return Fraction.valueOf(random.nextBoolean() ? numerator.negate()
+				: numerator, denominator);
+	}
+
+	/**
+	 * Get a random square matrix that is never singular. Each element off the
+	 * diagonal is non-zero with some probability, with a numerator of a given
+	 * size and a denominator from 1 to 8, and each diagonal element is larger
+	 * than the rest of its row put together
+	 * 
+	 * @param random
+	 *            The source of randomness
+	 * @param size
+	 *            The number of rows and columns
+	 * @param density
+	 *            The chance of each element off the diagonal being non-zero
+	 * @param bits
+	 *            The number of bits in each numerator
+	 * @return The matrix
+	 */
+	static Matrix matrix(Random random, int size, double density, int bits) {
+		Fraction[][] elements = new Fraction[size][size];
+		for (int i = 0; i < size; i++) {
+			// Fill the row, adding up the size of each element
+			Fraction total = Fraction.ONE;
+			for (int j = 0; j < size; j++) {
+				elements[i][j] = Fraction.ZERO;
+				if (i != j && random.nextDouble() < density) {
+					Fraction value = Inputs.value(random, bits);
+					elements[i][j] = value;
+					total = total.add((value.signum() < 0) ? value.negate()
+							: value);
+				}
+			}
+
+			// A dominant diagonal keeps the matrix invertible
+			elements[i][i] = total;
+		}
+		return new Matrix(elements);
+	}
+
+	/**
+	 * Get a random element for a matrix or vector
+	 * 
+	 * @param random
+	 *            The source of randomness
+	 * @param bits
+	 *            The number of bits in the numerator
+	 * @return A fraction with a denominator from 1 to 8
+	 */
+	private static Fraction value(Random random, int bits) {
+		BigInteger numerator = new BigInteger(bits, random).add(BigInteger.ONE);
+		return Fraction.valueOf(random.nextBoolean() ? numerator.negate()
+				: numerator, BigInteger.valueOf(1 + random.nextInt(8)));
+	}
+
+	/**
+	 * Get a random vector
+	 * 
+	 * @param random
+	 *            The source of randomness
+	 * @param size
+	 *            The number of elements
+	 * @param bits
+	 *            The number of bits in each numerator
+	 * @return The vector
+	 */
+	static Vector vector(Random random, int size, int bits) {
+		Fraction[] elements = new Fraction[size];
+		for (int i = 0; i < size; i++) {
+			elements[i] = Inputs.value(random, bits);
+		}
+		return new Vector(elements);
+	}
+
+	/**
+	 * Only static methods, not meant to be created
+	 */
+	private Inputs() {
+	}
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import solver.Fraction;
+import solver.Matrix;
+import solver.SolverAI;
+
+/**
+ * Times the main Matrix operations and SolverAI on seeded, invertible
+ * matrices of a given size, density and element size
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatrixBenchmarks {
+
+	// The number of bits in each numerator
+	@Param({ "4", "16" })
+	public int bits;
+
+	// The chance of each element off the diagonal being non-zero
+	@Param({ "0.1", "1.0" })
+	public double density;
+
+	// The number of rows and columns
+	@Param({ "8", "32", "64" })
+	public int size;
+
+	// The matrix, a second one to multiply by, and a right hand side
+	private Matrix matrix, other, solution;
+
+	/**
+	 * Find the determinant
+	 * 
+	 * @return The determinant
+	 */
+	@Benchmark
+	public Fraction determinant() {
+		return this.matrix.getDeterminant();
+	}
+
+	/**
+	 * Find the inverse
+	 * 
+	 * @return The inverse
+	 */
+	@Benchmark
+	public Matrix inverse() {
+		return this.matrix.findInverse();
+	}
+
+	/**
+	 * Multiply two matrices
+	 * 
+	 * @return The product
+	 */
+	@Benchmark
+	public Matrix multiply() {
+		return Matrix.multiplyMatrices(this.matrix, this.other);
+	}
+
+	/**
+	 * Reduce the matrix to reduced row echelon form
+	 * 
+	 * @return The reduced matrix
+	 */
+	@Benchmark
+	public Matrix reduce() {
+		return new SolverAI(this.matrix).solve();
+	}
+
+	/**
+	 * Build the inputs
+	 */
+	@Setup
+	public void setUp() {
+		Random random = new Random(31L * this.size + this.bits);
+		this.matrix = Inputs.matrix(random, this.size, this.density, this.bits);
+		this.other = Inputs.matrix(random, this.size, this.density, this.bits);
+		this.solution = Matrix.transpose(new Matrix(new Fraction[][] { Inputs
+				.vector(random, this.size, this.bits).getVector() }));
+	}
+
+	/**
+	 * Solve for one right hand side
+	 * 
+	 * @return The solutions
+	 */
+	@Benchmark
+	public Fraction[] solve() {
+		// A new Matrix over the same rows has no cached factorization
+		return Matrix.findSolution(new Matrix(this.matrix.getMatrix()),
+				this.solution);
+	}
+
+	/**
+	 * Transpose the matrix
+	 * 
+	 * @return The transpose
+	 */
+	@Benchmark
+	public Matrix transpose() {
+		return Matrix.transpose(this.matrix);
+	}
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import solver.Exponential;
+import solver.Vector;
+
+/**
+ * Times finding the length of seeded vectors of a given size and element
+ * size
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VectorBenchmarks {
+
+	// The number of bits in each numerator
+	@Param({ "4", "16", "64" })
+	public int bits;
+
+	// The number of elements
+	@Param({ "16", "256", "4096" })
+	public int size;
+
+	// The vector
+	private Vector vector;
+
+	/**
+	 * Find the distance of the vector from the origin
+	 * 
+	 * @return The distance
+	 */
+	@Benchmark
+	public Exponential distance() {
+		return this.vector.getDistance();
+	}
+
+	/**
+	 * Build the vector
+	 */
+	@Setup
+	public void setUp() {
+		this.vector = Inputs.vector(new Random(31L * this.size + this.bits),
+				this.size, this.bits);
+	}
+}
@@ -0,0 +1,230 @@
+package solver;
+
+import java.math.BigInteger;
+
+/**
+ * Finds determinants with fraction-free (Bareiss) elimination. Each row is
+ * scaled to integers first, so every intermediate value is the determinant of
+ * a minor of the scaled matrix and the divisions are always exact. The
+ * elimination runs on longs and is only repeated on BigIntegers if a value
+ * overflows
+ *
+ * @author Inderpreet Dhillon
+ *
+ */
+final class Bareiss {
+
+	/**
+	 * Get the determinant of a square matrix
+	 *
+	 * @param matrix
+	 *            The matrix, which is not changed
+	 * @return The determinant of the matrix
+	 */
+	static Fraction determinant(Matrix matrix) {
+		// The product of the row scales, to undo at the end
+		BigInteger scale = BigInteger.ONE;
+
+		try {
+			// Scale every row to longs
+			long[][] rows = new long[matrix.getRows()][];
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = new long[matrix.getColumns()];
+				long rowScale = scaleRow(matrix, i, rows[i]);
+				scale = scale.multiply(BigInteger.valueOf(rowScale));
+			}
+
+			// Eliminate on longs, failing on overflow
+			BigInteger determinant = BigInteger.valueOf(determinant(rows));
+			return Fraction.valueOf(determinant, scale);
+		} catch (ArithmeticException e) {
+			// A value is too large for a long, use the slow path
+		}
+
+		// Scale every row to BigIntegers
+		scale = BigInteger.ONE;
+		BigInteger[][] rows = new BigInteger[matrix.getRows()][];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new BigInteger[matrix.getColumns()];
+			scale = scale.multiply(scaleRow(matrix, i, rows[i]));
+		}
+
+		// Eliminate with arbitrary precision
+		return Fraction.valueOf(determinant(rows), scale);
+	}
+
+	/**
+	 * Get the determinant of a square integer matrix, using BigIntegers
+	 *
+	 * @param rows
+	 *            The rows of the matrix, which are overwritten
+	 * @return The determinant
+	 */
+	static BigInteger determinant(BigInteger[][] rows) {
+		// Track row swaps and the previous pivot
+		int size = rows.length;
+		boolean negate = false;
+		BigInteger previous = BigInteger.ONE;
+
+		// Eliminate below each pivot
+		for (int k = 0; k < size; k++) {
+			// Find a row with a non-zero pivot, swapping it into place
+			if (rows[k][k].signum() == 0) {
+				int pivot = k + 1;
+				while (pivot < size && rows[pivot][k].signum() == 0) {
+					pivot++;
+				}
+
+				// A column of zeroes makes the matrix singular
+				if (pivot == size) {
+					return BigInteger.ZERO;
+				}
+				BigInteger[] temp = rows[k];
+				rows[k] = rows[pivot];
+				rows[pivot] = temp;
+				negate = !negate;
+			}
+
+			// Every element below and right of the pivot becomes a minor
+			BigInteger pivot = rows[k][k];
+			for (int i = k + 1; i < size; i++) {
+				BigInteger lead = rows[i][k];
+				for (int j = k + 1; j < size; j++) {
+					rows[i][j] = rows[i][j].multiply(pivot)
+							.subtract(lead.multiply(rows[k][j]))
+							.divide(previous);
+				}
+			}
+			previous = pivot;
+		}
+
+		// The last pivot is the determinant, up to the sign of the swaps
+		return negate ? previous.negate() : previous;
+	}
+
+	/**
+	 * Get the determinant of a square integer matrix, using longs
+	 *
+	 * @param rows
+	 *            The rows of the matrix, which are overwritten
+	 * @return The determinant
+	 * @throws ArithmeticException
+	 *             If an intermediate value overflows a long
+	 */
+	static long determinant(long[][] rows) {
+		// Track row swaps and the previous pivot
+		int size = rows.length;
+		boolean negate = false;
+		long previous = 1;
+
+		// Eliminate below each pivot
+		for (int k = 0; k < size; k++) {
+			// Find a row with a non-zero pivot, swapping it into place
+			if (rows[k][k] == 0) {
+				int pivot = k + 1;
+				while (pivot < size && rows[pivot][k] == 0) {
+					pivot++;
+				}
+
+				// A column of zeroes makes the matrix singular
+				if (pivot == size) {
+					return 0;
+				}
+				long[] temp = rows[k];
+				rows[k] = rows[pivot];
+				rows[pivot] = temp;
+				negate = !negate;
+			}
+
+			// Every element below and right of the pivot becomes a minor
+			long pivot = rows[k][k];
+			for (int i = k + 1; i < size; i++) {
+				long lead = rows[i][k];
+				long[] row = rows[i];
+				for (int j = k + 1; j < size; j++) {
+					row[j] = Math.subtractExact(
+							Math.multiplyExact(row[j], pivot),
+							Math.multiplyExact(lead, rows[k][j]))
+							/ previous;
+				}
+			}
+			previous = pivot;
+		}
+
+		// The last pivot is the determinant, up to the sign of the swaps
+		return negate ? Math.negateExact(previous) : previous;
+	}
+
+	/**
+	 * Scale a row of a matrix by the lowest common multiple of its
+	 * denominators, so every element becomes an integer
+	 *
+	 * @param matrix
+	 *            The matrix
+	 * @param row
+	 *            The index of the row
+	 * @param scaled
+	 *            The array to fill with the scaled row
+	 * @return The multiple the row was scaled by
+	 */
+	static BigInteger scaleRow(Matrix matrix, int row, BigInteger[] scaled) {
+		// Find the lowest common multiple of the denominators
+		BigInteger multiple = BigInteger.ONE;
+		for (int j = 0; j < scaled.length; j++) {
+			BigInteger denominator = matrix.getElement(row, j)
+					.getBigDenominator();
+			multiple = multiple.divide(multiple.gcd(denominator)).multiply(
+					denominator);
+		}
+
+		// Scale each element
+		for (int j = 0; j < scaled.length; j++) {
+			Fraction element = matrix.getElement(row, j);
+			scaled[j] = element.getBigNumerator().multiply(
+					multiple.divide(element.getBigDenominator()));
+		}
+
+		// Return the multiple
+		return multiple;
+	}
+
+	/**
+	 * Scale a row of a matrix by the lowest common multiple of its
+	 * denominators, so every element becomes an integer
+	 *
+	 * @param matrix
+	 *            The matrix
+	 * @param row
+	 *            The index of the row
+	 * @param scaled
+	 *            The array to fill with the scaled row
+	 * @return The multiple the row was scaled by
+	 * @throws ArithmeticException
+	 *             If a value does not fit in a long
+	 */
+	static long scaleRow(Matrix matrix, int row, long[] scaled) {
+		// Find the lowest common multiple of the denominators
+		long multiple = 1;
+		for (int j = 0; j < scaled.length; j++) {
+			long denominator = matrix.getElement(row, j).getDenominator();
+			multiple = Math.multiplyExact(
+					multiple / Fraction.gcd(multiple, denominator), denominator);
+		}
+
+		// Scale each element
+		for (int j = 0; j < scaled.length; j++) {
+			Fraction element = matrix.getElement(row, j);
+			scaled[j] = Math.multiplyExact(element.getNumerator(), multiple
+					/ element.getDenominator());
+		}
+
+		// Return the multiple
+		return multiple;
+	}
+
+	/**
+	 * Only static methods, not meant to be created
+	 */
+	private Bareiss() {
+	}
+}
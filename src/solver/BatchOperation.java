@@ -0,0 +1,37 @@
+package solver;
+
+/**
+ * The operations a BatchProcessor can run on each problem, named in the input
+ * by their lower case names
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum BatchOperation {
+
+	/**
+	 * The determinant of a square matrix
+	 */
+	DETERMINANT,
+
+	/**
+	 * The inverse of a square, non-singular matrix
+	 */
+	INVERSE,
+
+	/**
+	 * The rank of a matrix of any shape
+	 */
+	RANK,
+
+	/**
+	 * The reduced row echelon form of a matrix of any shape
+	 */
+	REDUCE,
+
+	/**
+	 * The solution of a square system, with a right hand side after the
+	 * matrix
+	 */
+	SOLVE
+}
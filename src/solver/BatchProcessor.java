@@ -0,0 +1,499 @@
+package solver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves a stream of problems without any prompts. Each problem is a header
+ * line naming the operation and the size of the matrix, such as
+ * "determinant 3 3", followed by one line per row and, for "solve", one line
+ * with the right hand side. Blank lines and lines starting with # are
+ * skipped. Problems are read on the calling thread, parsed and solved on a
+ * pool of workers, and written in the order they were read. Only a bounded
+ * number of problems are in flight at once, so any amount of input can be
+ * streamed through
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class BatchProcessor {
+
+	/**
+	 * One problem, its raw lines and, once solved, its answer
+	 */
+	private static final class Problem implements Callable<Problem> {
+
+		// The lines of the matrix and right hand side, not parsed yet
+		private final CharSequence lines;
+
+		// The operation to run, null if the header could not be read
+		private final BatchOperation operation;
+
+		// The layout of matrices in the answer
+		private final MatrixFormat format;
+
+		// The answer, or the error
+		private final StringBuilder answer;
+
+		// When the problem was read and when its answer was ready
+		private final long read;
+		private long finished;
+
+		private final int index, rows, columns;
+
+		// True if the problem gave an error
+		private boolean failed;
+
+		/**
+		 * Create a problem
+		 * 
+		 * @param index
+		 *            The position of the problem in the input, from one
+		 * @param operation
+		 *            The operation to run
+		 * @param rows
+		 *            The height of the matrix
+		 * @param columns
+		 *            The width of the matrix
+		 * @param lines
+		 *            The lines after the header, each ending in a line break
+		 * @param format
+		 *            The layout of matrices in the answer
+		 * @param read
+		 *            When the problem was read, in nanoseconds
+		 */
+		Problem(int index, BatchOperation operation, int rows, int columns,
+				CharSequence lines, MatrixFormat format, long read) {
+			// Store parameters
+			this.index = index;
+			this.operation = operation;
+			this.rows = rows;
+			this.columns = columns;
+			this.lines = lines;
+			this.format = format;
+			this.read = read;
+			this.answer = new StringBuilder();
+		}
+
+		/**
+		 * Create a problem that could not be read
+		 * 
+		 * @param index
+		 *            The position of the problem in the input, from one
+		 * @param error
+		 *            Why it could not be read
+		 * @param read
+		 *            When the problem was read, in nanoseconds
+		 */
+		Problem(int index, String error, long read) {
+			// Store parameters
+			this(index, null, 0, 0, null, null, read);
+			this.fail(error);
+		}
+
+		/**
+		 * Parse and solve the problem, recording any error as the answer
+		 * 
+		 * @return This problem
+		 */
+		@Override
+		public Problem call() {
+			// A problem that could not be read is already answered
+			if (this.operation != null) {
+				try {
+					this.answer.append("# Problem ").append(this.index)
+							.append(": ")
+							.append(this.operation.name().toLowerCase(Locale.ROOT))
+							.append(' ').append(this.rows).append('x')
+							.append(this.columns).append('\n');
+					this.solve(new FractionTokenizer(this.lines));
+				} catch (IOException e) {
+					// A CharSequence never throws
+					throw new UncheckedIOException(e);
+				} catch (RuntimeException e) {
+					// Keep going with the other problems
+					this.answer.setLength(0);
+					this.fail((e.getMessage() != null) ? e.getMessage() : e
+							.toString());
+				}
+			}
+			this.finished = System.nanoTime();
+			return this;
+		}
+
+		/**
+		 * Record an error as the answer
+		 * 
+		 * @param error
+		 *            The error
+		 */
+		private void fail(String error) {
+			this.failed = true;
+			this.answer.append("# Problem ").append(this.index)
+					.append(": error: ").append(error).append('\n');
+		}
+
+		/**
+		 * Parse the matrix, run the operation on it and write the answer
+		 * 
+		 * @param tokenizer
+		 *            The lines after the header
+		 * @throws IOException
+		 *             If reading the lines fails
+		 */
+		private void solve(FractionTokenizer tokenizer) throws IOException {
+			Matrix matrix = BatchProcessor.parse(tokenizer, this.rows,
+					this.columns);
+			switch (this.operation) {
+			case DETERMINANT:
+				this.answer.append(matrix.getDeterminant()).append('\n');
+				break;
+			case INVERSE:
+				this.answer.append(matrix.findInverse().toString(this.format));
+				break;
+			case RANK:
+				this.answer.append(matrix.getRank()).append('\n');
+				break;
+			case REDUCE:
+				this.answer.append(new SolverAI(matrix).solve().toString(
+						this.format));
+				break;
+			default:
+				// The right hand side is the last line, as a column
+				Matrix solution = BatchProcessor.parse(tokenizer, 1, this.rows);
+				Fraction[] solutions = Matrix.findSolution(matrix,
+						Matrix.transpose(solution));
+				for (int i = 0; i < solutions.length; i++) {
+					this.answer.append('X').append(i + 1).append(" = ")
+							.append(solutions[i]).append('\n');
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Find the operation with a name
+	 * 
+	 * @param name
+	 *            The name, in any case
+	 * @return The operation
+	 * @throws IllegalArgumentException
+	 *             If there is no operation with the name
+	 */
+	private static BatchOperation operation(String name) {
+		try {
+			return BatchOperation.valueOf(name.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown operation: " + name);
+		}
+	}
+
+	/**
+	 * Parse rows of a matrix
+	 * 
+	 * @param tokenizer
+	 *            The lines to read from, one per row
+	 * @param rows
+	 *            The height of the matrix
+	 * @param columns
+	 *            The width of the matrix
+	 * @return The matrix
+	 * @throws IOException
+	 *             If reading fails
+	 * @throws MatrixFormatException
+	 *             If a row has the wrong number of elements or an element is
+	 *             not a number
+	 */
+	private static Matrix parse(FractionTokenizer tokenizer, int rows,
+			int columns) throws IOException {
+		Fraction[][] elements = new Fraction[rows][columns];
+		for (int i = 0; i < rows; i++) {
+			tokenizer.readRow(elements[i]);
+		}
+		return new Matrix(elements);
+	}
+
+	/**
+	 * Read the number of rows or columns from a header
+	 * 
+	 * @param text
+	 *            The part of the header holding the number
+	 * @param name
+	 *            What the number counts, for the error message
+	 * @return The number
+	 * @throws IllegalArgumentException
+	 *             If the text is not a whole number
+	 */
+	private static int size(String text, String name) {
+		try {
+			return Integer.parseInt(text);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Expected a " + name
+					+ " count but found \"" + text + "\"");
+		}
+	}
+
+	// The layout of matrices in the answers
+	private final MatrixFormat format;
+
+	// The most problems in flight at once
+	private final int capacity;
+
+	// The number of workers
+	private final int threads;
+
+	/**
+	 * Create a batch processor
+	 * 
+	 * @param threads
+	 *            The number of workers
+	 * @param capacity
+	 *            The most problems read but not yet written at once
+	 * @param format
+	 *            The layout of matrices in the answers
+	 * @throws IllegalArgumentException
+	 *             If threads or capacity is less than 1
+	 */
+	public BatchProcessor(int threads, int capacity, MatrixFormat format) {
+		if (threads < 1 || capacity < 1) {
+			throw new IllegalArgumentException(
+					"Threads and capacity must be at least 1");
+		}
+
+		// Store parameters
+		this.threads = threads;
+		this.capacity = capacity;
+		this.format = format;
+	}
+
+	/**
+	 * Read the next line that is not blank or a comment
+	 * 
+	 * @param reader
+	 *            The input
+	 * @return The line, or null at the end of the input
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private String nextLine(BufferedReader reader) throws IOException {
+		String line;
+		do {
+			line = reader.readLine();
+		} while (line != null
+				&& (line.trim().isEmpty() || line.trim().startsWith("#")));
+		return line;
+	}
+
+	/**
+	 * Solve every problem in the input and write the answers in order
+	 * 
+	 * @param input
+	 *            Where to read problems from
+	 * @param output
+	 *            Where to write the answers
+	 * @return The throughput and latency of the run
+	 * @throws IOException
+	 *             If reading or writing fails
+	 */
+	public BatchStatistics process(Reader input, Writer output)
+			throws IOException {
+		// Set up the workers and the problems in flight, oldest first
+		BufferedReader reader = new BufferedReader(input);
+		ExecutorService workers = Executors.newFixedThreadPool(this.threads);
+		ArrayDeque<Future<Problem>> pending = new ArrayDeque<Future<Problem>>();
+		long[] latencies = new long[64];
+		int count = 0, failures = 0, written = 0;
+		long start = System.nanoTime();
+
+		try {
+			// Read each problem until the input ends
+			String header;
+			while ((header = this.nextLine(reader)) != null) {
+				Problem problem = this.read(reader, header, count + 1);
+				pending.add(workers.submit(problem));
+				count++;
+
+				// Write the oldest answer once too many are in flight
+				while (pending.size() >= this.capacity) {
+					Problem done = this.write(pending.poll(), output);
+					latencies = this.record(latencies, done, written++);
+					failures += done.failed ? 1 : 0;
+				}
+			}
+
+			// Write the rest
+			while (!pending.isEmpty()) {
+				Problem done = this.write(pending.poll(), output);
+				latencies = this.record(latencies, done, written++);
+				failures += done.failed ? 1 : 0;
+			}
+			output.flush();
+		} finally {
+			workers.shutdownNow();
+		}
+
+		// Return the statistics
+		return new BatchStatistics(Arrays.copyOf(latencies, count), failures,
+				System.nanoTime() - start);
+	}
+
+	/**
+	 * Read the lines of one problem
+	 * 
+	 * @param reader
+	 *            The input
+	 * @param header
+	 *            The header line of the problem
+	 * @param index
+	 *            The position of the problem, from one
+	 * @return The problem, which has an error if it could not be read
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private Problem read(BufferedReader reader, String header, int index)
+			throws IOException {
+		long read = System.nanoTime();
+
+		// Read the size first, it says how many lines belong to the problem
+		String[] parts = header.trim().split("\\s+");
+		int rows, columns;
+		try {
+			if (parts.length != 3) {
+				throw new IllegalArgumentException(
+						"Expected \"operation rows columns\" but got \""
+								+ header.trim() + "\"");
+			}
+			rows = BatchProcessor.size(parts[1], "row");
+			columns = BatchProcessor.size(parts[2], "column");
+			if (rows < 1 || columns < 1) {
+				throw new IllegalArgumentException("Size must be at least 1x1");
+			}
+		} catch (IllegalArgumentException e) {
+			// The size is unknown, so skip every row that follows
+			while (this.startsRow(reader)) {
+				this.nextLine(reader);
+			}
+			return new Problem(index, e.getMessage(), read);
+		}
+
+		// Read the operation, skipping the lines of a problem it can not run
+		BatchOperation operation;
+		try {
+			operation = BatchProcessor.operation(parts[0]);
+		} catch (IllegalArgumentException e) {
+			for (int i = 0; i < rows; i++) {
+				if (this.nextLine(reader) == null) {
+					break;
+				}
+			}
+			if (this.startsRow(reader)) {
+				this.nextLine(reader);
+			}
+			return new Problem(index, e.getMessage(), read);
+		}
+
+		// Gather the rows, and the right hand side when solving
+		StringBuilder lines = new StringBuilder();
+		int count = rows + ((operation == BatchOperation.SOLVE) ? 1 : 0);
+		for (int i = 0; i < count; i++) {
+			String line = this.nextLine(reader);
+			if (line == null) {
+				return new Problem(index, "Unexpected end of input", read);
+			}
+			lines.append(line).append('\n');
+		}
+		return new Problem(index, operation, rows, columns, lines,
+				this.format, read);
+	}
+
+	/**
+	 * Store the latency of a problem, growing the array if needed
+	 * 
+	 * @param latencies
+	 *            The latencies so far
+	 * @param problem
+	 *            The finished problem
+	 * @param position
+	 *            Where to store its latency
+	 * @return The array holding the latencies
+	 */
+	private long[] record(long[] latencies, Problem problem, int position) {
+		if (position == latencies.length) {
+			latencies = Arrays.copyOf(latencies, 2 * latencies.length);
+		}
+		latencies[position] = problem.finished - problem.read;
+		return latencies;
+	}
+
+	/**
+	 * Check whether the next line that is not blank or a comment is a row of
+	 * numbers rather than the header of another problem, without reading it
+	 * 
+	 * @param reader
+	 *            The input
+	 * @return True if the line does not start with a letter
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private boolean startsRow(BufferedReader reader) throws IOException {
+		// Skip spaces, blank lines and comments
+		int next;
+		do {
+			reader.mark(1);
+			next = reader.read();
+			if (next == '#') {
+				reader.readLine();
+				next = '\n';
+			}
+		} while (next != -1 && Character.isWhitespace(next));
+
+		// Put back the first character of the line
+		if (next == -1) {
+			return false;
+		}
+		reader.reset();
+		return !Character.isLetter(next);
+	}
+
+	/**
+	 * Wait for a problem to finish and write its answer
+	 * 
+	 * @param future
+	 *            The problem in flight
+	 * @param output
+	 *            Where to write
+	 * @return The finished problem
+	 * @throws IOException
+	 *             If writing fails, or the wait is interrupted
+	 */
+	private Problem write(Future<Problem> future, Writer output)
+			throws IOException {
+		// Wait for the answer
+		Problem problem;
+		try {
+			problem = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for an answer");
+		} catch (ExecutionException e) {
+			// Problems catch their own errors, so only a JVM error gets here
+			throw new IllegalStateException(e.getCause());
+		}
+
+		// Write it
+		output.append(problem.answer);
+		return problem;
+	}
+}
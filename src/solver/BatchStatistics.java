@@ -0,0 +1,125 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * How a run of a BatchProcessor went, its throughput and the latency of each
+ * problem from when it was read to when its answer was ready
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class BatchStatistics {
+
+	// The latency of each problem in nanoseconds, sorted
+	private final long[] latencies;
+
+	// The time from the first read to the last write, in nanoseconds
+	private final long elapsed;
+
+	private final int failures;
+
+	/**
+	 * Create statistics for a run
+	 * 
+	 * @param latencies
+	 *            The latency of each problem in nanoseconds, which is sorted
+	 *            in place
+	 * @param failures
+	 *            The number of problems that gave an error
+	 * @param elapsed
+	 *            The time the whole run took in nanoseconds
+	 */
+	BatchStatistics(long[] latencies, int failures, long elapsed) {
+		// Store parameters
+		Arrays.sort(latencies);
+		this.latencies = latencies;
+		this.failures = failures;
+		this.elapsed = elapsed;
+	}
+
+	/**
+	 * Get the time the whole run took
+	 * 
+	 * @return The time in nanoseconds
+	 */
+	public long getElapsed() {
+		return this.elapsed;
+	}
+
+	/**
+	 * Get the number of problems that gave an error, including any that
+	 * could not be read
+	 * 
+	 * @return The failures
+	 */
+	public int getFailures() {
+		return this.failures;
+	}
+
+	/**
+	 * Get a percentile of the latency of each problem
+	 * 
+	 * @param percentile
+	 *            The percentile, from 0 to 100
+	 * @return The latency in nanoseconds that this percentage of problems
+	 *         were at or under, 0 if there were no problems
+	 */
+	public long getLatency(double percentile) {
+		if (this.latencies.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile / 100 * this.latencies.length) - 1;
+		return this.latencies[Math.max(0,
+				Math.min(index, this.latencies.length - 1))];
+	}
+
+	/**
+	 * Get the mean latency of the problems
+	 * 
+	 * @return The mean latency in nanoseconds, 0 if there were no problems
+	 */
+	public double getMeanLatency() {
+		if (this.latencies.length == 0) {
+			return 0;
+		}
+		double total = 0;
+		for (long latency : this.latencies) {
+			total += latency;
+		}
+		return total / this.latencies.length;
+	}
+
+	/**
+	 * Get the number of problems that were processed
+	 * 
+	 * @return The problems
+	 */
+	public int getProblems() {
+		return this.latencies.length;
+	}
+
+	/**
+	 * Get the rate problems were processed at
+	 * 
+	 * @return Problems per second
+	 */
+	public double getThroughput() {
+		return (this.elapsed == 0) ? 0 : this.latencies.length * 1e9
+				/ this.elapsed;
+	}
+
+	/**
+	 * Gets a summary of the run, with latencies in milliseconds
+	 */
+	@Override
+	public String toString() {
+		return String.format("%d problems (%d failed) in %.1f ms, %.1f per "
+				+ "second%nLatency ms: mean %.3f, p50 %.3f, p95 %.3f, "
+				+ "p99 %.3f, max %.3f", this.getProblems(), this.failures,
+				this.elapsed / 1e6, this.getThroughput(),
+				this.getMeanLatency() / 1e6, this.getLatency(50) / 1e6,
+				this.getLatency(95) / 1e6, this.getLatency(99) / 1e6,
+				this.getLatency(100) / 1e6);
+	}
+}
@@ -0,0 +1,29 @@
+package solver;
+
+/**
+ * The algorithms a Matrix can use to find its determinant
+ *
+ * @author Inderpreet Dhillon
+ *
+ */
+public enum DeterminantMethod {
+
+	/**
+	 * Cofactor expansion along the first row, O(n!). Only useful as a
+	 * reference for very small matrices
+	 */
+	LAPLACE,
+
+	/**
+	 * Fraction-free Gaussian elimination, O(n^3) with intermediate values no
+	 * larger than the minors of the matrix
+	 */
+	BAREISS,
+
+	/**
+	 * The determinant modulo many word-size primes, rebuilt with the Chinese
+	 * Remainder Theorem. Uses only long arithmetic during elimination and
+	 * runs the primes in parallel, best for large matrices of integers
+	 */
+	MODULAR
+}
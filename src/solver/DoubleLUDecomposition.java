@@ -0,0 +1,358 @@
+package solver;
+
+/**
+ * An LU factorization with partial pivoting, PA = LU, of a square
+ * DoubleMatrix. Each pivot is the largest element left in its column, which
+ * keeps the multipliers at most one in size. The update of the rows below
+ * each pivot is split across a fork/join pool once it is large enough. A
+ * factorization never changes once it is created, so it can be shared between
+ * threads
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class DoubleLUDecomposition {
+
+	// Columns of the right hand side substituted together
+	private static final int BLOCK = 32;
+
+	/**
+	 * Subtract a multiple of part of one row of an array from another
+	 * 
+	 * @param x
+	 *            The array holding both rows
+	 * @param row
+	 *            The start of the row to change
+	 * @param source
+	 *            The start of the row to subtract
+	 * @param multiplier
+	 *            The multiple of the source row to subtract
+	 * @param first
+	 *            The first column
+	 * @param last
+	 *            The column after the last one
+	 */
+	private static void subtractRow(double[] x, int row, int source,
+			double multiplier, int first, int last) {
+		// Nothing to do for a zero multiple
+		if (multiplier == 0) {
+			return;
+		}
+
+		// Subtract the multiple from each column
+		for (int j = first; j < last; j++) {
+			x[row + j] -= multiplier * x[source + j];
+		}
+	}
+
+	// The multipliers of L below the diagonal, and U on and above it
+	private final double[] lu;
+
+	// Row i of PA is row pivots[i] of A
+	private final int[] pivots;
+
+	// True if an odd number of rows were swapped
+	private final boolean negate;
+
+	// True if a column had no non-zero pivot
+	private final boolean singular;
+
+	private final int size;
+
+	/**
+	 * Factor a square matrix
+	 * 
+	 * @param matrix
+	 *            The matrix to factor, which is not changed
+	 * @throws IllegalArgumentException
+	 *             If the matrix is not square
+	 */
+	public DoubleLUDecomposition(DoubleMatrix matrix) {
+		// Only square matrices are factored
+		if (matrix.getRows() != matrix.getColumns()) {
+			throw new IllegalArgumentException("Matrix is not square");
+		}
+
+		// Copy the matrix, the factors are built in place
+		final int size = matrix.getRows();
+		final double[] lu = matrix.getData().clone();
+		this.size = size;
+		this.lu = lu;
+		this.pivots = new int[size];
+		for (int i = 0; i < size; i++) {
+			this.pivots[i] = i;
+		}
+
+		// Eliminate below each pivot
+		boolean negate = false, singular = false;
+		for (int k = 0; k < size; k++) {
+			// Find the largest element in the column
+			int pivot = k;
+			double largest = Math.abs(lu[k * size + k]);
+			for (int i = k + 1; i < size; i++) {
+				double value = Math.abs(lu[i * size + k]);
+				if (value > largest) {
+					largest = value;
+					pivot = i;
+				}
+			}
+
+			// A column of zeroes makes the matrix singular, skip it
+			if (largest == 0) {
+				singular = true;
+				continue;
+			}
+
+			// Swap the pivot row into place, each swap flips the determinant
+			if (pivot != k) {
+				this.swapRows(k, pivot);
+				negate = !negate;
+			}
+
+			// Store the multipliers in L, and subtract from the rest of U
+			final int column = k;
+			final double divisor = lu[k * size + k];
+			RowBlocks.run(new RowBlocks.Body() {
+				@Override
+				public void run(int first, int last) {
+					int pivotRow = column * size;
+					for (int i = first; i < last; i++) {
+						int row = i * size;
+						double multiplier = lu[row + column] / divisor;
+						lu[row + column] = multiplier;
+						if (multiplier != 0) {
+							for (int j = column + 1; j < size; j++) {
+								lu[row + j] -= multiplier * lu[pivotRow + j];
+							}
+						}
+					}
+				}
+			}, k + 1, size, size - k, RowBlocks.defaultParallelism());
+		}
+
+		// Store what was found
+		this.negate = negate;
+		this.singular = singular;
+	}
+
+	/**
+	 * Get the determinant of the factored matrix, the product of the diagonal
+	 * of U
+	 * 
+	 * @return The determinant
+	 */
+	public double getDeterminant() {
+		// A singular matrix has no volume
+		if (this.singular) {
+			return 0;
+		}
+
+		// Multiply the diagonal together
+		double determinant = 1;
+		for (int i = 0; i < this.size; i++) {
+			determinant *= this.lu[i * this.size + i];
+		}
+
+		// Each row swap flips the sign
+		return this.negate ? -determinant : determinant;
+	}
+
+	/**
+	 * Get the unit lower triangular factor
+	 * 
+	 * @return L, with ones on the diagonal
+	 */
+	public DoubleMatrix getLower() {
+		// Copy below the diagonal and put ones on it
+		DoubleMatrix lower = new DoubleMatrix(this.size, this.size);
+		for (int i = 0; i < this.size; i++) {
+			for (int j = 0; j < i; j++) {
+				lower.setElement(i, j, this.lu[i * this.size + j]);
+			}
+			lower.setElement(i, i, 1);
+		}
+
+		// Return L
+		return lower;
+	}
+
+	/**
+	 * Get the row order of the factorization
+	 * 
+	 * @return An array where row i of PA is row pivots[i] of A
+	 */
+	public int[] getPivots() {
+		return this.pivots.clone();
+	}
+
+	/**
+	 * Get the upper triangular factor
+	 * 
+	 * @return U
+	 */
+	public DoubleMatrix getUpper() {
+		// Copy the diagonal and above
+		DoubleMatrix upper = new DoubleMatrix(this.size, this.size);
+		for (int i = 0; i < this.size; i++) {
+			for (int j = i; j < this.size; j++) {
+				upper.setElement(i, j, this.lu[i * this.size + j]);
+			}
+		}
+
+		// Return U
+		return upper;
+	}
+
+	/**
+	 * Checks if the factored matrix is singular
+	 * 
+	 * @return True if a pivot was exactly zero
+	 */
+	public boolean isSingular() {
+		return this.singular;
+	}
+
+	/**
+	 * Solve Ax = b for one right hand side
+	 * 
+	 * @param solution
+	 *            The right hand side, b
+	 * @return The solutions, x
+	 * @throws ArithmeticException
+	 *             If the matrix is singular
+	 * @throws IllegalArgumentException
+	 *             If b is not the same height as the matrix
+	 */
+	public double[] solve(double[] solution) {
+		// Only a non-singular matrix has a unique solution
+		if (this.singular) {
+			throw new ArithmeticException("Matrix is singular");
+		}
+		if (solution.length != this.size) {
+			throw new IllegalArgumentException("Expected " + this.size
+					+ " solutions but got " + solution.length);
+		}
+
+		// Put b in the pivoted row order
+		int size = this.size;
+		double[] x = new double[size];
+		for (int i = 0; i < size; i++) {
+			x[i] = solution[this.pivots[i]];
+		}
+
+		// Forward substitution, Ly = Pb
+		for (int i = 1; i < size; i++) {
+			double sum = x[i];
+			for (int j = 0; j < i; j++) {
+				sum -= this.lu[i * size + j] * x[j];
+			}
+			x[i] = sum;
+		}
+
+		// Back substitution, Ux = y
+		for (int i = size - 1; i >= 0; i--) {
+			double sum = x[i];
+			for (int j = i + 1; j < size; j++) {
+				sum -= this.lu[i * size + j] * x[j];
+			}
+			x[i] = sum / this.lu[i * size + i];
+		}
+
+		// Return the solutions
+		return x;
+	}
+
+	/**
+	 * Solve AX = B for every column of B. The substitution works on whole rows
+	 * of B, split across threads by columns when B is large
+	 * 
+	 * @param solutions
+	 *            The right hand sides, one per column
+	 * @return A matrix with the solution for each column of B in the same
+	 *         column
+	 * @throws ArithmeticException
+	 *             If the matrix is singular
+	 * @throws IllegalArgumentException
+	 *             If B is not the same height as the matrix
+	 */
+	public DoubleMatrix solve(DoubleMatrix solutions) {
+		// Only a non-singular matrix has a unique solution
+		if (this.singular) {
+			throw new ArithmeticException("Matrix is singular");
+		}
+		if (solutions.getRows() != this.size) {
+			throw new IllegalArgumentException("Expected " + this.size
+					+ " rows of solutions but got " + solutions.getRows());
+		}
+
+		// Put B in the pivoted row order
+		final int size = this.size, width = solutions.getColumns();
+		final DoubleMatrix answers = new DoubleMatrix(size, width);
+		final double[] x = answers.getData();
+		for (int i = 0; i < size; i++) {
+			System.arraycopy(solutions.getData(), this.pivots[i] * width, x, i
+					* width, width);
+		}
+
+		// Each block of columns is independent, the "rows" split here are
+		// columns of B. The factors and answers are captured once
+		final double[] lu = this.lu;
+		RowBlocks.run(new RowBlocks.Body() {
+			@Override
+			public void run(int first, int last) {
+				// Work on narrow blocks of columns that stay in cache
+				for (int start = first; start < last; start += BLOCK) {
+					int end = Math.min(last, start + BLOCK);
+
+					// Forward substitution, LY = PB
+					for (int i = 1; i < size; i++) {
+						int row = i * width;
+						for (int k = 0; k < i; k++) {
+							subtractRow(x, row, k * width, lu[i * size + k],
+									start, end);
+						}
+					}
+
+					// Back substitution, UX = Y
+					for (int i = size - 1; i >= 0; i--) {
+						int row = i * width;
+						for (int k = i + 1; k < size; k++) {
+							subtractRow(x, row, k * width, lu[i * size + k],
+									start, end);
+						}
+						double divisor = lu[i * size + i];
+						for (int j = start; j < end; j++) {
+							x[row + j] /= divisor;
+						}
+					}
+				}
+			}
+		}, 0, width, (long) size * size, RowBlocks.defaultParallelism());
+
+		// Return the answers
+		return answers;
+	}
+
+	/**
+	 * Swap two rows of the factorization and record it
+	 * 
+	 * @param firstRow
+	 *            The first row to swap
+	 * @param secondRow
+	 *            The second row to swap
+	 */
+	private void swapRows(int firstRow, int secondRow) {
+		// Swap the rows element by element
+		int first = firstRow * this.size, second = secondRow * this.size;
+		for (int j = 0; j < this.size; j++) {
+			double temp = this.lu[first + j];
+			this.lu[first + j] = this.lu[second + j];
+			this.lu[second + j] = temp;
+		}
+
+		// Swap the pivots
+		int tempPivot = this.pivots[firstRow];
+		this.pivots[firstRow] = this.pivots[secondRow];
+		this.pivots[secondRow] = tempPivot;
+	}
+}
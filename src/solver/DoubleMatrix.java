@@ -0,0 +1,286 @@
+package solver;
+
+/**
+ * A dense matrix of doubles, stored row by row in a single array. It trades
+ * the exactness of {@link Matrix} for speed, so it suits large systems where
+ * an approximate answer is enough. Conversions to and from Matrix keep every
+ * value that a double can hold exactly
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class DoubleMatrix {
+
+	/**
+	 * Create an identity matrix
+	 * 
+	 * @param size
+	 *            The height and width of the matrix
+	 * @return A size x size matrix with ones on the diagonal
+	 */
+	public static DoubleMatrix identity(int size) {
+		// Start from zeroes and fill the diagonal
+		DoubleMatrix identity = new DoubleMatrix(size, size);
+		for (int i = 0; i < size; i++) {
+			identity.data[i * size + i] = 1;
+		}
+
+		// Return the identity
+		return identity;
+	}
+
+	// The elements, element (i, j) is at i * columns + j
+	private final double[] data;
+
+	// The factorization of the current elements, null until it is needed and
+	// again after any change
+	private volatile DoubleLUDecomposition decomposition;
+
+	private final int columns, rows;
+
+	/**
+	 * Create a matrix from a 2d double array
+	 * 
+	 * @param matrix
+	 *            The elements, which are copied
+	 */
+	public DoubleMatrix(double[][] matrix) {
+		// Create the storage
+		this(matrix.length, matrix[0].length);
+
+		// Copy each row into place
+		for (int i = 0; i < this.rows; i++) {
+			System.arraycopy(matrix[i], 0, this.data, i * this.columns,
+					this.columns);
+		}
+	}
+
+	/**
+	 * Create a matrix filled with zeroes
+	 * 
+	 * @param rows
+	 *            The height of the matrix
+	 * @param columns
+	 *            The width of the matrix
+	 * @throws IllegalArgumentException
+	 *             If either size is negative, or there are too many elements
+	 *             to hold in one array
+	 */
+	public DoubleMatrix(int rows, int columns) {
+		if (rows < 0 || columns < 0) {
+			throw new IllegalArgumentException("A " + rows + "x" + columns
+					+ " matrix can not have a negative size");
+		}
+
+		// Store parameters
+		this.rows = rows;
+		this.columns = columns;
+
+		// Every element must have an index in a single array
+		try {
+			this.data = new double[Math.multiplyExact(rows, columns)];
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("A " + rows + "x" + columns
+					+ " matrix is too large for a DoubleMatrix");
+		}
+	}
+
+	/**
+	 * Create a matrix with the nearest doubles to the elements of an exact
+	 * matrix
+	 * 
+	 * @param matrix
+	 *            The matrix to convert
+	 */
+	public DoubleMatrix(Matrix matrix) {
+		// Create the storage
+		this(matrix.getRows(), matrix.getColumns());
+
+		// Round each element
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.columns; j++) {
+				this.data[i * this.columns + j] = matrix.getElement(i, j)
+						.doubleValue();
+			}
+		}
+	}
+
+	/**
+	 * Find the inverse of the matrix
+	 * 
+	 * @return The inverse of the matrix
+	 * @throws ArithmeticException
+	 *             If the matrix is singular
+	 */
+	public DoubleMatrix findInverse() {
+		// Solve for every column of the identity
+		return this.getDecomposition().solve(DoubleMatrix.identity(this.rows));
+	}
+
+	/**
+	 * Find x where Ax = b
+	 * 
+	 * @param solution
+	 *            The right hand side, b
+	 * @return The solutions, x
+	 * @throws ArithmeticException
+	 *             If the matrix is singular
+	 */
+	public double[] findSolution(double[] solution) {
+		// Substitute through the cached factorization
+		return this.getDecomposition().solve(solution);
+	}
+
+	/**
+	 * Solve Ax = b approximately with an iterative method, which avoids
+	 * factoring the matrix
+	 * 
+	 * @param solution
+	 *            The right hand side, b
+	 * @param solver
+	 *            The method and settings to use
+	 * @return The estimate of x and how close it came
+	 * @throws ArithmeticException
+	 *             If the method can not run on the matrix
+	 * @throws IllegalArgumentException
+	 *             If the matrix is not square or b is the wrong length
+	 */
+	public IterativeResult findSolution(double[] solution,
+			IterativeSolver solver) {
+		return solver.solve(this, solution);
+	}
+
+	/**
+	 * Get the width of the matrix
+	 * 
+	 * @return The number of columns
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Get the array backing the matrix, row by row
+	 * 
+	 * @return The elements, changes to it are not seen by a cached
+	 *         factorization
+	 */
+	double[] getData() {
+		return this.data;
+	}
+
+	/**
+	 * Get the LU factorization of the matrix. It is made on the first call and
+	 * kept until the matrix is changed
+	 * 
+	 * @return The factorization, which never changes and can be shared between
+	 *         threads
+	 * @throws IllegalArgumentException
+	 *             If the matrix is not square
+	 */
+	public DoubleLUDecomposition getDecomposition() {
+		// Read the cache once, another thread may clear it
+		DoubleLUDecomposition decomposition = this.decomposition;
+
+		// Factor the matrix if there is no factorization yet
+		if (decomposition == null) {
+			decomposition = new DoubleLUDecomposition(this);
+			this.decomposition = decomposition;
+		}
+
+		// Return the factorization
+		return decomposition;
+	}
+
+	/**
+	 * Get the determinant of the matrix
+	 * 
+	 * @return The determinant if the matrix is square, 0 otherwise
+	 */
+	public double getDeterminant() {
+		// Only square matrices have a determinant
+		if (this.rows != this.columns) {
+			return 0;
+		}
+
+		// Use the product of the pivots
+		return this.getDecomposition().getDeterminant();
+	}
+
+	/**
+	 * Get an element
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @return The element
+	 */
+	public double getElement(int row, int column) {
+		return this.data[row * this.columns + column];
+	}
+
+	/**
+	 * Get the height of the matrix
+	 * 
+	 * @return The number of rows
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Set an element
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @param value
+	 *            The new value
+	 */
+	public void setElement(int row, int column, double value) {
+		this.data[row * this.columns + column] = value;
+		this.decomposition = null;
+	}
+
+	/**
+	 * Convert to an exact matrix. Every double is a fraction, so no value
+	 * changes
+	 * 
+	 * @return A Matrix with the same elements
+	 */
+	public Matrix toMatrix() {
+		// Create an empty matrix
+		Matrix matrix = new Matrix(this.rows, this.columns);
+
+		// Convert each element exactly
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.columns; j++) {
+				matrix.setElement(i, j,
+						Fraction.valueOf(this.data[i * this.columns + j]));
+			}
+		}
+
+		// Return the matrix
+		return matrix;
+	}
+
+	/**
+	 * Gets each row and column of the matrix in standard form
+	 */
+	@Override
+	public String toString() {
+		// Build each row of the matrix, tab separated
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < this.rows; i++) {
+			for (int j = 0; j < this.columns; j++) {
+				builder.append(this.data[i * this.columns + j]).append('\t');
+			}
+			builder.append('\n');
+		}
+
+		// Return the matrix
+		return builder.toString();
+	}
+}
@@ -1,5 +1,8 @@
 package solver;
 
+import java.io.IOException;
+import java.math.BigInteger;
+
 /**
  * A class for representing and manipulating exponential numbers
  * 
@@ -8,7 +11,7 @@ package solver;
  */
 public class Exponential {
 
-	private Fraction base, power;
+	private final Fraction base, power;
 
 	/**
 	 * Creates an Exponential with the base and power
@@ -34,7 +37,7 @@ public class Exponential {
 	 */
 	public Exponential(Fraction base, int power) {
 		// Call designated constructor
-		this(base, new Fraction(power));
+		this(base, Fraction.valueOf(power));
 	}
 
 	/**
@@ -47,7 +50,7 @@ public class Exponential {
 	 */
 	public Exponential(int base, Fraction power) {
 		// Call designated constructor
-		this(new Fraction(base), power);
+		this(Fraction.valueOf(base), power);
 	}
 
 	/**
@@ -60,7 +63,7 @@ public class Exponential {
 	 */
 	public Exponential(int base, int power) {
 		// Call designated constructor
-		this(new Fraction(base), new Fraction(power));
+		this(Fraction.valueOf(base), Fraction.valueOf(power));
 	}
 
 	/**
@@ -78,33 +81,83 @@ public class Exponential {
 	public Exponential(int baseNumerator, int baseDenominator,
 			int powerNumerator, int powerDenominator) {
 		// Call designated constructor
-		this(new Fraction(baseNumerator, baseDenominator), new Fraction(
-				powerNumerator, powerDenominator));
+		this(Fraction.valueOf(baseNumerator, baseDenominator), Fraction
+				.valueOf(powerNumerator, powerDenominator));
 	}
 
 	/**
-	 * Return a String representation of the Exponential
+	 * Checks if a fraction is an integer
+	 * 
+	 * @param fraction
+	 *            The fraction
+	 * @return True if the denominator is one
 	 */
-	public String toString() {
+	private static boolean isWhole(Fraction fraction) {
+		return fraction.isLong() ? fraction.getDenominator() == 1 : fraction
+				.getBigDenominator().equals(BigInteger.ONE);
+	}
+
+	/**
+	 * Write the Exponential to a buffer, with a positive power
+	 * 
+	 * @param builder
+	 *            The buffer to write to
+	 * @param latex
+	 *            True to write LaTeX, false for plain text
+	 */
+	private void appendTo(StringBuilder builder, boolean latex) {
+		// Work on local references so printing never changes the Exponential
+		Fraction base = this.base, power = this.power;
+
 		// Check if the power is negative
-		if (this.power.compareTo(new Fraction(0)) < 0) {
-			this.base = Fraction.getInverse(this.base);
-			this.power.multiply(-1);
+		if (power.signum() < 0) {
+			base = Fraction.getInverse(base);
+			power = power.negate();
 		}
 
-		// Get the string representation of both base and power
-		String baseString = this.base.toString();
-		String powerString = this.power.toString();
+		// Put brackets around a fractional base for clarity
+		boolean bracketBase = !Exponential.isWhole(base);
+		builder.append(bracketBase ? (latex ? "\\left(" : "(") : "");
+		base.appendTo(builder, latex);
+		builder.append(bracketBase ? (latex ? "\\right)" : ")") : "");
 
-		// Check if either string needs brackets for clarity
-		if (baseString.contains("/")) {
-			baseString = "(" + baseString + ")";
-		}
-		if (powerString.contains("/")) {
-			powerString = "(" + powerString + ")";
+		// LaTeX groups the power with braces, plain text needs brackets
+		if (latex) {
+			builder.append("^{");
+			power.appendTo(builder, true);
+			builder.append('}');
+		} else {
+			boolean bracketPower = !Exponential.isWhole(power);
+			builder.append(bracketPower ? "^(" : "^");
+			power.appendTo(builder, false);
+			builder.append(bracketPower ? ")" : "");
 		}
+	}
+
+	/**
+	 * Return a String representation of the Exponential
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		this.appendTo(builder, false);
+		return builder.toString();
+	}
 
-		// Return the Exponential String
-		return baseString + "^" + powerString;
+	/**
+	 * Write the Exponential. Only {@link MatrixFormat#LATEX} changes how a
+	 * single value is written, every other format writes toString()
+	 * 
+	 * @param out
+	 *            Where to write
+	 * @param format
+	 *            The layout to use
+	 * @throws IOException
+	 *             If writing fails
+	 */
+	public void write(Appendable out, MatrixFormat format) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		this.appendTo(builder, format == MatrixFormat.LATEX);
+		out.append(builder);
 	}
 }
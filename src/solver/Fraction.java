@@ -1,9 +1,13 @@
 package solver;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.util.Objects;
 
 /**
- * A class for representing and manipulating fractions
+ * A class for representing and manipulating fractions. Fractions are
+ * immutable and always kept in lowest terms, so they can be shared freely
  * 
  * @author Inderpreet Dhillon
  *
@@ -17,17 +21,79 @@ public class Fraction implements Comparable<Fraction> {
 	 *            The first fraction
 	 * @param two
 	 *            The fraction to add to the first
-	 * @return A new Fraction that is the sum of the others
+	 * @return A Fraction that is the sum of the others
 	 */
 	public static Fraction addFraction(Fraction one, Fraction two) {
-		// Copy the first Fraction
-		Fraction difference = one.getCopy();
+		return one.add(two);
+	}
+
+	/**
+	 * Creates the shared instances of small integers
+	 * 
+	 * @return An array holding every integer from CACHE_LOW to CACHE_HIGH
+	 */
+	private static Fraction[] buildCache() {
+		// Array of the right size
+		Fraction[] cache = new Fraction[CACHE_HIGH - CACHE_LOW + 1];
+
+		// Create each integer once
+		for (int i = 0; i < cache.length; i++) {
+			cache[i] = new Fraction(CACHE_LOW + i, 1, null, null);
+		}
 
-		// Add the second to the first
-		difference.add(two);
+		// Return the filled cache
+		return cache;
+	}
 
-		// Return the sum of the two Fractions
-		return difference;
+	/**
+	 * Get the Fraction for a value already in lowest terms, reusing a shared
+	 * instance for common values
+	 * 
+	 * @param numerator
+	 *            The top part of the fraction, carrying the sign
+	 * @param denominator
+	 *            The bottom part of the fraction, positive
+	 * @return A Fraction with the value
+	 */
+	static Fraction canonical(long numerator, long denominator) {
+		if (denominator == 1 && numerator >= CACHE_LOW
+				&& numerator <= CACHE_HIGH) {
+			// Small integers are shared
+			return CACHE[(int) numerator - CACHE_LOW];
+		} else if (denominator == 2 && numerator == 1) {
+			return HALF;
+		} else if (denominator == 2 && numerator == -1) {
+			return MINUS_HALF;
+		} else {
+			return new Fraction(numerator, denominator, null, null);
+		}
+	}
+
+	/**
+	 * Compares the products a*b and c*d exactly, without overflow or
+	 * allocation
+	 * 
+	 * @param a
+	 *            The first factor of the first product, non-negative
+	 * @param b
+	 *            The second factor of the first product, non-negative
+	 * @param c
+	 *            The first factor of the second product, non-negative
+	 * @param d
+	 *            The second factor of the second product, non-negative
+	 * @return A negative, zero or positive integer as a*b is less than, equal
+	 *         to or greater than c*d
+	 */
+	private static int compareProducts(long a, long b, long c, long d) {
+		// The high halves of the 128 bit products decide first
+		int high = Long.compare(Fraction.multiplyHigh(a, b),
+				Fraction.multiplyHigh(c, d));
+		if (high != 0) {
+			return high;
+		}
+
+		// The low halves hold the remaining bits, unsigned
+		return Long.compareUnsigned(a * b, c * d);
 	}
 
 	/**
@@ -43,7 +109,7 @@ public class Fraction implements Comparable<Fraction> {
 
 		// Traverse row and convert elements to Fraction
 		for (int i = 0; i < row.length; i++) {
-			converted[i] = new Fraction(row[i]);
+			converted[i] = Fraction.valueOf(row[i]);
 		}
 
 		// Return converted array
@@ -64,7 +130,7 @@ public class Fraction implements Comparable<Fraction> {
 		// Traverse matrix and convert to Fraction
 		for (int i = 0; i < iArray.length; i++) {
 			for (int j = 0; j < iArray[0].length; j++) {
-				converted[i][j] = new Fraction(iArray[i][j]);
+				converted[i][j] = Fraction.valueOf(iArray[i][j]);
 			}
 		}
 
@@ -79,17 +145,58 @@ public class Fraction implements Comparable<Fraction> {
 	 *            The first fraction
 	 * @param two
 	 *            The fraction to divide the first by
-	 * @return A new Fraction that is the quotient of the others
+	 * @return A Fraction that is the quotient of the others
 	 */
 	public static Fraction divideFraction(Fraction one, Fraction two) {
-		// Copy the first fraction
-		Fraction product = one.getCopy();
+		return one.divideFraction(two);
+	}
+
+	/**
+	 * Find the greatest common divisor of two numbers using the binary (Stein)
+	 * algorithm, which only needs shifts and subtractions
+	 * 
+	 * @param a
+	 *            The first number
+	 * @param b
+	 *            The second number, neither can be Long.MIN_VALUE
+	 * @return The greatest common divisor of a and b, always non-negative
+	 */
+	static long gcd(long a, long b) {
+		// Work with magnitudes
+		a = Math.abs(a);
+		b = Math.abs(b);
+
+		// gcd(0, b) = b and gcd(a, 0) = a
+		if (a == 0) {
+			return b;
+		} else if (b == 0) {
+			return a;
+		}
+
+		// Find the power of two common to both numbers
+		int shift = Long.numberOfTrailingZeros(a | b);
+
+		// Remove all factors of two from a, they are not common
+		a >>= Long.numberOfTrailingZeros(a);
+
+		// Loop until b is exhausted, a stays odd throughout
+		while (b != 0) {
+			// Remove the factors of two from b
+			b >>= Long.numberOfTrailingZeros(b);
 
-		// Use instance method of the copy
-		product.multiplyFraction(Fraction.getInverse(two));
+			// Keep a as the smaller of the two odd numbers
+			if (a > b) {
+				long temp = a;
+				a = b;
+				b = temp;
+			}
+
+			// The difference of two odd numbers is even
+			b -= a;
+		}
 
-		// Return the product
-		return product;
+		// Restore the common power of two
+		return a << shift;
 	}
 
 	/**
@@ -101,7 +208,12 @@ public class Fraction implements Comparable<Fraction> {
 	 */
 	public static Fraction getInverse(Fraction fraction) {
 		// Swap numerator and denominator
-		return new Fraction(fraction.denominator, fraction.numerator);
+		if (fraction.bigNumerator != null) {
+			return Fraction.valueOf(fraction.bigDenominator,
+					fraction.bigNumerator);
+		} else {
+			return Fraction.valueOf(fraction.denominator, fraction.numerator);
+		}
 	}
 
 	/**
@@ -111,17 +223,61 @@ public class Fraction implements Comparable<Fraction> {
 	 *            The first fraction
 	 * @param two
 	 *            The fraction to multiply the first by
-	 * @return A new Fraction that is the product of the others
+	 * @return A Fraction that is the product of the others
 	 */
 	public static Fraction multiplyFraction(Fraction one, Fraction two) {
-		// Copy the first fraction
-		Fraction product = one.getCopy();
+		return one.multiplyFraction(two);
+	}
 
-		// Use instance method of the copy
-		product.multiplyFraction(two);
+	/**
+	 * Get the upper 64 bits of the 128 bit product of two longs
+	 * 
+	 * @param x
+	 *            The first factor
+	 * @param y
+	 *            The second factor
+	 * @return The high half of x*y
+	 */
+	private static long multiplyHigh(long x, long y) {
+		// Split both factors into 32 bit halves
+		long x1 = x >> 32, x2 = x & 0xFFFFFFFFL;
+		long y1 = y >> 32, y2 = y & 0xFFFFFFFFL;
+
+		// Multiply the halves, carrying into the upper half
+		long low = x2 * y2;
+		long middle = x1 * y2 + (low >>> 32);
+		long carry = (middle & 0xFFFFFFFFL) + x2 * y1;
+
+		// Sum the upper parts of each partial product
+		return x1 * y1 + (middle >> 32) + (carry >> 32);
+	}
 
-		// Return the product
-		return product;
+	/**
+	 * Read a Fraction from a String such as "3", "-3/4", "3/-4" or "2.5"
+	 * 
+	 * @param fraction
+	 *            The String representing a Fraction
+	 * @return The Fraction in the String
+	 * @throws MatrixFormatException
+	 *             If the String is not exactly one number
+	 */
+	private static Fraction parse(String fraction) {
+		FractionTokenizer tokenizer = new FractionTokenizer(fraction);
+		try {
+			// Read the only token
+			if (!tokenizer.next()) {
+				throw new MatrixFormatException("Expected a number", 1, 1);
+			}
+			Fraction value = tokenizer.getFraction();
+			if (tokenizer.next()) {
+				throw tokenizer.error("Expected one number but found "
+						+ tokenizer.getToken());
+			}
+			return value;
+		} catch (IOException e) {
+			// A String never throws
+			throw new UncheckedIOException(e);
+		}
 	}
 
 	/**
@@ -131,21 +287,213 @@ public class Fraction implements Comparable<Fraction> {
 	 *            The first fraction
 	 * @param two
 	 *            The fraction to subtract from the first
-	 * @return A new Fraction that is the difference between the others
+	 * @return A Fraction that is the difference between the others
 	 */
 	public static Fraction subtractFraction(Fraction one, Fraction two) {
-		// Copy the first Fraction
-		Fraction difference = one.getCopy();
+		return one.subtract(two);
+	}
+
+	/**
+	 * Get a Fraction from arbitrarily large parts, shrinking it to longs when
+	 * it fits
+	 * 
+	 * @param numerator
+	 *            The top part of the fraction
+	 * @param denominator
+	 *            The bottom part of the fraction
+	 * @return The Fraction in lowest terms
+	 */
+	public static Fraction valueOf(BigInteger numerator, BigInteger denominator) {
+		// Fractions can not have a zero denominator
+		if (denominator.signum() == 0) {
+			throw new ArithmeticException("Denominator is zero");
+		}
+
+		// Calculate greatest common divisor
+		BigInteger divisor = numerator.gcd(denominator);
+
+		// Move the sign to the numerator
+		if (denominator.signum() < 0) {
+			divisor = divisor.negate();
+		}
+
+		// Divide by GCD
+		numerator = numerator.divide(divisor);
+		denominator = denominator.divide(divisor);
+
+		// Shrink back to longs when both parts fit, Long.MIN_VALUE excluded
+		if (numerator.bitLength() < Long.SIZE
+				&& numerator.longValue() != Long.MIN_VALUE
+				&& denominator.bitLength() < Long.SIZE) {
+			return Fraction.canonical(numerator.longValue(),
+					denominator.longValue());
+		} else {
+			return new Fraction(0, 0, numerator, denominator);
+		}
+	}
+
+	/**
+	 * Get the exact value of a double as a Fraction. Every finite double is a
+	 * whole number times a power of two, so no rounding happens
+	 * 
+	 * @param value
+	 *            The double
+	 * @return A Fraction equal to value
+	 * @throws ArithmeticException
+	 *             If value is infinite or NaN
+	 */
+	public static Fraction valueOf(double value) {
+		// Only finite values are fractions
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new ArithmeticException("Not a finite number: " + value);
+		}
+
+		// Split the bits into the mantissa and the power of two
+		long bits = Double.doubleToLongBits(value);
+		int exponent = (int) ((bits >> 52) & 0x7ff);
+		long mantissa = bits & 0xfffffffffffffL;
+
+		// Normal numbers have an implicit leading one, subnormals do not
+		if (exponent == 0) {
+			exponent = 1;
+		} else {
+			mantissa |= 1L << 52;
+		}
+		exponent -= 1075;
+
+		// Zero has no bits to shift
+		if (mantissa == 0) {
+			return Fraction.ZERO;
+		}
+
+		// Remove trailing zeroes, so the power of two is as small as possible
+		int zeroes = Long.numberOfTrailingZeros(mantissa);
+		mantissa >>= zeroes;
+		exponent += zeroes;
+		if (value < 0) {
+			mantissa = -mantissa;
+		}
+
+		// Return mantissa * 2^exponent
+		if (exponent >= 0) {
+			return Fraction.valueOf(BigInteger.valueOf(mantissa)
+					.shiftLeft(exponent), BigInteger.ONE);
+		} else {
+			return Fraction.valueOf(BigInteger.valueOf(mantissa),
+					BigInteger.ONE.shiftLeft(-exponent));
+		}
+	}
+
+	/**
+	 * Get the Fraction for an integer, common values are shared rather than
+	 * allocated
+	 * 
+	 * @param number
+	 *            The integer
+	 * @return A Fraction with the value number/1
+	 */
+	public static Fraction valueOf(long number) {
+		return Fraction.valueOf(number, 1);
+	}
+
+	/**
+	 * Get the Fraction for a numerator and denominator, common values are
+	 * shared rather than allocated
+	 * 
+	 * @param numerator
+	 *            The top part of the fraction
+	 * @param denominator
+	 *            The bottom part of the fraction
+	 * @return The Fraction in lowest terms
+	 */
+	public static Fraction valueOf(long numerator, long denominator) {
+		// Long.MIN_VALUE can not be negated, let BigInteger handle it
+		if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+			return Fraction.valueOf(BigInteger.valueOf(numerator),
+					BigInteger.valueOf(denominator));
+		}
+
+		// Fractions can not have a zero denominator
+		if (denominator == 0) {
+			throw new ArithmeticException("Denominator is zero");
+		}
+
+		// Skip the division for values that are already reduced
+		if (denominator == 1) {
+			return Fraction.canonical(numerator, 1);
+		}
+
+		// Calculate greatest common divisor
+		long divisor = gcd(numerator, denominator);
+
+		// Move the sign to the numerator
+		if (denominator < 0) {
+			divisor = -divisor;
+		}
+
+		// Divide by GCD
+		return Fraction.canonical(numerator / divisor, denominator / divisor);
+	}
+
+	// Range of integers that are shared instead of allocated
+	private static final int CACHE_LOW = -128, CACHE_HIGH = 1024;
+
+	// Shared instances of the small integers
+	private static final Fraction[] CACHE = buildCache();
+
+	/**
+	 * The fraction 0
+	 */
+	public static final Fraction ZERO = CACHE[-CACHE_LOW];
+
+	/**
+	 * The fraction 1
+	 */
+	public static final Fraction ONE = CACHE[1 - CACHE_LOW];
+
+	/**
+	 * The fraction -1
+	 */
+	public static final Fraction MINUS_ONE = CACHE[-1 - CACHE_LOW];
+
+	/**
+	 * The fraction 1/2
+	 */
+	public static final Fraction HALF = new Fraction(1, 2, null, null);
+
+	/**
+	 * The fraction -1/2
+	 */
+	public static final Fraction MINUS_HALF = new Fraction(-1, 2, null, null);
+
+	// Instance variables, the value lives in the longs unless it is too large
+	private final long numerator, denominator;
 
-		// Subtract the second from the first
-		difference.subtract(two);
+	// Only set when the value does not fit in the longs, null otherwise
+	private final BigInteger bigNumerator, bigDenominator;
 
-		// Return the difference between the two Fractions
-		return difference;
+	/**
+	 * Create a fraction from arbitrarily large parts
+	 * 
+	 * @param numerator
+	 *            The top part of the fraction
+	 * @param denominator
+	 *            The bottom part of the fraction
+	 */
+	public Fraction(BigInteger numerator, BigInteger denominator) {
+		this(Fraction.valueOf(numerator, denominator));
 	}
 
-	// Instance variables
-	private int numerator, denominator;
+	/**
+	 * Copies the value of a canonical fraction
+	 * 
+	 * @param fraction
+	 *            The fraction to copy
+	 */
+	private Fraction(Fraction fraction) {
+		this(fraction.numerator, fraction.denominator, fraction.bigNumerator,
+				fraction.bigDenominator);
+	}
 
 	/**
 	 * Creates a fraction with default denominator
@@ -153,7 +501,7 @@ public class Fraction implements Comparable<Fraction> {
 	 * @param numerator
 	 *            The top part of the fraction
 	 */
-	public Fraction(int numerator) {
+	public Fraction(long numerator) {
 		this(numerator, 1);
 	}
 
@@ -165,39 +513,41 @@ public class Fraction implements Comparable<Fraction> {
 	 * @param denominator
 	 *            The bottom part of the fraction
 	 */
-	public Fraction(int numerator, int denominator) {
-		// Store numerator and denominator
+	public Fraction(long numerator, long denominator) {
+		this(Fraction.valueOf(numerator, denominator));
+	}
+
+	/**
+	 * Stores the parts of a fraction that is already in lowest terms
+	 * 
+	 * @param numerator
+	 *            The top part of the fraction, unused if bigNumerator is set
+	 * @param denominator
+	 *            The bottom part of the fraction, unused if bigNumerator is
+	 *            set
+	 * @param bigNumerator
+	 *            The top part of a large fraction, or null
+	 * @param bigDenominator
+	 *            The bottom part of a large fraction, or null
+	 */
+	private Fraction(long numerator, long denominator,
+			BigInteger bigNumerator, BigInteger bigDenominator) {
 		this.numerator = numerator;
 		this.denominator = denominator;
+		this.bigNumerator = bigNumerator;
+		this.bigDenominator = bigDenominator;
 	}
 
 	/**
-	 * Create a Fraction using a String
+	 * Create a Fraction using a String such as "3", "-3/4" or "2.5"
 	 * 
 	 * @param fraction
 	 *            The String representing a Fraction
+	 * @throws MatrixFormatException
+	 *             If the String is not exactly one number
 	 */
 	public Fraction(String fraction) {
-		// Split the string into two parts
-		String[] split = fraction.split("/");
-
-		// Assign default values for the Fraction
-		int numerator = 1, denominator = 1;
-
-		// Find values from the string based on separated array length
-		switch (split.length) {
-		case 2:
-			denominator = Integer.parseInt(split[1]);
-		case 1:
-			numerator = Integer.parseInt(split[0]);
-			break;
-		default:
-			break;
-		}
-
-		// Set the objects values
-		this.numerator = numerator;
-		this.denominator = denominator;
+		this(Fraction.parse(fraction));
 	}
 
 	/**
@@ -205,18 +555,105 @@ public class Fraction implements Comparable<Fraction> {
 	 * 
 	 * @param fraction
 	 *            The fraction to add
+	 * @return The sum of the fractions
+	 */
+	public Fraction add(Fraction fraction) {
+		return this.addSigned(fraction, false);
+	}
+
+	/**
+	 * Add or subtract a fraction, using longs unless the result overflows
+	 * 
+	 * @param fraction
+	 *            The fraction to add or subtract
+	 * @param negate
+	 *            True to subtract the fraction, false to add it
+	 * @return The sum or difference of the fractions
 	 */
-	public void add(Fraction fraction) {
-		// Calculate numerator manually
-		int top = (this.numerator * fraction.denominator)
-				+ (fraction.numerator * this.denominator);
+	private Fraction addSigned(Fraction fraction, boolean negate) {
+		// Try the fast path when both values are small
+		if (this.bigNumerator == null && fraction.bigNumerator == null) {
+			// Negating is safe, the numerator is never Long.MIN_VALUE
+			long other = negate ? -fraction.numerator : fraction.numerator;
+
+			try {
+				// Use the lowest common denominator to keep the values small
+				long divisor = gcd(this.denominator, fraction.denominator);
+				long thisScale = fraction.denominator / divisor;
+				long otherScale = this.denominator / divisor;
+
+				// Calculate numerator and denominator, failing on overflow
+				long top = Math.addExact(
+						Math.multiplyExact(this.numerator, thisScale),
+						Math.multiplyExact(other, otherScale));
+				long bottom = Math.multiplyExact(this.denominator, thisScale);
+
+				// Return the result in lowest terms
+				return Fraction.valueOf(top, bottom);
+			} catch (ArithmeticException e) {
+				// The result is too large for a long, use the slow path
+			}
+		}
 
-		// Calculate denominator manually
-		int bottom = this.denominator * fraction.denominator;
+		// Calculate the parts with arbitrary precision
+		BigInteger other = fraction.getBigNumerator();
+		if (negate) {
+			other = other.negate();
+		}
+		BigInteger top = this.getBigNumerator()
+				.multiply(fraction.getBigDenominator())
+				.add(other.multiply(this.getBigDenominator()));
+		BigInteger bottom = this.getBigDenominator().multiply(
+				fraction.getBigDenominator());
+
+		// Return the result in lowest terms
+		return Fraction.valueOf(top, bottom);
+	}
 
-		// Set numerator and denominator
-		this.numerator = top;
-		this.denominator = bottom;
+	/**
+	 * Write the fraction to a buffer without making any Strings for values
+	 * that fit in a long
+	 * 
+	 * @param builder
+	 *            The buffer to write to
+	 * @param latex
+	 *            True to write a fraction as -\frac{n}{d}, false for -n/d
+	 */
+	void appendTo(StringBuilder builder, boolean latex) {
+		// Integers are written the same way in both forms
+		boolean whole = (this.bigNumerator != null) ? this.bigDenominator
+				.equals(BigInteger.ONE) : this.denominator == 1;
+		if (whole) {
+			if (this.bigNumerator != null) {
+				builder.append(this.bigNumerator);
+			} else {
+				builder.append(this.numerator);
+			}
+		} else if (!latex) {
+			// Write n/d
+			if (this.bigNumerator != null) {
+				builder.append(this.bigNumerator).append('/')
+						.append(this.bigDenominator);
+			} else {
+				builder.append(this.numerator).append('/')
+						.append(this.denominator);
+			}
+		} else {
+			// Write the sign outside the fraction, the numerator is never
+			// Long.MIN_VALUE so it can be negated
+			if (this.signum() < 0) {
+				builder.append('-');
+			}
+			builder.append("\\frac{");
+			if (this.bigNumerator != null) {
+				builder.append(this.bigNumerator.abs()).append("}{")
+						.append(this.bigDenominator);
+			} else {
+				builder.append(Math.abs(this.numerator)).append("}{")
+						.append(this.denominator);
+			}
+			builder.append('}');
+		}
 	}
 
 	/**
@@ -225,20 +662,29 @@ public class Fraction implements Comparable<Fraction> {
 	 */
 	@Override
 	public int compareTo(Fraction fraction) {
-		// Make a copy of this Fraction
-		Fraction difference = this.getCopy();
-
-		// Subtract the other Fraction from the copy
-		difference.subtract(fraction);
-
-		// Get the string representation of the difference
-		String differenceString = difference.toString();
+		// Fractions with different signs are ordered by their signs
+		int sign = this.signum();
+		int otherSign = fraction.signum();
+		if (sign != otherSign || sign == 0) {
+			return Integer.compare(sign, otherSign);
+		}
 
-		// Get the numerator from the string
-		String numerator = differenceString.split("/")[0];
+		// Compare the cross products, falling back to BigInteger when large
+		int magnitude;
+		if (this.bigNumerator == null && fraction.bigNumerator == null) {
+			// Compare |a/b| with |c/d| as |a|*d with |c|*b, exact in 128 bits
+			magnitude = Fraction.compareProducts(Math.abs(this.numerator),
+					fraction.denominator, Math.abs(fraction.numerator),
+					this.denominator);
+		} else {
+			magnitude = this.getBigNumerator().abs()
+					.multiply(fraction.getBigDenominator())
+					.compareTo(fraction.getBigNumerator().abs()
+							.multiply(this.getBigDenominator()));
+		}
 
-		// Return the Integer representation of the numerator
-		return Integer.parseInt(numerator);
+		// A larger magnitude means a smaller value for negative fractions
+		return (sign > 0) ? magnitude : -magnitude;
 	}
 
 	/**
@@ -246,9 +692,10 @@ public class Fraction implements Comparable<Fraction> {
 	 * 
 	 * @param number
 	 *            The number to divide by
+	 * @return The quotient
 	 */
-	public void divide(int number) {
-		this.denominator *= number;
+	public Fraction divide(long number) {
+		return this.multiplyFraction(Fraction.valueOf(1, number));
 	}
 
 	/**
@@ -256,11 +703,47 @@ public class Fraction implements Comparable<Fraction> {
 	 * 
 	 * @param fraction
 	 *            The fraction to divide by
+	 * @return The quotient
 	 */
-	public void divideFraction(Fraction fraction) {
+	public Fraction divideFraction(Fraction fraction) {
 		// Division of a fraction is the same as multiplication by the inverse
-		Fraction inverted = Fraction.getInverse(fraction);
-		this.multiplyFraction(inverted);
+		return this.multiplyFraction(Fraction.getInverse(fraction));
+	}
+
+	/**
+	 * Get the nearest double to this fraction
+	 * 
+	 * @return The value of this fraction, rounded to a double
+	 */
+	public double doubleValue() {
+		// Parts up to 2^53 are exact doubles, and one division rounds once
+		if (this.bigNumerator == null && Math.abs(this.numerator) <= 1L << 53
+				&& this.denominator <= 1L << 53) {
+			return (double) this.numerator / this.denominator;
+		}
+
+		// Divide with enough bits for the quotient to have 55 or 56
+		BigInteger numerator = this.getBigNumerator().abs();
+		BigInteger denominator = this.getBigDenominator();
+		int shift = denominator.bitLength() - numerator.bitLength() + 55;
+		BigInteger[] quotient;
+		if (shift >= 0) {
+			quotient = numerator.shiftLeft(shift).divideAndRemainder(
+					denominator);
+		} else {
+			quotient = numerator.divideAndRemainder(denominator
+					.shiftLeft(-shift));
+		}
+
+		// A remainder sets the lowest bit, so the rounding sees it
+		BigInteger bits = quotient[0];
+		if (quotient[1].signum() != 0) {
+			bits = bits.setBit(0);
+		}
+
+		// Round to a double and undo the shift
+		double value = Math.scalb(bits.doubleValue(), -shift);
+		return this.signum() < 0 ? -value : value;
 	}
 
 	@Override
@@ -270,9 +753,12 @@ public class Fraction implements Comparable<Fraction> {
 			// Cast object to Fraction
 			Fraction f = (Fraction) obj;
 
-			// Compare numerators and denominators
-			boolean sameNumerators = (this.numerator == f.numerator);
-			boolean sameDenominators = (this.denominator == f.denominator);
+			// Fractions are kept in lowest terms with a positive denominator,
+			// so equal values always have identical parts
+			boolean sameNumerators = (this.numerator == f.numerator)
+					&& Objects.equals(this.bigNumerator, f.bigNumerator);
+			boolean sameDenominators = (this.denominator == f.denominator)
+					&& Objects.equals(this.bigDenominator, f.bigDenominator);
 
 			// Return true if the numerator and denominator of the object match
 			// this, false otherwise
@@ -284,132 +770,113 @@ public class Fraction implements Comparable<Fraction> {
 	}
 
 	/**
-	 * Get the factors common to two ArrayLists
+	 * Get the denominator of the fraction, whatever its size
 	 * 
-	 * @param firstList
-	 *            The first list of factors
-	 * @param secondList
-	 *            The factors to compare to the first list
-	 * @return An ArrayList containing only factors that are within both
-	 *         parameter lists
+	 * @return The bottom part of the fraction
 	 */
-	private ArrayList<Integer> getCommonFactors(ArrayList<Integer> firstList,
-			ArrayList<Integer> secondList) {
-		// New list to hold common factors
-		ArrayList<Integer> commonFactors = new ArrayList<Integer>();
-
-		// Calculate the length of the list with the greatest size
-		int maxLength = Math.max(firstList.size(), secondList.size());
-
-		// Determine if the first list is larger than the second
-		boolean firstLarger = firstList.size() > secondList.size();
-
-		// Go through each element of the larger list
-		for (int i = 0; i < maxLength; i++) {
-			// Determine which list was larger, prevents out of bounds
-			// exceptions
-			if (firstLarger) {
-				// Check if the second list has the element from the first
-				if (secondList.contains(firstList.get(i))) {
-					// Add the element if it is in both lists
-					commonFactors.add(firstList.get(i));
-				}
-			} else {
-				// Check if the first list has the element of the second
-				if (firstList.contains(secondList.get(i))) {
-					// Add the element if it is in both lists
-					commonFactors.add(secondList.get(i));
-				}
-			}
+	public BigInteger getBigDenominator() {
+		if (this.bigDenominator != null) {
+			return this.bigDenominator;
+		} else {
+			return BigInteger.valueOf(this.denominator);
 		}
-		// Sort the list, low to high
-		commonFactors.sort(null);
+	}
 
-		// Return the common factors
-		return commonFactors;
+	/**
+	 * Get the numerator of the fraction, whatever its size
+	 * 
+	 * @return The top part of the fraction
+	 */
+	public BigInteger getBigNumerator() {
+		if (this.bigNumerator != null) {
+			return this.bigNumerator;
+		} else {
+			return BigInteger.valueOf(this.numerator);
+		}
 	}
 
 	/**
-	 * Provides a copy of the current Fraction
+	 * Provides a copy of the current Fraction. Fractions are immutable, so the
+	 * Fraction itself is returned
 	 * 
 	 * @return A Fraction with same numerator and denominator as caller
 	 */
 	public Fraction getCopy() {
-		// Return the copy
-		return new Fraction(this.numerator, this.denominator);
+		return this;
 	}
 
 	/**
-	 * Get the factors of a number
+	 * Get the denominator of the fraction, always positive
 	 * 
-	 * @param number
-	 *            The number to get the factors of
-	 * @return An ArrayList containing the number's factors
-	 */
-	private ArrayList<Integer> getFactorsOf(int number) {
-		// A new ArrayList to store the factors
-		ArrayList<Integer> factors = new ArrayList<Integer>();
-
-		// Account for negative numbers
-		number = Math.abs(number);
-
-		// Loop until greater than half the number
-		for (int i = 1; i <= number / 2; i++) {
-			// Check if i divides the number
-			if (number % i == 0) {
-				if (!factors.contains(i)) {
-					// Add i to the factors list, avoiding duplicates
-					factors.add(i);
-				}
-
-				if (!factors.contains(number / i)) {
-					// Add the quotient to the list, avoiding duplicates
-					factors.add(number / i);
-				}
-			}
+	 * @return The bottom part of the fraction
+	 * @throws ArithmeticException
+	 *             If the fraction is too large for a long, see
+	 *             {@link #isLong()}
+	 */
+	public long getDenominator() {
+		// Refuse to truncate large values
+		if (this.bigDenominator != null) {
+			throw new ArithmeticException("Denominator does not fit in a long");
 		}
-		// Sort factors
-		factors.sort(null);
-
-		// Return the list of factors
-		return factors;
+		return this.denominator;
 	}
 
 	/**
-	 * Get the greatest common multiple of a fraction
+	 * Get the numerator of the fraction, this carries the sign
 	 * 
-	 * @param fraction
-	 *            The fraction to find GCM of
-	 * @return The GCM of a fraction
+	 * @return The top part of the fraction
+	 * @throws ArithmeticException
+	 *             If the fraction is too large for a long, see
+	 *             {@link #isLong()}
 	 */
-	private int getGreatestCommonMultiple(Fraction fraction) {
-		// Get the factors of the numerator
-		ArrayList<Integer> numeratorFactors = getFactorsOf(fraction.numerator);
-
-		// Get the factors of the denominator
-		ArrayList<Integer> denominatorFactors = getFactorsOf(fraction.denominator);
-
-		// Intersect the lists of factors
-		ArrayList<Integer> commonFactors = getCommonFactors(numeratorFactors,
-				denominatorFactors);
+	public long getNumerator() {
+		// Refuse to truncate large values
+		if (this.bigNumerator != null) {
+			throw new ArithmeticException("Numerator does not fit in a long");
+		}
+		return this.numerator;
+	}
 
-		// Check that factors exist
-		if (commonFactors.size() > 0) {
-			// Return the last (greatest) element of the factors list
-			return commonFactors.get(commonFactors.size() - 1);
+	@Override
+	public int hashCode() {
+		// Fractions are kept in lowest terms, so equal values hash alike
+		if (this.bigNumerator != null) {
+			return 31 * this.bigNumerator.hashCode()
+					+ this.bigDenominator.hashCode();
 		} else {
-			return 1;
+			return 31 * Long.hashCode(this.numerator)
+					+ Long.hashCode(this.denominator);
 		}
 	}
 
+	/**
+	 * Checks if both parts of the fraction fit in a long
+	 * 
+	 * @return True if the fraction is stored in longs, false if it needed to
+	 *         be promoted to BigInteger
+	 */
+	public boolean isLong() {
+		return this.bigNumerator == null;
+	}
+
+	/**
+	 * Checks if the fraction is zero
+	 * 
+	 * @return True if the numerator is zero
+	 */
+	public boolean isZero() {
+		return this.bigNumerator == null && this.numerator == 0;
+	}
+
 	/**
 	 * Multiply the fraction by a number
 	 * 
 	 * @param number
 	 *            The number to multiply by
+	 * @return The product
 	 */
-	public void multiply(int number) {
-		this.numerator *= number;
+	public Fraction multiply(long number) {
+		return this.multiplyFraction(Fraction.valueOf(number));
 	}
 
 	/**
@@ -417,24 +884,67 @@ public class Fraction implements Comparable<Fraction> {
 	 * 
 	 * @param fraction
 	 *            The fraction to multiply by
+	 * @return The product
 	 */
-	public void multiplyFraction(Fraction fraction) {
-		// Multiply straight across
-		this.numerator *= fraction.numerator;
-		this.denominator *= fraction.denominator;
+	public Fraction multiplyFraction(Fraction fraction) {
+		// Try the fast path when both values are small
+		if (this.bigNumerator == null && fraction.bigNumerator == null) {
+			// Anything times zero is zero
+			if (this.numerator == 0 || fraction.numerator == 0) {
+				return ZERO;
+			}
+
+			try {
+				// Cancel common factors across first, the result stays reduced
+				long first = gcd(this.numerator, fraction.denominator);
+				long second = gcd(fraction.numerator, this.denominator);
+
+				// Multiply straight across, failing on overflow
+				long top = Math.multiplyExact(this.numerator / first,
+						fraction.numerator / second);
+				long bottom = Math.multiplyExact(this.denominator / second,
+						fraction.denominator / first);
+
+				// The parts share no factors, only shared values are looked up.
+				// Long.MIN_VALUE can not be negated, let BigInteger handle it
+				if (top != Long.MIN_VALUE) {
+					return Fraction.canonical(top, bottom);
+				}
+			} catch (ArithmeticException e) {
+				// The result is too large for a long, use the slow path
+			}
+		}
+
+		// Multiply straight across with arbitrary precision
+		return Fraction.valueOf(
+				this.getBigNumerator().multiply(fraction.getBigNumerator()),
+				this.getBigDenominator().multiply(fraction.getBigDenominator()));
 	}
 
 	/**
-	 * Reduce a fraction
+	 * Get the negation of the fraction
+	 * 
+	 * @return A fraction with the same magnitude and the opposite sign
 	 */
-	private void reduce() {
-		if (this.denominator != 1) {
-			// Calculate greatest common denominator
-			int gcm = getGreatestCommonMultiple(this);
+	public Fraction negate() {
+		if (this.bigNumerator != null) {
+			return Fraction.valueOf(this.bigNumerator.negate(),
+					this.bigDenominator);
+		} else {
+			return Fraction.canonical(-this.numerator, this.denominator);
+		}
+	}
 
-			// Divide by GCM
-			this.numerator /= gcm;
-			this.denominator /= gcm;
+	/**
+	 * Get the sign of the fraction
+	 * 
+	 * @return -1, 0 or 1 as the fraction is negative, zero or positive
+	 */
+	public int signum() {
+		if (this.bigNumerator != null) {
+			return this.bigNumerator.signum();
+		} else {
+			return Long.signum(this.numerator);
 		}
 	}
 
@@ -443,40 +953,20 @@ public class Fraction implements Comparable<Fraction> {
 	 * 
 	 * @param fraction
 	 *            The fraction to subtract by
+	 * @return The difference of the fractions
 	 */
-	public void subtract(Fraction fraction) {
-		// Calculate numerator
-		int top = (this.numerator * fraction.denominator)
-				- (fraction.numerator * this.denominator);
-
-		// Calculate denominator
-		int bottom = this.denominator * fraction.denominator;
-
-		// Set numerator and denominator
-		this.numerator = top;
-		this.denominator = bottom;
+	public Fraction subtract(Fraction fraction) {
+		return this.addSigned(fraction, true);
 	}
 
 	/**
-	 * Get a string representation of the fraction, automatically reduced
+	 * Get a string representation of the fraction, always in lowest terms
 	 */
 	@Override
 	public String toString() {
-		// Reduce the fraction
-		this.reduce();
-
-		if (this.denominator < 0) {
-			this.denominator *= -1;
-			this.numerator *= -1;
-		}
-
-		// Check if the denominator needs to be displayed
-		if (this.denominator == 1 || this.numerator == 0) {
-			return String.valueOf(this.numerator);
-		} else if (this.denominator == 0) {
-			return String.valueOf(this.denominator);
-		} else {
-			return this.numerator + "/" + this.denominator;
-		}
+		// Write into a buffer sized for a small fraction
+		StringBuilder builder = new StringBuilder(16);
+		this.appendTo(builder, false);
+		return builder.toString();
 	}
 }
@@ -0,0 +1,178 @@
+package solver;
+
+import java.math.BigInteger;
+
+/**
+ * A running sum of fractions that can be reused. Sums of products are kept
+ * in longs without creating a Fraction for each term, and are only reduced
+ * when they would overflow or are read. They move to BigIntegers once a value
+ * overflows even after reducing. Not safe to share between threads
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+final class FractionAccumulator {
+
+	// The sum while it fits in longs, denominator always positive
+	private long numerator, denominator;
+
+	// The sum once it has overflowed, null until then
+	private BigInteger bigNumerator, bigDenominator;
+
+	/**
+	 * Create an accumulator holding zero
+	 */
+	FractionAccumulator() {
+		this.reset();
+	}
+
+	/**
+	 * Add the product of two fractions to the sum
+	 * 
+	 * @param one
+	 *            The first factor
+	 * @param two
+	 *            The second factor
+	 */
+	void addProduct(Fraction one, Fraction two) {
+		// A zero product changes nothing
+		if (one.isZero() || two.isZero()) {
+			return;
+		}
+
+		// Try the fast paths when everything is small
+		if (this.bigNumerator == null && one.isLong() && two.isLong()) {
+			long oneNumerator = one.getNumerator();
+			long twoNumerator = two.getNumerator();
+			long oneDenominator = one.getDenominator();
+			long twoDenominator = two.getDenominator();
+
+			try {
+				// Integers only need a multiply and an add
+				if (oneDenominator == 1 && twoDenominator == 1
+						&& this.denominator == 1) {
+					this.numerator = Math.addExact(this.numerator,
+							Math.multiplyExact(oneNumerator, twoNumerator));
+					return;
+				}
+
+				// Add the product as it is, the sum is only reduced at the end
+				this.add(Math.multiplyExact(oneNumerator, twoNumerator),
+						Math.multiplyExact(oneDenominator, twoDenominator));
+				return;
+			} catch (ArithmeticException e) {
+				// Reduce everything and try again before giving up on longs
+			}
+
+			try {
+				// Cancel across the product and reduce the sum
+				long first = Fraction.gcd(oneNumerator, twoDenominator);
+				long second = Fraction.gcd(twoNumerator, oneDenominator);
+				long top = Math.multiplyExact(oneNumerator / first,
+						twoNumerator / second);
+				long bottom = Math.multiplyExact(oneDenominator / second,
+						twoDenominator / first);
+				this.reduce();
+
+				// Add over the lowest common denominator
+				this.add(top, bottom);
+				return;
+			} catch (ArithmeticException e) {
+				// The sum is too large for longs, move to BigIntegers
+				this.promote();
+			}
+		}
+
+		// Add with arbitrary precision
+		if (this.bigNumerator == null) {
+			this.promote();
+		}
+		BigInteger top = one.getBigNumerator().multiply(two.getBigNumerator());
+		BigInteger bottom = one.getBigDenominator().multiply(
+				two.getBigDenominator());
+		this.bigNumerator = this.bigNumerator.multiply(bottom).add(
+				top.multiply(this.bigDenominator));
+		this.bigDenominator = this.bigDenominator.multiply(bottom);
+	}
+
+	/**
+	 * Add a fraction to the sum on longs, over the lowest common denominator
+	 * 
+	 * @param top
+	 *            The numerator to add
+	 * @param bottom
+	 *            The positive denominator to add
+	 * @throws ArithmeticException
+	 *             If a value overflows, the sum is left unchanged
+	 */
+	private void add(long top, long bottom) {
+		// Most terms share a denominator that divides the running one
+		long sum, common;
+		if (this.denominator % bottom == 0) {
+			sum = Math.addExact(this.numerator,
+					Math.multiplyExact(top, this.denominator / bottom));
+			common = this.denominator;
+		} else {
+			// Scale both to the lowest common denominator
+			long divisor = Fraction.gcd(this.denominator, bottom);
+			long thisScale = bottom / divisor;
+			sum = Math.addExact(
+					Math.multiplyExact(this.numerator, thisScale),
+					Math.multiplyExact(top, this.denominator / divisor));
+			common = Math.multiplyExact(this.denominator, thisScale);
+		}
+
+		// Store the new sum
+		this.numerator = sum;
+		this.denominator = common;
+	}
+
+	/**
+	 * Get the sum
+	 * 
+	 * @return The sum as a Fraction in lowest terms
+	 */
+	Fraction getSum() {
+		if (this.bigNumerator == null) {
+			return Fraction.valueOf(this.numerator, this.denominator);
+		} else {
+			return Fraction.valueOf(this.bigNumerator, this.bigDenominator);
+		}
+	}
+
+	/**
+	 * Move the sum to BigIntegers
+	 */
+	private void promote() {
+		this.bigNumerator = BigInteger.valueOf(this.numerator);
+		this.bigDenominator = BigInteger.valueOf(this.denominator);
+	}
+
+	/**
+	 * Put the sum on longs in lowest terms
+	 * 
+	 * @throws ArithmeticException
+	 *             If the numerator is Long.MIN_VALUE, which can not be reduced
+	 */
+	private void reduce() {
+		// The greatest common divisor can not take Long.MIN_VALUE
+		if (this.numerator == Long.MIN_VALUE) {
+			throw new ArithmeticException("Numerator overflow");
+		}
+
+		// Divide both parts by their greatest common divisor
+		long divisor = Fraction.gcd(this.numerator, this.denominator);
+		this.numerator /= divisor;
+		this.denominator /= divisor;
+	}
+
+	/**
+	 * Set the sum back to zero
+	 */
+	void reset() {
+		this.numerator = 0;
+		this.denominator = 1;
+		this.bigNumerator = null;
+		this.bigDenominator = null;
+	}
+}
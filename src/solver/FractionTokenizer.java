@@ -0,0 +1,592 @@
+package solver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads whitespace separated numbers such as "3", "-3/4", "2.5" or "1e-3"
+ * from a Reader, a ByteBuffer of ASCII text or a CharSequence. Characters are
+ * copied from the source into one buffer, each token into another, and
+ * numbers of up to 18 digits are parsed straight into a long numerator and
+ * denominator, so no Strings are made unless a number is too large for a
+ * long or the input is malformed. Decimals are read exactly, 0.1 is 1/10.
+ * Errors give the line and column of the token that could not be read
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class FractionTokenizer {
+
+	// How many characters to take from the source at a time
+	private static final int BUFFER_SIZE = 1 << 13;
+
+	// The most digits a long can hold whatever they are
+	private static final int LONG_DIGITS = 18;
+
+	// The largest power of ten a decimal may be scaled by
+	private static final int MAXIMUM_SCALE = 1 << 12;
+
+	// Powers of ten that fit in a long
+	private static final long[] POWERS_OF_TEN = new long[LONG_DIGITS + 1];
+
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i <= LONG_DIGITS; i++) {
+			POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+		}
+	}
+
+	// The characters taken from the source but not read yet
+	private final char[] buffer;
+	private int limit, position;
+
+	// The source, only one is set
+	private final ByteBuffer bytes;
+	private final Reader reader;
+	private final CharSequence text;
+
+	// How much of the text has been taken
+	private int offset;
+
+	// The characters of the current token
+	private char[] token;
+	private int length;
+
+	// The character that starts a comment line, 0 for none
+	private char comment;
+
+	// Where the next character is, and where the current token started
+	private int column, line, tokenColumn, tokenLine;
+
+	// True if nothing but spaces have been read on the current line
+	private boolean lineStart;
+
+	/**
+	 * Read ASCII text from a buffer, from its position to its limit
+	 * 
+	 * @param bytes
+	 *            The text, which is read through
+	 */
+	public FractionTokenizer(ByteBuffer bytes) {
+		this(null, bytes, null, bytes.remaining());
+	}
+
+	/**
+	 * Read a sequence of characters
+	 * 
+	 * @param text
+	 *            The text
+	 */
+	public FractionTokenizer(CharSequence text) {
+		this(null, null, text, text.length());
+	}
+
+	/**
+	 * Read from a Reader, which is not closed
+	 * 
+	 * @param reader
+	 *            The text
+	 */
+	public FractionTokenizer(Reader reader) {
+		this(reader, null, null, BUFFER_SIZE);
+	}
+
+	/**
+	 * Set up a source
+	 * 
+	 * @param reader
+	 *            A Reader to read from, or null
+	 * @param bytes
+	 *            A buffer to read from, or null
+	 * @param text
+	 *            Characters to read from, or null
+	 * @param size
+	 *            The most characters the source can give, to size the buffer
+	 */
+	private FractionTokenizer(Reader reader, ByteBuffer bytes,
+			CharSequence text, int size) {
+		this.reader = reader;
+		this.bytes = bytes;
+		this.text = text;
+		this.buffer = new char[Math.max(1, Math.min(size, BUFFER_SIZE))];
+		this.token = new char[32];
+		this.line = 1;
+		this.lineStart = true;
+	}
+
+	/**
+	 * Check part of the token is a whole number, an optional sign and at
+	 * least one digit
+	 * 
+	 * @param start
+	 *            The first character
+	 * @param end
+	 *            After the last character
+	 * @return Where the digits start
+	 */
+	private int check(int start, int end) {
+		boolean signed = start < end
+				&& (this.token[start] == '-' || this.token[start] == '+');
+		int first = signed ? start + 1 : start;
+		boolean valid = first < end;
+		for (int k = first; k < end; k++) {
+			valid &= this.token[k] >= '0' && this.token[k] <= '9';
+		}
+		if (!valid) {
+			throw this.error("Expected a number but found " + this.getToken());
+		}
+		return first;
+	}
+
+	/**
+	 * Create an error about the current token
+	 * 
+	 * @param message
+	 *            What went wrong
+	 * @return The exception to throw
+	 */
+	MatrixFormatException error(String message) {
+		return new MatrixFormatException(message, this.tokenLine,
+				this.tokenColumn);
+	}
+
+	/**
+	 * Take more characters from the source
+	 * 
+	 * @return False if the source has none left
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private boolean fill() throws IOException {
+		int count;
+		if (this.reader != null) {
+			count = this.reader.read(this.buffer, 0, this.buffer.length);
+		} else if (this.bytes != null) {
+			count = Math.min(this.bytes.remaining(), this.buffer.length);
+			for (int i = 0; i < count; i++) {
+				this.buffer[i] = (char) (this.bytes.get() & 0xFF);
+			}
+		} else {
+			count = Math.min(this.text.length() - this.offset,
+					this.buffer.length);
+			if (this.text instanceof String) {
+				((String) this.text).getChars(this.offset, this.offset + count,
+						this.buffer, 0);
+			} else {
+				for (int i = 0; i < count; i++) {
+					this.buffer[i] = this.text.charAt(this.offset + i);
+				}
+			}
+			this.offset += count;
+		}
+		this.position = 0;
+		this.limit = Math.max(count, 0);
+		return this.limit > 0;
+	}
+
+	/**
+	 * Get the column the current token starts at
+	 * 
+	 * @return The column, counting characters from one
+	 */
+	public int getColumn() {
+		return this.tokenColumn;
+	}
+
+	/**
+	 * Read the current token as a number
+	 * 
+	 * @return The number as a fraction in lowest terms
+	 * @throws MatrixFormatException
+	 *             If the token is not an integer, fraction or decimal, or has
+	 *             a zero denominator
+	 */
+	public Fraction getFraction() {
+		// Find the slash of a fraction
+		int slash = 0;
+		while (slash < this.length && this.token[slash] != '/') {
+			slash++;
+		}
+
+		try {
+			// Without a slash the token is an integer or a decimal
+			if (slash == this.length) {
+				return this.parseDecimal();
+			}
+
+			// Parts of up to 18 characters always fit in a long
+			if (slash <= LONG_DIGITS && this.length - slash - 1 <= LONG_DIGITS) {
+				return Fraction.valueOf(this.parseLong(0, slash),
+						this.parseLong(slash + 1, this.length));
+			}
+			this.check(0, slash);
+			this.check(slash + 1, this.length);
+			return Fraction.valueOf(
+					new BigInteger(new String(this.token, 0, slash)),
+					new BigInteger(new String(this.token, slash + 1,
+							this.length - slash - 1)));
+		} catch (ArithmeticException e) {
+			throw this.error(e.getMessage() + " in " + this.getToken());
+		}
+	}
+
+	/**
+	 * Read the current token as a whole number that fits in an int
+	 * 
+	 * @return The number
+	 * @throws MatrixFormatException
+	 *             If the token is not a whole number or is too large
+	 */
+	public int getInt() {
+		long value = this.getLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw this.error(this.getToken() + " is too large");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Get the line the current token is on
+	 * 
+	 * @return The line, from one
+	 */
+	public int getLine() {
+		return this.tokenLine;
+	}
+
+	/**
+	 * Read the current token as a whole number that fits in a long
+	 * 
+	 * @return The number
+	 * @throws MatrixFormatException
+	 *             If the token is not a whole number or is too large
+	 */
+	public long getLong() {
+		// Add each digit, failing on overflow
+		long value = 0;
+		try {
+			for (int k = this.check(0, this.length); k < this.length; k++) {
+				value = Math.addExact(Math.multiplyExact(value, 10),
+						this.token[k] - '0');
+			}
+		} catch (ArithmeticException e) {
+			throw this.error(this.getToken() + " is too large");
+		}
+		return (this.token[0] == '-') ? -value : value;
+	}
+
+	/**
+	 * Get the current token as a String. Only this method and errors create
+	 * Strings
+	 * 
+	 * @return The token
+	 */
+	public String getToken() {
+		return new String(this.token, 0, this.length);
+	}
+
+	/**
+	 * Check if the current token is a word, ignoring case
+	 * 
+	 * @param word
+	 *            The word
+	 * @return True if the token is the word
+	 */
+	public boolean isToken(String word) {
+		if (word.length() != this.length) {
+			return false;
+		}
+		for (int k = 0; k < this.length; k++) {
+			if (Character.toLowerCase(this.token[k]) != Character
+					.toLowerCase(word.charAt(k))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Move to the next token, on this line or any after it. Blank lines and
+	 * comment lines are skipped
+	 * 
+	 * @return False if the input ended first
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			// Look past spaces and comments at the next character
+			this.skipSpaces();
+			int c = this.peek();
+			if (c < 0) {
+				return false;
+			}
+
+			// Step over line breaks
+			if (c != '\n') {
+				this.readToken();
+				return true;
+			}
+			this.skip();
+		}
+	}
+
+	/**
+	 * Move to the next token on the current line
+	 * 
+	 * @return False if the line or the input ended first, the line break is
+	 *         not read
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	public boolean nextInLine() throws IOException {
+		this.skipSpaces();
+		int c = this.peek();
+		if (c < 0 || c == '\n') {
+			return false;
+		}
+		this.readToken();
+		return true;
+	}
+
+	/**
+	 * Skip the rest of the current line
+	 * 
+	 * @return False if the input ended first
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	public boolean nextLine() throws IOException {
+		int c;
+		while ((c = this.peek()) >= 0) {
+			this.skip();
+			if (c == '\n') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Read the token as an exact decimal or integer, such as -2.5, 1e-3 or 7
+	 * 
+	 * @return The number as a fraction
+	 */
+	private Fraction parseDecimal() {
+		// Read up to 18 significant digits, counting those after the point
+		long mantissa = 0;
+		int digits = 0, scale = 0, k = 0;
+		boolean negative = this.token[0] == '-', point = false, seen = false;
+		if (negative || this.token[0] == '+') {
+			k++;
+		}
+		for (; k < this.length; k++) {
+			char c = this.token[k];
+			if (c == '.' && !point) {
+				point = true;
+			} else if (c >= '0' && c <= '9' && digits < LONG_DIGITS) {
+				mantissa = 10 * mantissa + (c - '0');
+				digits += (mantissa == 0) ? 0 : 1;
+				scale += point ? 1 : 0;
+				seen = true;
+			} else {
+				break;
+			}
+		}
+
+		// Read a short exponent
+		if (seen && k < this.length
+				&& (this.token[k] == 'e' || this.token[k] == 'E')
+				&& this.length - k - 1 <= 4) {
+			scale -= this.parseLong(k + 1, this.length);
+			k = this.length;
+		}
+
+		// Divide or multiply by a power of ten that fits in a long
+		if (seen && k == this.length) {
+			mantissa = negative ? -mantissa : mantissa;
+			if (scale >= 0 && scale <= LONG_DIGITS) {
+				return Fraction.valueOf(mantissa, POWERS_OF_TEN[scale]);
+			}
+			if (scale < 0 && scale >= -LONG_DIGITS
+					&& Math.abs(mantissa) <= Long.MAX_VALUE
+							/ POWERS_OF_TEN[-scale]) {
+				return Fraction.valueOf(mantissa * POWERS_OF_TEN[-scale]);
+			}
+		}
+
+		// Anything else is read as a BigDecimal
+		try {
+			BigDecimal decimal = new BigDecimal(this.token, 0, this.length);
+			scale = decimal.scale();
+			if (Math.abs((long) scale) > MAXIMUM_SCALE) {
+				throw this.error("Exponent is too large in " + this.getToken());
+			}
+
+			// A negative scale multiplies by a power of ten
+			if (scale <= 0) {
+				return Fraction.valueOf(decimal.unscaledValue().multiply(
+						BigInteger.TEN.pow(-scale)), BigInteger.ONE);
+			}
+			return Fraction.valueOf(decimal.unscaledValue(),
+					BigInteger.TEN.pow(scale));
+		} catch (NumberFormatException e) {
+			throw this.error("Expected a number but found " + this.getToken());
+		}
+	}
+
+	/**
+	 * Read part of the token as a whole number of at most 18 characters,
+	 * which always fits in a long
+	 * 
+	 * @param start
+	 *            The first character
+	 * @param end
+	 *            After the last character
+	 * @return The number
+	 */
+	private long parseLong(int start, int end) {
+		// Read the digits after the sign
+		long value = 0;
+		for (int k = this.check(start, end); k < end; k++) {
+			value = 10 * value + (this.token[k] - '0');
+		}
+		return (this.token[start] == '-') ? -value : value;
+	}
+
+	/**
+	 * Look at the next character without reading it
+	 * 
+	 * @return The character, or -1 at the end of the input
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private int peek() throws IOException {
+		if (this.position == this.limit && !this.fill()) {
+			return -1;
+		}
+		return this.buffer[this.position];
+	}
+
+	/**
+	 * Read a row of numbers from the next line that is not blank or a
+	 * comment, which must hold exactly as many numbers as the row
+	 * 
+	 * @param row
+	 *            The array to fill
+	 * @return False if the input ended before the row
+	 * @throws IOException
+	 *             If reading fails
+	 * @throws MatrixFormatException
+	 *             If the line has too few or too many numbers, or one of
+	 *             them is not valid
+	 */
+	public boolean readRow(Fraction[] row) throws IOException {
+		// Find the first number
+		if (!this.next()) {
+			return false;
+		}
+
+		// Read the rest of the line
+		int count = 0;
+		do {
+			if (count == row.length) {
+				throw this.error("Expected " + row.length + " element"
+						+ ((row.length == 1) ? "" : "s") + " but found more");
+			}
+			row[count++] = this.getFraction();
+		} while (this.nextInLine());
+
+		// The line may not end early
+		if (count < row.length) {
+			throw new MatrixFormatException("Expected " + row.length
+					+ " elements but found " + count, this.line,
+					this.column + 1);
+		}
+		this.nextLine();
+		return true;
+	}
+
+	/**
+	 * Copy the characters up to the next space into the token
+	 * 
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private void readToken() throws IOException {
+		this.tokenLine = this.line;
+		this.tokenColumn = this.column + 1;
+		this.lineStart = false;
+		this.length = 0;
+		for (int c = this.peek(); c >= 0 && !Character.isWhitespace(c); c = this
+				.peek()) {
+			if (this.length == this.token.length) {
+				this.token = Arrays.copyOf(this.token,
+						2 * this.length);
+			}
+			this.token[this.length++] = (char) c;
+			this.skip();
+		}
+	}
+
+	/**
+	 * Set the character that starts a comment line. A line whose first
+	 * character that is not a space is this one is skipped like a blank line
+	 * 
+	 * @param comment
+	 *            The character, or 0 for no comments
+	 */
+	public void setComment(char comment) {
+		this.comment = comment;
+	}
+
+	/**
+	 * Set the number of the current line, for text read from the middle of
+	 * something larger. Later lines count on from it
+	 * 
+	 * @param line
+	 *            The line number, from one
+	 */
+	public void setLine(int line) {
+		this.line = line;
+	}
+
+	/**
+	 * Read the next character, which has been peeked at
+	 */
+	private void skip() {
+		if (this.buffer[this.position++] == '\n') {
+			this.line++;
+			this.column = 0;
+			this.lineStart = true;
+		} else {
+			this.column++;
+		}
+	}
+
+	/**
+	 * Step over spaces other than line breaks, and the rest of a comment line
+	 * 
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private void skipSpaces() throws IOException {
+		int c = this.peek();
+		while (c >= 0 && c != '\n' && Character.isWhitespace(c)) {
+			this.skip();
+			c = this.peek();
+		}
+
+		// A comment runs to the end of its line
+		if (c == this.comment && this.comment != 0 && this.lineStart) {
+			while (c >= 0 && c != '\n') {
+				this.skip();
+				c = this.peek();
+			}
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package solver;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Finds inverses and adjugates with exact Gauss-Jordan elimination, in O(n^3)
+ * operations instead of one determinant per cofactor
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+final class GaussJordan {
+
+	/**
+	 * Get the adjugate (adjoint) of a square matrix, the transpose of its
+	 * cofactor matrix
+	 * 
+	 * @param matrix
+	 *            The matrix, which is not changed
+	 * @return The adjugate of the matrix
+	 */
+	static Matrix adjugate(Matrix matrix) {
+		// Only square matrices have an adjugate
+		if (!matrix.isSquare()) {
+			throw new IllegalArgumentException("Matrix is not square");
+		}
+
+		// When the matrix is invertible, adj(A) = det(A) * A^-1
+		Fraction determinant = matrix.getDeterminant(DeterminantMethod.BAREISS);
+		if (!determinant.isZero()) {
+			return GaussJordan.inverse(matrix).multiply(determinant);
+		}
+
+		// A singular matrix, start from a zero adjugate
+		int size = matrix.getRows();
+		Matrix adjugate = new Matrix(size, size, matrix.getStorageType());
+
+		// The cofactor of a 1x1 matrix is the empty determinant, 1
+		if (size == 1) {
+			adjugate.setElement(0, 0, Fraction.ONE);
+			return adjugate;
+		}
+
+		// With rank n-1 the adjugate is c * x * y^T, where Ax = 0 and y^TA = 0,
+		// with any lower rank every cofactor is zero
+		Fraction[] right = GaussJordan.nullVector(
+				matrix.getCopy(StorageType.OBJECT).getMatrix(), size);
+		if (right == null) {
+			return adjugate;
+		}
+		Fraction[] left = GaussJordan.nullVector(Matrix.transpose(matrix)
+				.getMatrix(), size);
+
+		// Find an element of x and y that are both non-zero
+		int p = 0, q = 0;
+		while (right[p].isZero()) {
+			p++;
+		}
+		while (left[q].isZero()) {
+			q++;
+		}
+
+		// Adjugate element (p, q) is the cofactor of (q, p), which sets c
+		Fraction cofactor = Matrix.getMinorAt(q, p, matrix).getDeterminant(
+				DeterminantMethod.BAREISS);
+		if ((p + q) % 2 != 0) {
+			cofactor = cofactor.negate();
+		}
+		Fraction scale = cofactor.divideFraction(right[p]
+				.multiplyFraction(left[q]));
+
+		// Fill the adjugate from the outer product
+		for (int i = 0; i < size; i++) {
+			Fraction rowScale = scale.multiplyFraction(right[i]);
+			for (int j = 0; j < size; j++) {
+				adjugate.setElement(i, j, rowScale.multiplyFraction(left[j]));
+			}
+		}
+
+		// Return the adjugate
+		return adjugate;
+	}
+
+	/**
+	 * Get the inverse of a square matrix by reducing [A | I] to [I | A^-1].
+	 * Each row is scaled to integers and the reduction is fraction-free, so
+	 * the block ends as [dI | d * A^-1] with every division exact, and only
+	 * the final elements are reduced
+	 * 
+	 * @param matrix
+	 *            The matrix, which is not changed
+	 * @return The inverse of the matrix
+	 * @throws ArithmeticException
+	 *             If the matrix is singular
+	 */
+	static Matrix inverse(Matrix matrix) {
+		// Only square matrices have an inverse
+		if (!matrix.isSquare()) {
+			throw new IllegalArgumentException("Matrix is not square");
+		}
+
+		// Build the augmented block [DA | I], D scales each row to integers
+		int size = matrix.getRows();
+		BigInteger[][] rows = new BigInteger[size][2 * size];
+		BigInteger[] scales = new BigInteger[size];
+		for (int i = 0; i < size; i++) {
+			BigInteger[] scaled = new BigInteger[size];
+			scales[i] = Bareiss.scaleRow(matrix, i, scaled);
+			System.arraycopy(scaled, 0, rows[i], 0, size);
+			Arrays.fill(rows[i], size, 2 * size, BigInteger.ZERO);
+			rows[i][size + i] = BigInteger.ONE;
+		}
+
+		// Eliminate above and below each pivot
+		BigInteger previous = BigInteger.ONE;
+		for (int k = 0; k < size; k++) {
+			// Find a row with a non-zero pivot, swapping it into place
+			int pivot = k;
+			while (pivot < size && rows[pivot][k].signum() == 0) {
+				pivot++;
+			}
+
+			// A column without a pivot makes the matrix singular
+			if (pivot == size) {
+				throw new ArithmeticException("Matrix is singular");
+			}
+			BigInteger[] pivotRow = rows[pivot];
+			rows[pivot] = rows[k];
+			rows[k] = pivotRow;
+
+			// Update every other row, each element becomes a minor
+			BigInteger pivotValue = pivotRow[k];
+			for (int i = 0; i < size; i++) {
+				if (i == k) {
+					continue;
+				}
+				BigInteger[] row = rows[i];
+				BigInteger lead = row[k];
+
+				// Earlier pivots only need scaling, their column is zero here
+				if (i < k) {
+					row[i] = row[i].multiply(pivotValue).divide(previous);
+				}
+
+				// Update the rest of the row
+				for (int j = k + 1; j < row.length; j++) {
+					row[j] = row[j].multiply(pivotValue)
+							.subtract(lead.multiply(pivotRow[j]))
+							.divide(previous);
+				}
+				row[k] = BigInteger.ZERO;
+			}
+			previous = pivotValue;
+		}
+
+		// The right block is d * (DA)^-1, and A^-1 = (DA)^-1 * D
+		Matrix inverse = new Matrix(size, size, matrix.getStorageType());
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				inverse.setElement(i, j, Fraction.valueOf(
+						rows[i][size + j].multiply(scales[j]), previous));
+			}
+		}
+
+		// Return the inverse
+		return inverse;
+	}
+
+	/**
+	 * Find the vector spanning the null space of a matrix whose null space has
+	 * exactly one dimension
+	 * 
+	 * @param rows
+	 *            The rows of the matrix, which are overwritten
+	 * @param columns
+	 *            The number of columns in the matrix
+	 * @return A non-zero x with Ax = 0, or null if the null space does not
+	 *         have exactly one dimension
+	 */
+	private static Fraction[] nullVector(Fraction[][] rows, int columns) {
+		// Reduce the matrix, the null space needs exactly one free column
+		int[] pivotColumns = new int[columns];
+		int rank = GaussJordan.reduce(rows, columns, pivotColumns);
+		if (rank != columns - 1) {
+			return null;
+		}
+
+		// Find the free column, the first one without a pivot
+		int free = 0;
+		while (free < rank && pivotColumns[free] == free) {
+			free++;
+		}
+
+		// Set the free variable to one and solve for the pivot variables
+		Fraction[] vector = new Fraction[columns];
+		vector[free] = Fraction.ONE;
+		for (int i = 0; i < rank; i++) {
+			vector[pivotColumns[i]] = rows[i][free].negate();
+		}
+
+		// Return the vector
+		return vector;
+	}
+
+	/**
+	 * Reduce rows to reduced row echelon form in place, choosing pivots only
+	 * from the leading columns
+	 * 
+	 * @param rows
+	 *            The rows to reduce, which may be wider than the pivot columns
+	 * @param columns
+	 *            The number of leading columns to find pivots in
+	 * @param pivotColumns
+	 *            An array to fill with the column of each pivot, in order
+	 * @return The number of pivots found, the rank of the leading columns
+	 */
+	static int reduce(Fraction[][] rows, int columns, int[] pivotColumns) {
+		// Track the next row that needs a pivot
+		int rank = 0;
+
+		// Look for a pivot in each column
+		for (int c = 0; c < columns && rank < rows.length; c++) {
+			// Find a row with a non-zero element in this column
+			int pivot = rank;
+			while (pivot < rows.length && rows[pivot][c].isZero()) {
+				pivot++;
+			}
+
+			// Move on when the column has no pivot
+			if (pivot == rows.length) {
+				continue;
+			}
+
+			// Swap the pivot row into place
+			Fraction[] pivotRow = rows[pivot];
+			rows[pivot] = rows[rank];
+			rows[rank] = pivotRow;
+
+			// Scale the pivot row so the pivot is one
+			Fraction divisor = pivotRow[c];
+			for (int j = c; j < pivotRow.length; j++) {
+				if (!pivotRow[j].isZero()) {
+					pivotRow[j] = pivotRow[j].divideFraction(divisor);
+				}
+			}
+
+			// Remove the column from every other row
+			for (int i = 0; i < rows.length; i++) {
+				Fraction[] row = rows[i];
+				if (i == rank || row[c].isZero()) {
+					continue;
+				}
+				Fraction multiplier = row[c];
+				for (int j = c; j < row.length; j++) {
+					if (!pivotRow[j].isZero()) {
+						row[j] = row[j].subtract(multiplier
+								.multiplyFraction(pivotRow[j]));
+					}
+				}
+			}
+
+			// Record the pivot
+			pivotColumns[rank] = c;
+			rank++;
+		}
+
+		// Return the number of pivots
+		return rank;
+	}
+
+	/**
+	 * Only static methods, not meant to be created
+	 */
+	private GaussJordan() {
+	}
+}
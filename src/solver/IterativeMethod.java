@@ -0,0 +1,33 @@
+package solver;
+
+/**
+ * The algorithms an IterativeSolver can use to approach the solution of a
+ * system of equations
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum IterativeMethod {
+
+	/**
+	 * Each unknown is solved for from its own equation using the last
+	 * estimate of every other unknown. Converges when the matrix is strictly
+	 * diagonally dominant, and each sweep can run in parallel
+	 */
+	JACOBI,
+
+	/**
+	 * Like Jacobi, but each unknown uses the new estimates of the unknowns
+	 * before it. Usually converges in about half as many sweeps, which run in
+	 * order on one thread
+	 */
+	GAUSS_SEIDEL,
+
+	/**
+	 * Minimizes the error over a growing set of search directions, in at most
+	 * n steps with exact arithmetic. Only converges when the matrix is
+	 * symmetric and positive definite, and is the fastest of the three when
+	 * it does
+	 */
+	CONJUGATE_GRADIENT
+}
@@ -0,0 +1,93 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of running an IterativeSolver, the last estimate of the
+ * solution and how close it came
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class IterativeResult {
+
+	// The last estimate of the solution
+	private final double[] solution;
+
+	// The norm of b - Ax over the norm of b, for the last estimate
+	private final double residual;
+
+	// True if the residual reached the tolerance
+	private final boolean converged;
+
+	private final int iterations;
+
+	/**
+	 * Create a result
+	 * 
+	 * @param solution
+	 *            The last estimate, which is not copied
+	 * @param iterations
+	 *            The number of iterations that were run
+	 * @param residual
+	 *            The relative residual of the estimate
+	 * @param converged
+	 *            True if the residual reached the tolerance
+	 */
+	IterativeResult(double[] solution, int iterations, double residual,
+			boolean converged) {
+		// Store parameters
+		this.solution = solution;
+		this.iterations = iterations;
+		this.residual = residual;
+		this.converged = converged;
+	}
+
+	/**
+	 * Get the number of iterations that were run
+	 * 
+	 * @return The iterations, 0 if the starting estimate was already close
+	 *         enough
+	 */
+	public int getIterations() {
+		return this.iterations;
+	}
+
+	/**
+	 * Get how far the estimate is from solving the system
+	 * 
+	 * @return ||b - Ax|| / ||b||, or ||b - Ax|| when b is zero
+	 */
+	public double getResidual() {
+		return this.residual;
+	}
+
+	/**
+	 * Get the last estimate of the solution, whether or not it converged
+	 * 
+	 * @return A copy of the estimate, x
+	 */
+	public double[] getSolution() {
+		return this.solution.clone();
+	}
+
+	/**
+	 * Checks if the solver reached its tolerance
+	 * 
+	 * @return True if the residual is within the tolerance, false if the
+	 *         solver ran out of iterations first
+	 */
+	public boolean isConverged() {
+		return this.converged;
+	}
+
+	/**
+	 * Gets the outcome and the estimate of the solution
+	 */
+	@Override
+	public String toString() {
+		return (this.converged ? "Converged" : "Did not converge") + " after "
+				+ this.iterations + " iterations, residual " + this.residual
+				+ "\n" + Arrays.toString(this.solution);
+	}
+}
@@ -0,0 +1,545 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Solves Ax = b approximately by refining an estimate of x until the residual
+ * b - Ax is small enough. Each iteration only multiplies by the non-zero
+ * elements of A, so large sparse systems that are far too slow to factor
+ * exactly can be solved in seconds. Works in doubles, so the answer is only
+ * as close as the tolerance asks for. A solver only holds its settings and
+ * can be shared between threads once they are set
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class IterativeSolver {
+
+	/**
+	 * The non-zero elements of a square matrix of doubles, row by row, with
+	 * the diagonal kept apart for the methods that divide by it
+	 */
+	private static final class Rows {
+
+		// Where each row starts in the elements, with the end at the end
+		private final int[] pointers;
+
+		// The column of each element
+		private final int[] columns;
+
+		// The elements, and the diagonal of the matrix
+		private final double[] values, diagonal;
+
+		private final int size;
+
+		/**
+		 * Copy the non-zero elements of a dense matrix
+		 * 
+		 * @param matrix
+		 *            The square matrix
+		 */
+		Rows(DoubleMatrix matrix) {
+			// Count the non-zero elements
+			this.size = matrix.getRows();
+			double[] data = matrix.getData();
+			int count = 0;
+			for (double value : data) {
+				if (value != 0) {
+					count++;
+				}
+			}
+
+			// Copy them row by row
+			this.pointers = new int[this.size + 1];
+			this.columns = new int[count];
+			this.values = new double[count];
+			this.diagonal = new double[this.size];
+			int position = 0;
+			for (int i = 0; i < this.size; i++) {
+				for (int j = 0; j < this.size; j++) {
+					double value = data[i * this.size + j];
+					if (value != 0) {
+						this.columns[position] = j;
+						this.values[position] = value;
+						position++;
+					}
+				}
+				this.pointers[i + 1] = position;
+				this.diagonal[i] = data[i * this.size + i];
+			}
+		}
+
+		/**
+		 * Copy a sparse matrix to doubles, keeping its structure
+		 * 
+		 * @param matrix
+		 *            The square matrix
+		 */
+		Rows(SparseMatrix matrix) {
+			// Copy the structure
+			this.size = matrix.getRows();
+			this.pointers = matrix.getRowPointers().clone();
+			this.columns = Arrays.copyOf(matrix.getColumnIndices(),
+					this.pointers[this.size]);
+			Fraction[] elements = matrix.getValues();
+
+			// Convert each element, picking out the diagonal
+			this.values = new double[this.pointers[this.size]];
+			this.diagonal = new double[this.size];
+			for (int i = 0; i < this.size; i++) {
+				for (int p = this.pointers[i]; p < this.pointers[i + 1]; p++) {
+					this.values[p] = elements[p].doubleValue();
+					if (this.columns[p] == i) {
+						this.diagonal[i] = this.values[p];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Multiply the matrix by a vector
+		 * 
+		 * @param vector
+		 *            The vector to multiply
+		 * @param product
+		 *            The array to fill with the product
+		 */
+		void multiply(final double[] vector, final double[] product) {
+			// Rows are independent, so split them across the pool
+			RowBlocks.run(new RowBlocks.Body() {
+				@Override
+				public void run(int first, int last) {
+					for (int i = first; i < last; i++) {
+						double sum = 0;
+						for (int p = Rows.this.pointers[i]; p < Rows.this.pointers[i + 1]; p++) {
+							sum += Rows.this.values[p]
+									* vector[Rows.this.columns[p]];
+						}
+						product[i] = sum;
+					}
+				}
+			}, 0, this.size, this.width(), RowBlocks.defaultParallelism());
+		}
+
+		/**
+		 * Check that every element of the diagonal can be divided by
+		 * 
+		 * @throws ArithmeticException
+		 *             If an element of the diagonal is zero
+		 */
+		void requireDiagonal() {
+			for (int i = 0; i < this.size; i++) {
+				if (this.diagonal[i] == 0) {
+					throw new ArithmeticException("Zero on the diagonal in row "
+							+ i);
+				}
+			}
+		}
+
+		/**
+		 * Find the residual of an estimate
+		 * 
+		 * @param solution
+		 *            The right hand side, b
+		 * @param estimate
+		 *            The estimate, x
+		 * @param residual
+		 *            The array to fill with b - Ax
+		 */
+		void residual(final double[] solution, final double[] estimate,
+				final double[] residual) {
+			// Rows are independent, so split them across the pool
+			RowBlocks.run(new RowBlocks.Body() {
+				@Override
+				public void run(int first, int last) {
+					for (int i = first; i < last; i++) {
+						double sum = solution[i];
+						for (int p = Rows.this.pointers[i]; p < Rows.this.pointers[i + 1]; p++) {
+							sum -= Rows.this.values[p]
+									* estimate[Rows.this.columns[p]];
+						}
+						residual[i] = sum;
+					}
+				}
+			}, 0, this.size, this.width(), RowBlocks.defaultParallelism());
+		}
+
+		/**
+		 * Get the work in one row, for splitting rows across threads
+		 * 
+		 * @return The average number of elements in a row
+		 */
+		private long width() {
+			return Math.max(1, this.pointers[this.size] / Math.max(1, this.size));
+		}
+	}
+
+	// The default largest relative residual to accept
+	public static final double DEFAULT_TOLERANCE = 1e-10;
+
+	// The default number of iterations before giving up
+	public static final int DEFAULT_MAX_ITERATIONS = 1000;
+
+	/**
+	 * Check that a system can be solved
+	 * 
+	 * @param rows
+	 *            The height of the matrix
+	 * @param columns
+	 *            The width of the matrix
+	 * @param solution
+	 *            The right hand side
+	 * @throws IllegalArgumentException
+	 *             If the matrix is not square or b is the wrong length
+	 */
+	private static void check(int rows, int columns, double[] solution) {
+		if (rows != columns) {
+			throw new IllegalArgumentException("Matrix is not square");
+		}
+		if (solution.length != rows) {
+			throw new IllegalArgumentException("Expected " + rows
+					+ " solutions but got " + solution.length);
+		}
+	}
+
+	/**
+	 * Find the dot product of two vectors
+	 * 
+	 * @param one
+	 *            The first vector
+	 * @param two
+	 *            The second vector
+	 * @return The sum of the products of matching elements
+	 */
+	private static double dot(double[] one, double[] two) {
+		double sum = 0;
+		for (int i = 0; i < one.length; i++) {
+			sum += one[i] * two[i];
+		}
+		return sum;
+	}
+
+	// The algorithm to use
+	private IterativeMethod method;
+
+	// Divide the residual by the diagonal of the matrix in conjugate gradient
+	private boolean preconditioned;
+
+	// The largest relative residual to accept
+	private double tolerance;
+
+	// The most iterations to run
+	private int maxIterations;
+
+	/**
+	 * Create a solver with the default tolerance and iteration limit and no
+	 * preconditioning
+	 * 
+	 * @param method
+	 *            The algorithm to use
+	 */
+	public IterativeSolver(IterativeMethod method) {
+		// Store parameters
+		this.method = method;
+		this.tolerance = IterativeSolver.DEFAULT_TOLERANCE;
+		this.maxIterations = IterativeSolver.DEFAULT_MAX_ITERATIONS;
+		this.preconditioned = false;
+	}
+
+	/**
+	 * Run conjugate gradient, optionally preconditioned by the diagonal
+	 * 
+	 * @param matrix
+	 *            The matrix, A
+	 * @param solution
+	 *            The right hand side, b
+	 * @param norm
+	 *            The norm to divide residuals by
+	 * @return The result
+	 * @throws ArithmeticException
+	 *             If the matrix is found not to be positive definite, or a
+	 *             diagonal element is zero when preconditioning
+	 */
+	private IterativeResult conjugateGradient(Rows matrix, double[] solution,
+			double norm) {
+		// Preconditioning divides by the diagonal
+		if (this.preconditioned) {
+			matrix.requireDiagonal();
+		}
+
+		// Start from zero, so the residual is b
+		int size = matrix.size;
+		double[] estimate = new double[size];
+		double[] residual = solution.clone();
+		double[] direction = this.precondition(matrix, residual);
+		double[] product = new double[size];
+		double residualDot = IterativeSolver.dot(residual, direction);
+
+		// Step along each direction until close enough
+		for (int iteration = 0;; iteration++) {
+			// Check how close the estimate is
+			double error = Math.sqrt(IterativeSolver.dot(residual, residual))
+					/ norm;
+			if (error <= this.tolerance || iteration == this.maxIterations) {
+				return new IterativeResult(estimate, iteration, error,
+						error <= this.tolerance);
+			}
+
+			// Find how far to move, which needs p^T A p > 0
+			matrix.multiply(direction, product);
+			double curvature = IterativeSolver.dot(direction, product);
+			if (!(curvature > 0)) {
+				throw new ArithmeticException(
+						"Matrix is not positive definite");
+			}
+			double step = residualDot / curvature;
+
+			// Move the estimate and update the residual to match
+			for (int i = 0; i < size; i++) {
+				estimate[i] += step * direction[i];
+				residual[i] -= step * product[i];
+			}
+
+			// The next direction is conjugate to every earlier one
+			double[] preconditioned = this.precondition(matrix, residual);
+			double nextDot = IterativeSolver.dot(residual, preconditioned);
+			double beta = nextDot / residualDot;
+			for (int i = 0; i < size; i++) {
+				direction[i] = preconditioned[i] + beta * direction[i];
+			}
+			residualDot = nextDot;
+		}
+	}
+
+	/**
+	 * Get the most iterations the solver runs before giving up
+	 * 
+	 * @return The iteration limit
+	 */
+	public int getMaxIterations() {
+		return this.maxIterations;
+	}
+
+	/**
+	 * Get the algorithm the solver uses
+	 * 
+	 * @return The method
+	 */
+	public IterativeMethod getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * Get the largest relative residual the solver accepts
+	 * 
+	 * @return The tolerance
+	 */
+	public double getTolerance() {
+		return this.tolerance;
+	}
+
+	/**
+	 * Checks if conjugate gradient is preconditioned by the diagonal
+	 * 
+	 * @return True if the residual is divided by the diagonal of the matrix
+	 */
+	public boolean isPreconditioned() {
+		return this.preconditioned;
+	}
+
+	/**
+	 * Apply the preconditioner to a residual
+	 * 
+	 * @param matrix
+	 *            The matrix
+	 * @param residual
+	 *            The residual
+	 * @return The residual divided by the diagonal, or a copy of it when not
+	 *         preconditioning
+	 */
+	private double[] precondition(Rows matrix, double[] residual) {
+		double[] result = residual.clone();
+		if (this.preconditioned) {
+			for (int i = 0; i < result.length; i++) {
+				result[i] /= matrix.diagonal[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Run Jacobi or Gauss-Seidel sweeps
+	 * 
+	 * @param matrix
+	 *            The matrix, A
+	 * @param solution
+	 *            The right hand side, b
+	 * @param norm
+	 *            The norm to divide residuals by
+	 * @param inPlace
+	 *            True to use each new value as soon as it is found, which is
+	 *            Gauss-Seidel
+	 * @return The result
+	 * @throws ArithmeticException
+	 *             If a diagonal element is zero
+	 */
+	private IterativeResult relax(Rows matrix, double[] solution,
+			double norm, boolean inPlace) {
+		// Every sweep divides by the diagonal
+		matrix.requireDiagonal();
+
+		// Start from zero
+		int size = matrix.size;
+		double[] estimate = new double[size];
+		double[] residual = new double[size];
+
+		// Sweep until close enough
+		for (int iteration = 0;; iteration++) {
+			// Check how close the estimate is
+			matrix.residual(solution, estimate, residual);
+			double error = Math.sqrt(IterativeSolver.dot(residual, residual))
+					/ norm;
+			if (error <= this.tolerance || iteration == this.maxIterations) {
+				return new IterativeResult(estimate, iteration, error,
+						error <= this.tolerance);
+			}
+
+			if (inPlace) {
+				// Solve each equation with the newest values of the others
+				for (int i = 0; i < size; i++) {
+					double sum = solution[i];
+					for (int p = matrix.pointers[i]; p < matrix.pointers[i + 1]; p++) {
+						if (matrix.columns[p] != i) {
+							sum -= matrix.values[p]
+									* estimate[matrix.columns[p]];
+						}
+					}
+					estimate[i] = sum / matrix.diagonal[i];
+				}
+			} else {
+				// Solve each equation with the last values of the others, the
+				// residual already holds b - Ax for them
+				for (int i = 0; i < size; i++) {
+					estimate[i] += residual[i] / matrix.diagonal[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Set the most iterations the solver runs before giving up
+	 * 
+	 * @param maxIterations
+	 *            The iteration limit
+	 * @throws IllegalArgumentException
+	 *             If the limit is negative
+	 */
+	public void setMaxIterations(int maxIterations) {
+		if (maxIterations < 0) {
+			throw new IllegalArgumentException(
+					"Iteration limit can not be negative");
+		}
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Set the algorithm the solver uses
+	 * 
+	 * @param method
+	 *            The method
+	 */
+	public void setMethod(IterativeMethod method) {
+		this.method = method;
+	}
+
+	/**
+	 * Set if conjugate gradient is preconditioned by the diagonal (Jacobi
+	 * preconditioning), which helps when the diagonal varies widely. Jacobi
+	 * and Gauss-Seidel already divide by the diagonal, so they ignore it
+	 * 
+	 * @param preconditioned
+	 *            True to divide the residual by the diagonal of the matrix
+	 */
+	public void setPreconditioned(boolean preconditioned) {
+		this.preconditioned = preconditioned;
+	}
+
+	/**
+	 * Set the largest relative residual the solver accepts
+	 * 
+	 * @param tolerance
+	 *            The tolerance
+	 * @throws IllegalArgumentException
+	 *             If the tolerance is not a positive number
+	 */
+	public void setTolerance(double tolerance) {
+		if (!(tolerance > 0)) {
+			throw new IllegalArgumentException(
+					"Tolerance must be greater than zero");
+		}
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Solve Ax = b for a dense matrix of doubles
+	 * 
+	 * @param matrix
+	 *            The square matrix, A
+	 * @param solution
+	 *            The right hand side, b
+	 * @return The estimate of x and how close it came
+	 * @throws ArithmeticException
+	 *             If the method can not run on the matrix
+	 * @throws IllegalArgumentException
+	 *             If the matrix is not square or b is the wrong length
+	 */
+	public IterativeResult solve(DoubleMatrix matrix, double[] solution) {
+		IterativeSolver.check(matrix.getRows(), matrix.getColumns(), solution);
+		return this.solve(new Rows(matrix), solution);
+	}
+
+	/**
+	 * Solve Ax = b for a sparse matrix
+	 * 
+	 * @param matrix
+	 *            The square matrix, A
+	 * @param solution
+	 *            The right hand side, b
+	 * @return The estimate of x and how close it came
+	 * @throws ArithmeticException
+	 *             If the method can not run on the matrix
+	 * @throws IllegalArgumentException
+	 *             If the matrix is not square or b is the wrong length
+	 */
+	public IterativeResult solve(SparseMatrix matrix, double[] solution) {
+		IterativeSolver.check(matrix.getRows(), matrix.getColumns(), solution);
+		return this.solve(new Rows(matrix), solution);
+	}
+
+	/**
+	 * Run the chosen method
+	 * 
+	 * @param matrix
+	 *            The matrix, A
+	 * @param solution
+	 *            The right hand side, b
+	 * @return The estimate of x and how close it came
+	 */
+	private IterativeResult solve(Rows matrix, double[] solution) {
+		// Residuals are relative to b, unless b is zero
+		double norm = Math.sqrt(IterativeSolver.dot(solution, solution));
+		if (norm == 0) {
+			norm = 1;
+		}
+
+		// Run the method
+		switch (this.method) {
+		case JACOBI:
+			return this.relax(matrix, solution, norm, false);
+		case GAUSS_SEIDEL:
+			return this.relax(matrix, solution, norm, true);
+		default:
+			return this.conjugateGradient(matrix, solution, norm);
+		}
+	}
+}
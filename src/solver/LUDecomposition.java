@@ -0,0 +1,319 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * An exact LU factorization with row pivoting, PA = LU, of a Matrix. L is
+ * unit lower triangular and U is in row echelon form, so the factorization
+ * also gives the rank of the matrix. For a square, non-singular matrix it can
+ * solve for any number of right hand sides by forward and back substitution.
+ * A factorization never changes once it is created, so it can be shared
+ * between threads
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class LUDecomposition {
+
+	// The multipliers of L below the pivots (its unit diagonal is implied),
+	// and U on and above them
+	private final Fraction[][] lu;
+
+	// Row i of PA is row pivots[i] of A
+	private final int[] pivots;
+
+	// The column of each pivot of U, in order
+	private final int[] pivotColumns;
+
+	// True if an odd number of rows were swapped
+	private final boolean negate;
+
+	private final int columns, rank, rows;
+
+	/**
+	 * Factor a matrix
+	 * 
+	 * @param matrix
+	 *            The matrix to factor, which is not changed
+	 */
+	public LUDecomposition(Matrix matrix) {
+		// Copy the matrix, the factors are built in place
+		this.rows = matrix.getRows();
+		this.columns = matrix.getColumns();
+		this.lu = new Fraction[this.rows][];
+		this.pivots = new int[this.rows];
+		for (int i = 0; i < this.rows; i++) {
+			this.lu[i] = matrix.getRow(i).clone();
+			this.pivots[i] = i;
+		}
+
+		// Look for a pivot in each column, in the rows without one yet
+		int[] pivotColumns = new int[Math.min(this.rows, this.columns)];
+		boolean negate = false;
+		int rank = 0;
+		for (int c = 0; c < this.columns && rank < this.rows; c++) {
+			// Find the first row with a non-zero element in this column
+			int pivot = rank;
+			while (pivot < this.rows && this.lu[pivot][c].isZero()) {
+				pivot++;
+			}
+
+			// Move on when the column has no pivot
+			if (pivot == this.rows) {
+				continue;
+			}
+
+			// Swap the pivot row into place, each swap flips the determinant
+			if (pivot != rank) {
+				this.swapRows(rank, pivot);
+				negate = !negate;
+			}
+
+			// Remove the column from every row below the pivot
+			Fraction[] pivotRow = this.lu[rank];
+			for (int i = rank + 1; i < this.rows; i++) {
+				Fraction[] row = this.lu[i];
+
+				// Rows that already have a zero need no work
+				if (row[c].isZero()) {
+					continue;
+				}
+
+				// Store the multiplier in L, and subtract from the rest of U
+				Fraction multiplier = row[c].divideFraction(pivotRow[c]);
+				row[c] = multiplier;
+				for (int j = c + 1; j < this.columns; j++) {
+					if (!pivotRow[j].isZero()) {
+						row[j] = row[j].subtract(multiplier
+								.multiplyFraction(pivotRow[j]));
+					}
+				}
+			}
+
+			// Record the pivot
+			pivotColumns[rank] = c;
+			rank++;
+		}
+
+		// Store what was found
+		this.pivotColumns = Arrays.copyOf(pivotColumns, rank);
+		this.negate = negate;
+		this.rank = rank;
+	}
+
+	/**
+	 * Get the determinant of the factored matrix, the product of the diagonal
+	 * of U
+	 * 
+	 * @return The determinant if the matrix is square, 0 otherwise
+	 */
+	public Fraction getDeterminant() {
+		// A singular or non-square matrix has no determinant
+		if (this.isSingular()) {
+			return Fraction.ZERO;
+		}
+
+		// Multiply the diagonal together
+		Fraction determinant = Fraction.ONE;
+		for (int i = 0; i < this.rows; i++) {
+			determinant = determinant.multiplyFraction(this.lu[i][i]);
+		}
+
+		// Each row swap flips the sign
+		return this.negate ? determinant.negate() : determinant;
+	}
+
+	/**
+	 * Get the unit lower triangular factor
+	 * 
+	 * @return L, with as many rows and columns as the matrix has rows
+	 */
+	public Matrix getLower() {
+		// Start from a zero matrix
+		Matrix lower = new Matrix(this.rows, this.rows);
+
+		// Copy the multipliers below each pivot, and put ones on the diagonal
+		for (int i = 0; i < this.rows; i++) {
+			for (int r = 0; r < Math.min(i, this.rank); r++) {
+				lower.setElement(i, r, this.getMultiplier(i, r));
+			}
+			lower.setElement(i, i, Fraction.ONE);
+		}
+
+		// Return L
+		return lower;
+	}
+
+	/**
+	 * Get an element of L below the diagonal
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param pivot
+	 *            The column of the element, which is also the index of the
+	 *            pivot it eliminated
+	 * @return The multiplier, or zero if there was no such pivot
+	 */
+	private Fraction getMultiplier(int row, int pivot) {
+		// The multiplier sits under its pivot in the compact form
+		return this.lu[row][this.pivotColumns[pivot]];
+	}
+
+	/**
+	 * Get the columns that hold a pivot of U
+	 * 
+	 * @return The column of each pivot, in order
+	 */
+	public int[] getPivotColumns() {
+		return this.pivotColumns.clone();
+	}
+
+	/**
+	 * Get the row order of the factorization
+	 * 
+	 * @return An array where row i of PA is row pivots[i] of A
+	 */
+	public int[] getPivots() {
+		return this.pivots.clone();
+	}
+
+	/**
+	 * Get the rank of the factored matrix
+	 * 
+	 * @return The number of pivots
+	 */
+	public int getRank() {
+		return this.rank;
+	}
+
+	/**
+	 * Get the upper factor
+	 * 
+	 * @return U, in row echelon form, the same size as the matrix
+	 */
+	public Matrix getUpper() {
+		// Start from a zero matrix
+		Matrix upper = new Matrix(this.rows, this.columns);
+
+		// Copy each pivot row from its pivot onwards
+		for (int r = 0; r < this.rank; r++) {
+			for (int j = this.pivotColumns[r]; j < this.columns; j++) {
+				upper.setElement(r, j, this.lu[r][j]);
+			}
+		}
+
+		// Return U
+		return upper;
+	}
+
+	/**
+	 * Checks if the factored matrix is singular
+	 * 
+	 * @return True if the matrix has no inverse, which includes every
+	 *         matrix that is not square
+	 */
+	public boolean isSingular() {
+		return this.rows != this.columns || this.rank < this.rows;
+	}
+
+	/**
+	 * Solve Ax = b for one right hand side
+	 * 
+	 * @param solution
+	 *            The right hand side, b
+	 * @return The solutions, x
+	 * @throws ArithmeticException
+	 *             If the matrix is singular or not square, so there is no
+	 *             unique solution
+	 * @throws IllegalArgumentException
+	 *             If b is not the same height as the matrix
+	 */
+	public Fraction[] solve(Fraction[] solution) {
+		// Only a non-singular matrix has a unique solution
+		if (this.isSingular()) {
+			throw new ArithmeticException("Matrix is singular");
+		}
+		if (solution.length != this.rows) {
+			throw new IllegalArgumentException("Expected " + this.rows
+					+ " solutions but got " + solution.length);
+		}
+
+		// Put b in the pivoted row order
+		Fraction[] x = new Fraction[this.rows];
+		for (int i = 0; i < this.rows; i++) {
+			x[i] = solution[this.pivots[i]];
+		}
+
+		// Forward substitution, Ly = Pb
+		for (int i = 1; i < this.rows; i++) {
+			for (int j = 0; j < i; j++) {
+				if (!this.lu[i][j].isZero()) {
+					x[i] = x[i].subtract(this.lu[i][j].multiplyFraction(x[j]));
+				}
+			}
+		}
+
+		// Back substitution, Ux = y
+		for (int i = this.rows - 1; i >= 0; i--) {
+			for (int j = i + 1; j < this.rows; j++) {
+				if (!this.lu[i][j].isZero()) {
+					x[i] = x[i].subtract(this.lu[i][j].multiplyFraction(x[j]));
+				}
+			}
+			x[i] = x[i].divideFraction(this.lu[i][i]);
+		}
+
+		// Return the solutions
+		return x;
+	}
+
+	/**
+	 * Solve AX = B for every column of B
+	 * 
+	 * @param solutions
+	 *            The right hand sides, one per column
+	 * @return A Matrix with the solution for each column of B in the same
+	 *         column
+	 * @throws ArithmeticException
+	 *             If the matrix is singular or not square, so there is no
+	 *             unique solution
+	 * @throws IllegalArgumentException
+	 *             If B is not the same height as the matrix
+	 */
+	public Matrix solve(Matrix solutions) {
+		// Create a matrix for the answers
+		Matrix answers = new Matrix(this.rows, solutions.getColumns(),
+				solutions.getStorageType());
+
+		// Solve for each column in turn
+		for (int j = 0; j < solutions.getColumns(); j++) {
+			Fraction[] x = this.solve(solutions.getColumn(j));
+			for (int i = 0; i < this.rows; i++) {
+				answers.setElement(i, j, x[i]);
+			}
+		}
+
+		// Return the answers
+		return answers;
+	}
+
+	/**
+	 * Swap two rows of the factorization and record it
+	 * 
+	 * @param firstRow
+	 *            The first row to swap
+	 * @param secondRow
+	 *            The second row to swap
+	 */
+	private void swapRows(int firstRow, int secondRow) {
+		// Swap the rows
+		Fraction[] tempRow = this.lu[firstRow];
+		this.lu[firstRow] = this.lu[secondRow];
+		this.lu[secondRow] = tempRow;
+
+		// Swap the pivots
+		int tempPivot = this.pivots[firstRow];
+		this.pivots[firstRow] = this.pivots[secondRow];
+		this.pivots[secondRow] = tempPivot;
+	}
+}
@@ -0,0 +1,85 @@
+package solver;
+
+/**
+ * Reads the elements of a Matrix straight from a memory-mapped
+ * {@link MatrixFile}, so opening a matrix of any size costs no heap. The
+ * store is read-only: a Matrix swaps it for a packed copy the first time it
+ * is changed, and copies share it until then. Copies and results of
+ * operations are packed
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+class MappedStorage extends MatrixStorage {
+
+	// The file the elements are read from
+	private final MatrixFile file;
+
+	/**
+	 * Create a store over a file
+	 * 
+	 * @param file
+	 *            The file to read from
+	 */
+	MappedStorage(MatrixFile file) {
+		this.file = file;
+	}
+
+	@Override
+	Fraction get(int row, int column) {
+		return this.file.getElement(row, column);
+	}
+
+	@Override
+	int getColumns() {
+		return this.file.getColumns();
+	}
+
+	@Override
+	MatrixStorage getCopy() {
+		// Nothing can change the file, so copies can share it
+		return this;
+	}
+
+	@Override
+	Fraction[] getRow(int row) {
+		return this.file.getRow(row);
+	}
+
+	@Override
+	int getRows() {
+		return this.file.getRows();
+	}
+
+	@Override
+	StorageType getType() {
+		// Anything made from this store is packed
+		return StorageType.PACKED;
+	}
+
+	@Override
+	void set(int row, int column, Fraction value) {
+		throw new UnsupportedOperationException("Mapped storage is read-only");
+	}
+
+	@Override
+	void setRow(int row, Fraction[] values) {
+		throw new UnsupportedOperationException("Mapped storage is read-only");
+	}
+
+	@Override
+	void swapRows(int firstRow, int secondRow) {
+		throw new UnsupportedOperationException("Mapped storage is read-only");
+	}
+
+	@Override
+	MatrixStorage toWritable() {
+		// Copy every row into a packed store
+		MatrixStorage copy = MatrixStorage.create(StorageType.PACKED,
+				this.getRows(), this.getColumns());
+		for (int i = 0; i < this.getRows(); i++) {
+			copy.setRow(i, this.getRow(i));
+		}
+		return copy;
+	}
+}
@@ -1,5 +1,7 @@
 package solver;
 
+import java.io.IOException;
+
 /**
  * A class for representing and manipulating Matrices
  * 
@@ -9,65 +11,146 @@ package solver;
 public class Matrix {
 
 	/**
-	 * Adds two matrices together
+	 * Adds two matrices together. Large matrices are split into blocks of
+	 * rows across the common fork/join pool
 	 * 
 	 * @param one
 	 *            The first Matrix
 	 * @param two
 	 *            The Matrix to add to the first
 	 * @return A Matrix that represents one + two
+	 * @throws IllegalArgumentException
+	 *             If the matrices are not the same size
 	 */
 	public static Matrix addMatrices(Matrix one, Matrix two) {
-		// Create a new Matrix to hold the sum
-		Matrix sum = new Matrix(one.rows, one.columns);
-
-		// Traverse the matrices
-		for (int i = 0; i < one.rows; i++) {
-			for (int j = 0; j < one.columns; j++) {
-				// Add the values at the current index for both matrices
-				Fraction value = Fraction.addFraction(one.getElement(i, j),
-						two.getElement(i, j));
-
-				// Place the sum in the new Matrix
-				sum.setElement(i, j, value);
+		return Matrix.addMatrices(one, two, RowBlocks.defaultParallelism());
+	}
+
+	/**
+	 * Adds two matrices together, splitting the rows across at most a number
+	 * of threads
+	 * 
+	 * @param one
+	 *            The first Matrix
+	 * @param two
+	 *            The Matrix to add to the first
+	 * @param parallelism
+	 *            The most threads to split the work across, 1 keeps it on the
+	 *            calling thread
+	 * @return A Matrix that represents one + two
+	 * @throws IllegalArgumentException
+	 *             If the matrices are not the same size
+	 */
+	public static Matrix addMatrices(Matrix one, Matrix two, int parallelism) {
+		return Matrix.combine(one, two, false, parallelism);
+	}
+
+	/**
+	 * Add or subtract two matrices element by element, a block of rows at a
+	 * time
+	 * 
+	 * @param one
+	 *            The first Matrix
+	 * @param two
+	 *            The second Matrix
+	 * @param subtract
+	 *            True to subtract the second from the first, false to add
+	 * @param parallelism
+	 *            The most threads to split the work across, 1 keeps it on the
+	 *            calling thread
+	 * @return A Matrix with the sums or differences
+	 * @throws IllegalArgumentException
+	 *             If the matrices are not the same size
+	 */
+	private static Matrix combine(final Matrix one, final Matrix two,
+			final boolean subtract, int parallelism) {
+		// Check that the matrices are the same size
+		if (one.rows != two.rows || one.columns != two.columns) {
+			throw new IllegalArgumentException("Can not "
+					+ (subtract ? "subtract" : "add") + " a " + one.rows + "x"
+					+ one.columns + " matrix and a " + two.rows + "x"
+					+ two.columns + " matrix");
+		}
+
+		// Work out each row of the result on its own
+		final Fraction[][] result = new Fraction[one.rows][];
+		RowBlocks.run(new RowBlocks.Body() {
+			@Override
+			public void run(int first, int last) {
+				for (int i = first; i < last; i++) {
+					// Combine the values at each index of the row
+					Fraction[] rowOne = one.getRow(i);
+					Fraction[] rowTwo = two.getRow(i);
+					Fraction[] row = new Fraction[one.columns];
+					for (int j = 0; j < one.columns; j++) {
+						row[j] = subtract ? rowOne[j].subtract(rowTwo[j])
+								: rowOne[j].add(rowTwo[j]);
+					}
+					result[i] = row;
+				}
 			}
+		}, 0, one.rows, one.columns, parallelism);
+
+		// Return the result, stored like the first matrix
+		return Matrix.fromRows(result, one.getStorageType());
+	}
+
+	/**
+	 * Find an approximate solution to a Matrix with an iterative method,
+	 * trading exactness for speed on large, mostly zero systems. Only the
+	 * non-zero elements are used, converted to doubles
+	 * 
+	 * @param matrix
+	 *            The Matrix to solve, which must be square
+	 * @param solution
+	 *            The solution Matrix
+	 * @param solver
+	 *            The method and settings to use
+	 * @return The estimate of the solutions and how close it came
+	 * @throws ArithmeticException
+	 *             If the method can not run on the matrix
+	 */
+	public static IterativeResult findIterativeSolution(Matrix matrix,
+			Matrix solution, IterativeSolver solver) {
+		// Convert the solutions to doubles
+		double[] values = new double[solution.getRows()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = solution.getElement(i, 0).doubleValue();
 		}
 
-		// Return the sum of the matrices
-		return sum;
+		// Solve using only the non-zero elements
+		return new SparseMatrix(matrix).findSolution(values, solver);
 	}
 
 	/**
 	 * Find the solution to a Matrix, provided with solutions
 	 * 
 	 * @param matrix
-	 *            The Matrix to solve
+	 *            The Matrix to solve, which must be square
 	 * @param solution
 	 *            The solution Matrix
 	 * @return A Fraction array of solutions
+	 * @throws ArithmeticException
+	 *             If the matrix is singular, so there is no unique solution
 	 */
 	public static Fraction[] findSolution(Matrix matrix, Matrix solution) {
-		// Create an array to hold found solutions
-		Fraction[] solutions = new Fraction[matrix.columns];
-
-		// Find the determinant of the matrix
-		Fraction determinant = matrix.getDeterminant();
-
-		// Traverse columns of the matrix
-		for (int i = 0; i < matrix.columns; i++) {
-			// Transpose the matrix with the solution matrix
-			Matrix transposition = Matrix.replaceColumn(matrix, solution, i);
-
-			// Store the quotient of the transposed determinant
-			Fraction transposedDeterminant = transposition.getDeterminant();
-
-			// Store the quotient of the two determinants
-			solutions[i] = Fraction.divideFraction(transposedDeterminant,
-					determinant);
-		}
+		// Substitute the solutions through the cached factorization
+		return matrix.getDecomposition().solve(solution.getColumn(0));
+	}
 
-		// Return the solutions
-		return solutions;
+	/**
+	 * Create a matrix around rows that were worked out separately
+	 * 
+	 * @param rows
+	 *            The rows of the matrix, which are not copied
+	 * @param type
+	 *            How the matrix should store its elements
+	 * @return A Matrix with the rows
+	 */
+	static Matrix fromRows(Fraction[][] rows, StorageType type) {
+		// Wrap the rows, and only convert them if another type is wanted
+		Matrix matrix = new Matrix(rows);
+		return (type == StorageType.OBJECT) ? matrix : matrix.getCopy(type);
 	}
 
 	/**
@@ -109,54 +192,159 @@ public class Matrix {
 			jIndex = 0;
 		}
 
+		// Create the minor
+		Matrix minor = new Matrix(minorArray);
+
+		// Keep the minor stored the same way as the matrix
+		if (matrix.getStorageType() != StorageType.OBJECT) {
+			minor = minor.getCopy(matrix.getStorageType());
+		}
+
 		// Return the minor
-		return new Matrix(minorArray);
+		return minor;
 	}
 
 	/**
-	 * Multiply two matrices using dot product
+	 * Multiply two matrices using dot product. The second matrix is
+	 * transposed once so each dot product reads two rows, the products are
+	 * worked out in square tiles so those rows stay in cache, and each sum is
+	 * kept in a reused accumulator instead of a new Fraction per term. Large
+	 * products are split into blocks of rows across the common fork/join pool
 	 * 
 	 * @param one
 	 *            The first Matrix
 	 * @param two
 	 *            The Matrix to multiply the first by
 	 * @return The product of the matrices: one * two
+	 * @throws IllegalArgumentException
+	 *             If the width of one is not the height of two
 	 */
 	public static Matrix multiplyMatrices(Matrix one, Matrix two) {
+		return Matrix.multiplyMatrices(one, two,
+				RowBlocks.defaultParallelism());
+	}
+
+	/**
+	 * Multiply two matrices using a particular algorithm
+	 * 
+	 * @param one
+	 *            The first Matrix
+	 * @param two
+	 *            The Matrix to multiply the first by
+	 * @param method
+	 *            The algorithm to use
+	 * @return The product of the matrices: one * two
+	 * @throws IllegalArgumentException
+	 *             If the width of one is not the height of two
+	 */
+	public static Matrix multiplyMatrices(Matrix one, Matrix two,
+			MultiplicationMethod method) {
+		// Run the requested algorithm
+		switch (method) {
+		case STRASSEN:
+			return Strassen.multiply(one, two, Strassen.DEFAULT_CUTOFF);
+		default:
+			return Matrix.multiplyMatrices(one, two);
+		}
+	}
+
+	/**
+	 * Multiply two matrices using dot product, splitting the rows of the
+	 * product across at most a number of threads
+	 * 
+	 * @param one
+	 *            The first Matrix
+	 * @param two
+	 *            The Matrix to multiply the first by
+	 * @param parallelism
+	 *            The most threads to split the work across, 1 keeps it on the
+	 *            calling thread
+	 * @return The product of the matrices: one * two
+	 * @throws IllegalArgumentException
+	 *             If the width of one is not the height of two
+	 */
+	public static Matrix multiplyMatrices(final Matrix one, Matrix two,
+			int parallelism) {
 		// Check that the matrices can be multiplied
-		if (one.columns == two.rows) {
-			// Create Matrix to represent product
-			Matrix product = new Matrix(one.rows, two.columns);
-
-			// Traverse product Matrix
-			for (int i = 0; i < product.rows; i++) {
-				for (int j = 0; j < product.columns; j++) {
-					// Perform dot product on row i of one and column j of two
-					Fraction[] rowI = one.getRow(i);
-					Fraction[] columnJ = two.getColumn(j);
-
-					// Create Fraction to hold the sum of the products
-					Fraction total = new Fraction(0);
-
-					// Traverse selected row and column simultaneously
-					for (int k = 0; k < rowI.length; k++) {
-						// Add sum to total
-						total.add(Fraction
-								.multiplyFraction(rowI[k], columnJ[k]));
-					}
+		if (one.columns != two.rows) {
+			throw new IllegalArgumentException("Can not multiply a "
+					+ one.rows + "x" + one.columns + " matrix by a " + two.rows
+					+ "x" + two.columns + " matrix");
+		}
+
+		// Read the columns of two as rows, only once
+		final Fraction[][] right = new Fraction[two.columns][two.rows];
+		for (int k = 0; k < two.rows; k++) {
+			Fraction[] row = two.getRow(k);
+			for (int j = 0; j < two.columns; j++) {
+				right[j][k] = row[j];
+			}
+		}
 
-					// Set the value of the index
-					product.setElement(i, j, total);
+		// Create the rows of the product
+		final Fraction[][] product = new Fraction[one.rows][two.columns];
+		final int columns = two.columns;
+
+		// Each block of rows has its own accumulator
+		RowBlocks.run(new RowBlocks.Body() {
+			@Override
+			public void run(int first, int last) {
+				// Read the rows of one for this block
+				Fraction[][] left = new Fraction[last - first][];
+				for (int i = first; i < last; i++) {
+					left[i - first] = one.getRow(i);
+				}
+				FractionAccumulator total = new FractionAccumulator();
+
+				// Traverse the block a tile at a time
+				for (int tileI = first; tileI < last; tileI += MULTIPLY_TILE) {
+					int endI = Math.min(last, tileI + MULTIPLY_TILE);
+					for (int tileJ = 0; tileJ < columns; tileJ += MULTIPLY_TILE) {
+						int endJ = Math.min(columns, tileJ + MULTIPLY_TILE);
+
+						// Perform dot product on row i of one and column j
+						for (int i = tileI; i < endI; i++) {
+							Fraction[] rowI = left[i - first];
+							for (int j = tileJ; j < endJ; j++) {
+								Fraction[] columnJ = right[j];
+
+								// Add each product to the total
+								total.reset();
+								for (int k = 0; k < rowI.length; k++) {
+									total.addProduct(rowI[k], columnJ[k]);
+								}
+
+								// Set the value of the index
+								product[i][j] = total.getSum();
+							}
+						}
+					}
 				}
 			}
+		}, 0, one.rows, (long) one.columns * two.columns, parallelism);
 
-			// Return product Matrix
-			return product;
-		} else {
-			// Return a zero matrix
-			int[][] noValue = { { 0 } };
-			return new Matrix(noValue);
-		}
+		// Return product Matrix
+		return Matrix.fromRows(product, one.getStorageType());
+	}
+
+	/**
+	 * Multiply two matrices with Strassen's algorithm, choosing where it
+	 * switches to dot products
+	 * 
+	 * @param one
+	 *            The first Matrix
+	 * @param two
+	 *            The Matrix to multiply the first by
+	 * @param cutoff
+	 *            The largest size multiplied with dot products, larger
+	 *            matrices are split into quarters
+	 * @return The product of the matrices: one * two
+	 * @throws IllegalArgumentException
+	 *             If the width of one is not the height of two, or the cutoff
+	 *             is less than 1
+	 */
+	public static Matrix multiplyStrassen(Matrix one, Matrix two, int cutoff) {
+		return Strassen.multiply(one, two, cutoff);
 	}
 
 	/**
@@ -185,42 +373,92 @@ public class Matrix {
 	}
 
 	/**
-	 * Finds the difference between two matrices
+	 * Finds the difference between two matrices. Large matrices are split
+	 * into blocks of rows across the common fork/join pool
 	 * 
 	 * @param one
 	 *            The first Matrix
 	 * @param two
 	 *            The Matrix to subtract from the first
 	 * @return A Matrix that represents one - two
+	 * @throws IllegalArgumentException
+	 *             If the matrices are not the same size
 	 */
 	public static Matrix subtractMatrices(Matrix one, Matrix two) {
-		// Subtracting is the same as adding the negation of one to the other
-		return Matrix.addMatrices(one, two.multiply(new Fraction(-1)));
+		return Matrix.subtractMatrices(one, two,
+				RowBlocks.defaultParallelism());
+	}
+
+	/**
+	 * Finds the difference between two matrices, splitting the rows across at
+	 * most a number of threads
+	 * 
+	 * @param one
+	 *            The first Matrix
+	 * @param two
+	 *            The Matrix to subtract from the first
+	 * @param parallelism
+	 *            The most threads to split the work across, 1 keeps it on the
+	 *            calling thread
+	 * @return A Matrix that represents one - two
+	 * @throws IllegalArgumentException
+	 *             If the matrices are not the same size
+	 */
+	public static Matrix subtractMatrices(Matrix one, Matrix two,
+			int parallelism) {
+		return Matrix.combine(one, two, true, parallelism);
 	}
 
 	/**
-	 * Swap rows and columns of a matrix
+	 * Swap rows and columns of a matrix. Large matrices are split into blocks
+	 * of rows across the common fork/join pool
 	 * 
 	 * @param matrix
 	 *            The matrix to transpose
 	 * @return A transposition of the matrix
 	 */
 	public static Matrix transpose(Matrix matrix) {
-		// Create a matrix that has the appropriate dimensions for the transpose
-		Matrix transposed = new Matrix(matrix.columns, matrix.rows);
+		return Matrix.transpose(matrix, RowBlocks.defaultParallelism());
+	}
 
-		// Transpose the matrix
-		for (int j = 0; j < matrix.columns; j++) {
-			for (int i = 0; i < matrix.rows; i++) {
-				transposed.setElement(j, i, matrix.getMatrix()[i][j]);
+	/**
+	 * Swap rows and columns of a matrix, splitting the rows of the transpose
+	 * across at most a number of threads
+	 * 
+	 * @param matrix
+	 *            The matrix to transpose
+	 * @param parallelism
+	 *            The most threads to split the work across, 1 keeps it on the
+	 *            calling thread
+	 * @return A transposition of the matrix
+	 */
+	public static Matrix transpose(final Matrix matrix, int parallelism) {
+		// Row j of the transpose is column j of the matrix
+		final Fraction[][] transposed = new Fraction[matrix.columns][];
+		RowBlocks.run(new RowBlocks.Body() {
+			@Override
+			public void run(int first, int last) {
+				for (int j = first; j < last; j++) {
+					transposed[j] = matrix.getColumn(j);
+				}
 			}
-		}
+		}, 0, matrix.columns, matrix.rows, parallelism);
 
 		// Return the transpose
-		return transposed;
+		return Matrix.fromRows(transposed, matrix.getStorageType());
 	}
 
-	private Fraction[][] matrix;
+	// Largest size that getDeterminant() expands by cofactors
+	private static final int LAPLACE_LIMIT = 2;
+
+	// Rows and columns of the product worked out together by multiplyMatrices
+	private static final int MULTIPLY_TILE = 32;
+
+	private MatrixStorage storage;
+
+	// The factorization of the current elements, null until it is needed and
+	// again after any change
+	private volatile LUDecomposition decomposition;
 
 	private int columns, rows;
 
@@ -231,11 +469,8 @@ public class Matrix {
 	 *            A 2d array of Fractions, this will represent the matrix
 	 */
 	public Matrix(Fraction[][] matrix) {
-		// Call basic constructor
-		this(matrix.length, matrix[0].length);
-
-		// Store parameters
-		this.matrix = matrix;
+		// Wrap the array without copying it
+		this(new ObjectStorage(matrix));
 	}
 
 	/**
@@ -247,12 +482,23 @@ public class Matrix {
 	 *            The width of the matrix
 	 */
 	public Matrix(int rows, int columns) {
-		// Store parameters
-		this.rows = rows;
-		this.columns = columns;
+		// Call storage constructor
+		this(rows, columns, StorageType.OBJECT);
+	}
 
+	/**
+	 * Creates an empty matrix that holds its elements a particular way
+	 * 
+	 * @param rows
+	 *            The height of the matrix
+	 * @param columns
+	 *            The width of the matrix
+	 * @param type
+	 *            How the elements are stored
+	 */
+	public Matrix(int rows, int columns, StorageType type) {
 		// Set a default matrix
-		this.matrix = getDefaultMatrix();
+		this(MatrixStorage.create(type, rows, columns));
 	}
 
 	/**
@@ -266,6 +512,19 @@ public class Matrix {
 		this(Fraction.convertToFraction(matrix));
 	}
 
+	/**
+	 * Creates a matrix around a store of elements
+	 * 
+	 * @param storage
+	 *            The store of elements, this will represent the matrix
+	 */
+	Matrix(MatrixStorage storage) {
+		// Store parameters
+		this.storage = storage;
+		this.rows = storage.getRows();
+		this.columns = storage.getColumns();
+	}
+
 	/**
 	 * Adds two rows of the matrix and stores the result into the first row
 	 * 
@@ -278,10 +537,49 @@ public class Matrix {
 		// Iterate through both rows simultaneously
 		for (int i = 0; i < columns; i++) {
 			// Add the second row to the first
-			this.matrix[firstRow][i].add(this.matrix[secondRow][i]);
+			this.setElement(firstRow, i, this.getElement(firstRow, i).add(
+					this.getElement(secondRow, i)));
 		}
 	}
 
+	/**
+	 * Replace a row with a multiple of itself plus a multiple of another row,
+	 * in one pass
+	 * 
+	 * @param firstRow
+	 *            The row to replace
+	 * @param firstRowMultiple
+	 *            The multiple of the first row
+	 * @param secondRow
+	 *            The row to add
+	 * @param secondRowMultiple
+	 *            The multiple of the second row
+	 */
+	private void combineRows(int firstRow, Fraction firstRowMultiple,
+			int secondRow, Fraction secondRowMultiple) {
+		// Copy out both rows, the first may be linked to the store
+		Fraction[] first = this.getRow(firstRow);
+		Fraction[] second = this.getRow(secondRow);
+		Fraction[] result = new Fraction[this.columns];
+
+		// Work out each element, skipping the products that are zero
+		boolean scaleFirst = !firstRowMultiple.equals(Fraction.ONE);
+		for (int j = 0; j < this.columns; j++) {
+			Fraction element = first[j];
+			if (scaleFirst && !element.isZero()) {
+				element = element.multiplyFraction(firstRowMultiple);
+			}
+			if (!second[j].isZero()) {
+				element = element.add(second[j]
+						.multiplyFraction(secondRowMultiple));
+			}
+			result[j] = element;
+		}
+
+		// Store the new row
+		this.setRow(firstRow, result);
+	}
+
 	/**
 	 * Divide the matrix by a Fraction
 	 * 
@@ -305,10 +603,25 @@ public class Matrix {
 		// Iterate through the row
 		for (int i = 0; i < this.columns; i++) {
 			// Divide each element
-			this.matrix[rowIndex][i].divide(divisor);
+			this.setElement(rowIndex, i,
+					this.getElement(rowIndex, i).divide(divisor));
 		}
 	}
 
+	/**
+	 * Divides each element of a row by a Fraction, in place
+	 * 
+	 * @param rowIndex
+	 *            The row to divide
+	 * @param divisor
+	 *            The Fraction to divide by
+	 * @throws ArithmeticException
+	 *             If the divisor is zero
+	 */
+	public void divideRow(int rowIndex, Fraction divisor) {
+		this.multiplyRow(rowIndex, Fraction.getInverse(divisor));
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		// Check if the object is a Matrix
@@ -337,16 +650,12 @@ public class Matrix {
 	 * Get the inverse of the Matrix, assuming the matrix is square
 	 * 
 	 * @return The inverse of the matrix
+	 * @throws ArithmeticException
+	 *             If the matrix is singular
 	 */
 	public Matrix findInverse() {
-		// Get the determinant
-		Fraction determinant = this.getDeterminant();
-
-		// Get the adjoint
-		Matrix adjoint = this.getAdjoint();
-
-		// Return the inverse using the formula: (1/det(A))*adj(A)
-		return adjoint.divide(determinant);
+		// Reduce [A | I] to [I | A^-1]
+		return GaussJordan.inverse(this);
 	}
 
 	/**
@@ -355,32 +664,8 @@ public class Matrix {
 	 * @return The adjoint of the matrix
 	 */
 	public Matrix getAdjoint() {
-		// Create a matrix for the cofactor
-		Matrix cofactorMatrix = new Matrix(this.rows, this.columns);
-
-		// Traverse the matrix
-		for (int i = 0; i < this.rows; i++) {
-			for (int j = 0; j < this.columns; j++) {
-				// Get the minor for each index of the matrix
-				Matrix minor = Matrix.getMinorAt(i, j, this);
-
-				// Get the determinant of the minor
-				Fraction minorDeterminant = minor.getDeterminant();
-
-				// Get the cofactor of the minor
-				Fraction minorCofactor = minor.getCofactor(i, j);
-
-				// The product of the cofactor and determinant of the minor
-				Fraction product = Fraction.multiplyFraction(minorCofactor,
-						minorDeterminant);
-
-				// Put the production in the cofactor matrix
-				cofactorMatrix.setElement(i, j, product);
-			}
-		}
-
-		// Return the transpose of the cofactor matrix, the adjoint
-		return Matrix.transpose(cofactorMatrix);
+		// Use det(A) * A^-1, or null vectors when the matrix is singular
+		return GaussJordan.adjugate(this);
 	}
 
 	/**
@@ -395,9 +680,9 @@ public class Matrix {
 	private Fraction getCofactor(int row, int column) {
 		// Get 1^(row + column)
 		if ((row + column) % 2 == 0) {
-			return new Fraction(1);
+			return Fraction.ONE;
 		} else {
-			return new Fraction(-1);
+			return Fraction.MINUS_ONE;
 		}
 	}
 
@@ -432,20 +717,38 @@ public class Matrix {
 	}
 
 	/**
-	 * Creates an unlinked copy of this matrix
+	 * Creates an unlinked copy of this matrix. Fractions are immutable, so
+	 * the elements themselves are shared
 	 * 
 	 * @return The copy of the Matrix
 	 */
 	public Matrix getCopy() {
-		// Create a Matrix of same size as this
-		Matrix copy = new Matrix(this.rows, this.columns);
+		// The copy has the same elements, so it can share the factorization
+		Matrix copy = new Matrix(this.storage.getCopy());
+		copy.decomposition = this.decomposition;
+		return copy;
+	}
 
-		// Traverse this Matrix
+	/**
+	 * Creates an unlinked copy of this matrix that stores its elements a
+	 * particular way
+	 * 
+	 * @param type
+	 *            How the copy stores its elements
+	 * @return The copy of the Matrix
+	 */
+	public Matrix getCopy(StorageType type) {
+		// Copying to the same type can copy the store directly
+		if (type == this.getStorageType()) {
+			return this.getCopy();
+		}
+
+		// Create a Matrix of the requested type
+		Matrix copy = new Matrix(this.rows, this.columns, type);
+
+		// Copy each row across
 		for (int i = 0; i < this.rows; i++) {
-			for (int j = 0; j < this.columns; j++) {
-				// Copy the elements of this Matrix to the copy Matrix
-				copy.setElement(i, j, this.getElement(i, j));
-			}
+			copy.storage.setRow(i, this.getRow(i).clone());
 		}
 
 		// Return the copy
@@ -453,36 +756,73 @@ public class Matrix {
 	}
 
 	/**
-	 * Gets a matrix filled with zeroes
+	 * Get the LU factorization of the matrix. It is made on the first call and
+	 * kept until the matrix is changed through one of its methods, so repeated
+	 * solves only pay for the substitution. Writing to an array returned by
+	 * {@link #getMatrix()} or {@link #getRow(int)} bypasses this, use
+	 * {@link #setElement(int, int, Fraction)} or the row operations instead
 	 * 
-	 * @return A 2d array of zeroes
+	 * @return The factorization, which never changes and can be shared between
+	 *         threads
 	 */
-	private Fraction[][] getDefaultMatrix() {
-		// Create a sized array
-		Fraction[][] matrix = new Fraction[this.rows][this.columns];
-
-		// Fill the array with zeroes
-		for (int i = 0; i < matrix.length; i++) {
-			for (int j = 0; j < matrix[i].length; j++) {
-				matrix[i][j] = new Fraction(0);
-			}
+	public LUDecomposition getDecomposition() {
+		// Read the cache once, another thread may clear it
+		LUDecomposition decomposition = this.decomposition;
+
+		// Factor the matrix if there is no factorization yet
+		if (decomposition == null) {
+			decomposition = new LUDecomposition(this);
+			this.decomposition = decomposition;
 		}
 
-		// Return the array
-		return matrix;
+		// Return the factorization
+		return decomposition;
 	}
 
 	/**
-	 * Get the determinant of the matrix
+	 * Get the determinant of the matrix, using cofactor expansion for the
+	 * smallest matrices and Bareiss elimination otherwise
 	 * 
 	 * @return The determinant of the matrix if the matrix is square, 0
 	 *         otherwise
 	 */
 	public Fraction getDeterminant() {
-		if (this.isSquare()) {
-			return this.getRecursiveDeterminant();
+		// A factorization already has the determinant
+		LUDecomposition decomposition = this.decomposition;
+		if (decomposition != null) {
+			return decomposition.getDeterminant();
+		}
+
+		// Cofactor expansion only wins while it is a closed formula
+		if (this.rows <= LAPLACE_LIMIT) {
+			return this.getDeterminant(DeterminantMethod.LAPLACE);
 		} else {
-			return new Fraction(0);
+			return this.getDeterminant(DeterminantMethod.BAREISS);
+		}
+	}
+
+	/**
+	 * Get the determinant of the matrix using a particular algorithm
+	 * 
+	 * @param method
+	 *            The algorithm to use
+	 * @return The determinant of the matrix if the matrix is square, 0
+	 *         otherwise
+	 */
+	public Fraction getDeterminant(DeterminantMethod method) {
+		// Only square matrices have a determinant
+		if (!this.isSquare()) {
+			return Fraction.ZERO;
+		}
+
+		// Run the requested algorithm
+		switch (method) {
+		case LAPLACE:
+			return this.getRecursiveDeterminant();
+		case MODULAR:
+			return ModularDeterminant.determinant(this);
+		default:
+			return Bareiss.determinant(this);
 		}
 	}
 
@@ -496,17 +836,27 @@ public class Matrix {
 	 * @return The element at the row and column
 	 */
 	public Fraction getElement(int row, int column) {
-		return this.matrix[row][column];
+		return this.storage.get(row, column);
 	}
 
 	/**
-	 * Get the matrix
+	 * Get the matrix. With {@link StorageType#OBJECT} this is the array
+	 * backing the matrix, other types return a copy
 	 * 
 	 * @return A 2d array of fractions that represent the matrix
 	 */
 	public Fraction[][] getMatrix() {
 		// Return the 2d array
-		return this.matrix;
+		return this.storage.toArray();
+	}
+
+	/**
+	 * Get the rank of the matrix, the number of linearly independent rows
+	 * 
+	 * @return The rank of the matrix
+	 */
+	public int getRank() {
+		return this.getDecomposition().getRank();
 	}
 
 	/**
@@ -531,7 +881,7 @@ public class Matrix {
 
 			// Create a variable to hold the sum of the determinant(s) of the
 			// row's minor
-			Fraction total = new Fraction(0);
+			Fraction total = Fraction.ZERO;
 
 			// Iterate through row
 			for (int i = 0; i < detRow.length; i++) {
@@ -544,8 +894,8 @@ public class Matrix {
 
 				// Add the product of the cofactor and the determinant to the
 				// total
-				total.add(Fraction.multiplyFraction(cofactor,
-						minor.getDeterminant()));
+				total = total.add(Fraction.multiplyFraction(cofactor,
+						minor.getRecursiveDeterminant()));
 			}
 			// Return the total (determinant)
 			return total;
@@ -553,14 +903,15 @@ public class Matrix {
 	}
 
 	/**
-	 * Get a row at an index
+	 * Get a row at an index. With {@link StorageType#OBJECT} this is the array
+	 * backing the row, other types return a copy
 	 * 
 	 * @param row
 	 *            The index of the row
 	 * @return The row at the index
 	 */
 	public Fraction[] getRow(int row) {
-		return this.matrix[row];
+		return this.storage.getRow(row);
 	}
 
 	/**
@@ -588,6 +939,22 @@ public class Matrix {
 		return Fraction.subtractFraction(ad, bc);
 	}
 
+	/**
+	 * Get the way the matrix stores its elements
+	 * 
+	 * @return The storage type of the matrix
+	 */
+	public StorageType getStorageType() {
+		return this.storage.getType();
+	}
+
+	/**
+	 * Forget the factorization after the elements change
+	 */
+	private void invalidate() {
+		this.decomposition = null;
+	}
+
 	/**
 	 * Checks if the elements of this Matrix are identical to another
 	 * 
@@ -626,30 +993,48 @@ public class Matrix {
 	}
 
 	/**
-	 * Multiply the matrix by a Fraction
+	 * Multiply the matrix by a Fraction. Large matrices are split into blocks
+	 * of rows across the common fork/join pool
 	 * 
 	 * @param fraction
 	 *            The Fraction to multiply by
 	 * @return The matrix after multiplication
 	 */
 	public Matrix multiply(Fraction fraction) {
-		// Create a Matrix that has the same dimension as this one
-		Matrix multiplied = new Matrix(this.rows, this.columns);
-
-		// Traverse the matrix
-		for (int i = 0; i < this.rows; i++) {
-			for (int j = 0; j < this.columns; j++) {
-				// Multiply the element at the index by the fraction
-				Fraction product = Fraction.multiplyFraction(
-						this.getElement(i, j), fraction);
+		return this.multiply(fraction, RowBlocks.defaultParallelism());
+	}
 
-				// Set the element of the new Matrix to the product
-				multiplied.setElement(i, j, product);
+	/**
+	 * Multiply the matrix by a Fraction, splitting the rows across at most a
+	 * number of threads
+	 * 
+	 * @param fraction
+	 *            The Fraction to multiply by
+	 * @param parallelism
+	 *            The most threads to split the work across, 1 keeps it on the
+	 *            calling thread
+	 * @return The matrix after multiplication
+	 */
+	public Matrix multiply(final Fraction fraction, int parallelism) {
+		// Multiply each row on its own
+		final Fraction[][] multiplied = new Fraction[this.rows][];
+		RowBlocks.run(new RowBlocks.Body() {
+			@Override
+			public void run(int first, int last) {
+				for (int i = first; i < last; i++) {
+					// Multiply the element at each index by the fraction
+					Fraction[] row = Matrix.this.getRow(i);
+					Fraction[] product = new Fraction[row.length];
+					for (int j = 0; j < row.length; j++) {
+						product[j] = row[j].multiplyFraction(fraction);
+					}
+					multiplied[i] = product;
+				}
 			}
-		}
+		}, 0, this.rows, this.columns, parallelism);
 
 		// Return the new Matrix
-		return multiplied;
+		return Matrix.fromRows(multiplied, this.getStorageType());
 	}
 
 	/**
@@ -678,6 +1063,25 @@ public class Matrix {
 		divideRow(secondRow, secondRowMultiple);
 	}
 
+	/**
+	 * Multiply two rows by a Fraction and then add them, place result in
+	 * first row. The second row is not changed
+	 * 
+	 * @param firstRow
+	 *            The row to place the result in
+	 * @param firstRowMultiple
+	 *            Fraction to multiply first row by
+	 * @param secondRow
+	 *            Row to add to first
+	 * @param secondRowMultiple
+	 *            Fraction to multiply second row by
+	 */
+	public void multiplyAndAddRows(int firstRow, Fraction firstRowMultiple,
+			int secondRow, Fraction secondRowMultiple) {
+		this.combineRows(firstRow, firstRowMultiple, secondRow,
+				secondRowMultiple);
+	}
+
 	/**
 	 * Multiply two rows by an integer and then subtract them, place result in
 	 * first row
@@ -704,6 +1108,46 @@ public class Matrix {
 		divideRow(secondRow, secondRowMultiple);
 	}
 
+	/**
+	 * Multiply two rows by a Fraction and then subtract them, place result in
+	 * first row. The second row is not changed
+	 * 
+	 * @param firstRow
+	 *            The row to place the result in
+	 * @param firstRowMultiple
+	 *            Fraction to multiply first row by
+	 * @param secondRow
+	 *            Row to subtract from first
+	 * @param secondRowMultiple
+	 *            Fraction to multiply second row by
+	 */
+	public void multiplyAndSubtractRows(int firstRow,
+			Fraction firstRowMultiple, int secondRow, Fraction secondRowMultiple) {
+		this.combineRows(firstRow, firstRowMultiple, secondRow,
+				secondRowMultiple.negate());
+	}
+
+	/**
+	 * Multiplies each element of a row by a Fraction, in place
+	 * 
+	 * @param rowIndex
+	 *            The row to multiply
+	 * @param multiple
+	 *            The Fraction to multiply by
+	 */
+	public void multiplyRow(int rowIndex, Fraction multiple) {
+		// Scale a copy of the row, zeroes stay zero
+		Fraction[] row = this.getRow(rowIndex).clone();
+		for (int i = 0; i < this.columns; i++) {
+			if (!row[i].isZero()) {
+				row[i] = row[i].multiplyFraction(multiple);
+			}
+		}
+
+		// Store the new row
+		this.setRow(rowIndex, row);
+	}
+
 	/**
 	 * Multiplies each element of a row by an integer
 	 * 
@@ -716,7 +1160,8 @@ public class Matrix {
 		// Iterate through the row
 		for (int i = 0; i < this.columns; i++) {
 			// Multiply each element of row
-			this.matrix[rowIndex][i].multiply(multiple);
+			this.setElement(rowIndex, i,
+					this.getElement(rowIndex, i).multiply(multiple));
 		}
 	}
 
@@ -731,7 +1176,9 @@ public class Matrix {
 	 *            The value to use
 	 */
 	public void setElement(int row, int column, Fraction value) {
-		this.matrix[row][column] = value;
+		this.storage = this.storage.toWritable();
+		this.storage.set(row, column, value);
+		this.invalidate();
 	}
 
 	/**
@@ -745,7 +1192,7 @@ public class Matrix {
 	 *            The new value
 	 */
 	public void setElement(int row, int column, int value) {
-		setElement(row, column, new Fraction(value));
+		setElement(row, column, Fraction.valueOf(value));
 	}
 
 	/**
@@ -755,7 +1202,11 @@ public class Matrix {
 	 *            A 2d array of values to use
 	 */
 	public void setMatrix(Fraction[][] matrix) {
-		this.matrix = matrix;
+		// Wrap the array and take its dimensions
+		this.storage = new ObjectStorage(matrix);
+		this.rows = matrix.length;
+		this.columns = matrix[0].length;
+		this.invalidate();
 	}
 
 	/**
@@ -777,7 +1228,9 @@ public class Matrix {
 	 *            The new row
 	 */
 	public void setRow(int rowIndex, Fraction[] row) {
-		this.matrix[rowIndex] = row;
+		this.storage = this.storage.toWritable();
+		this.storage.setRow(rowIndex, row);
+		this.invalidate();
 	}
 
 	/**
@@ -804,7 +1257,8 @@ public class Matrix {
 		// Iterate through both rows simultaneously
 		for (int i = 0; i < columns; i++) {
 			// Subtract the second row from the first
-			this.matrix[firstRow][i].subtract(this.matrix[secondRow][i]);
+			this.setElement(firstRow, i, this.getElement(firstRow, i)
+					.subtract(this.getElement(secondRow, i)));
 		}
 	}
 
@@ -817,14 +1271,10 @@ public class Matrix {
 	 *            The second row to swap
 	 */
 	public void swapRows(int firstRow, int secondRow) {
-		// Store first row temporarily
-		Fraction[] tempRow = this.matrix[firstRow];
-
-		// Swap first with second
-		this.matrix[firstRow] = this.matrix[secondRow];
-
-		// Swap second with first
-		this.matrix[secondRow] = tempRow;
+		// A read-only store is copied before its first change
+		this.storage = this.storage.toWritable();
+		this.storage.swapRows(firstRow, secondRow);
+		this.invalidate();
 	}
 
 	/**
@@ -832,20 +1282,32 @@ public class Matrix {
 	 */
 	@Override
 	public String toString() {
-		// Empty string to hold the matrix
-		String matrixString = "";
-
-		// Iterate through the matrix
-		for (Fraction[] row : this.matrix) {
-			for (Fraction element : row) {
-				// Add each element to the string
-				matrixString += element + "\t";
-			}
-			// Add a new line at the end of the row
-			matrixString += "\n";
-		}
+		return this.toString(MatrixFormat.TAB);
+	}
 
-		// Return the matrix as a string
-		return matrixString;
+	/**
+	 * Gets each row and column of the matrix in a format
+	 * 
+	 * @param format
+	 *            The layout to use
+	 * @return The matrix as text
+	 */
+	public String toString(MatrixFormat format) {
+		return MatrixWriter.toString(this.storage, false, format);
+	}
+
+	/**
+	 * Write each row and column of the matrix, without building the whole
+	 * text in memory first
+	 * 
+	 * @param out
+	 *            Where to write, such as a Writer or StringBuilder
+	 * @param format
+	 *            The layout to use
+	 * @throws IOException
+	 *             If writing fails
+	 */
+	public void write(Appendable out, MatrixFormat format) throws IOException {
+		MatrixWriter.write(this.storage, false, format, out);
 	}
 }
@@ -0,0 +1,28 @@
+package solver;
+
+/**
+ * How each element is stored in a {@link MatrixFile}. The order is part of
+ * the file format and must not change
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum MatrixEncoding {
+
+	/**
+	 * One 8 byte integer per element. Only for integers that fit in a long
+	 */
+	INT64,
+
+	/**
+	 * An 8 byte numerator and an 8 byte denominator per element, in lowest
+	 * terms. Only for fractions whose parts fit in a long
+	 */
+	RATIONAL64,
+
+	/**
+	 * One 8 byte double per element. Fractions are rounded to the nearest
+	 * double when written, and read back exactly as that double
+	 */
+	DOUBLE
+}
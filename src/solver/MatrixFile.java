@@ -0,0 +1,756 @@
+package solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A compact binary file holding one matrix, opened through memory-mapped NIO
+ * so a Matrix can read its elements straight from the file without copying
+ * them onto the heap. Files larger than 2 GB are mapped in chunks.
+ * <p>
+ * The file starts with a 32 byte big-endian header: the magic number "MTRX",
+ * a 2 byte version, a byte each for the {@link MatrixEncoding} and
+ * {@link MatrixLayout}, 4 byte row and column counts, the 8 byte number of
+ * stored elements and an 8 byte CRC32. The checksum covers everything after
+ * the header followed by the first 24 bytes of the header. Every section
+ * after the header starts on a 16 byte boundary, so no element crosses the
+ * end of a chunk
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class MatrixFile {
+
+	/**
+	 * Gathers bytes for a file in a buffer, passing them to the channel and
+	 * the checksum each time it fills
+	 */
+	private static final class Output {
+
+		private final ByteBuffer buffer;
+
+		private final FileChannel channel;
+
+		private final CRC32 checksum;
+
+		// The bytes written after the header so far
+		private long written;
+
+		/**
+		 * Start writing after the header
+		 * 
+		 * @param channel
+		 *            The file to write to
+		 * @throws IOException
+		 *             If writing fails
+		 */
+		Output(FileChannel channel) throws IOException {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocate(1 << 16);
+			this.checksum = new CRC32();
+			channel.position(HEADER_SIZE);
+		}
+
+		/**
+		 * Write zeroes up to the next 16 byte boundary
+		 * 
+		 * @throws IOException
+		 *             If writing fails
+		 */
+		void align() throws IOException {
+			while ((HEADER_SIZE + this.written + this.buffer.position()) % 16 != 0) {
+				this.ensure(1);
+				this.buffer.put((byte) 0);
+			}
+		}
+
+		/**
+		 * Make room in the buffer
+		 * 
+		 * @param bytes
+		 *            The bytes needed
+		 * @throws IOException
+		 *             If writing fails
+		 */
+		private void ensure(int bytes) throws IOException {
+			if (this.buffer.remaining() < bytes) {
+				this.flush();
+			}
+		}
+
+		/**
+		 * Pass on the buffer
+		 * 
+		 * @throws IOException
+		 *             If writing fails
+		 */
+		void flush() throws IOException {
+			this.buffer.flip();
+			this.checksum.update(this.buffer.array(), 0, this.buffer.limit());
+			this.written += this.buffer.limit();
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+			this.buffer.clear();
+		}
+
+		/**
+		 * Write an int
+		 * 
+		 * @param value
+		 *            The value
+		 * @throws IOException
+		 *             If writing fails
+		 */
+		void putInt(int value) throws IOException {
+			this.ensure(4);
+			this.buffer.putInt(value);
+		}
+
+		/**
+		 * Write a long
+		 * 
+		 * @param value
+		 *            The value
+		 * @throws IOException
+		 *             If writing fails
+		 */
+		void putLong(long value) throws IOException {
+			this.ensure(8);
+			this.buffer.putLong(value);
+		}
+
+		/**
+		 * Write an element in an encoding
+		 * 
+		 * @param value
+		 *            The element
+		 * @param encoding
+		 *            How to write it
+		 * @throws IOException
+		 *             If writing fails
+		 * @throws IllegalArgumentException
+		 *             If the element does not fit the encoding
+		 */
+		void putValue(Fraction value, MatrixEncoding encoding)
+				throws IOException {
+			switch (encoding) {
+			case INT64:
+				if (!value.isLong() || value.getDenominator() != 1) {
+					throw new IllegalArgumentException(value
+							+ " is not an integer that fits in a long");
+				}
+				this.putLong(value.getNumerator());
+				break;
+			case RATIONAL64:
+				if (!value.isLong()) {
+					throw new IllegalArgumentException(value
+							+ " does not fit in two longs");
+				}
+				this.putLong(value.getNumerator());
+				this.putLong(value.getDenominator());
+				break;
+			default:
+				this.putLong(Double.doubleToLongBits(value.doubleValue()));
+				break;
+			}
+		}
+	}
+
+	// The size of the header in bytes
+	private static final int HEADER_SIZE = 32;
+
+	// The start of every matrix file, "MTRX"
+	private static final int MAGIC = 0x4D545258;
+
+	// The version of the format this class reads and writes
+	private static final short VERSION = 1;
+
+	// Each mapped chunk is 1 GB, a multiple of every section alignment
+	private static final int CHUNK_BITS = 30;
+
+	/**
+	 * Round an offset up to the next 16 byte boundary
+	 * 
+	 * @param offset
+	 *            The offset
+	 * @return The aligned offset
+	 */
+	private static long align(long offset) {
+		return (offset + 15) & ~15L;
+	}
+
+	/**
+	 * Get the number of bytes in each element
+	 * 
+	 * @param encoding
+	 *            The encoding
+	 * @return The bytes per element
+	 */
+	private static int elementSize(MatrixEncoding encoding) {
+		return (encoding == MatrixEncoding.RATIONAL64) ? 16 : 8;
+	}
+
+	/**
+	 * Finish a file, writing its header once the payload is written
+	 * 
+	 * @param channel
+	 *            The file
+	 * @param output
+	 *            The payload that was written
+	 * @param encoding
+	 *            The encoding of the elements
+	 * @param layout
+	 *            The layout of the elements
+	 * @param rows
+	 *            The height of the matrix
+	 * @param columns
+	 *            The width of the matrix
+	 * @param stored
+	 *            The number of stored elements
+	 * @throws IOException
+	 *             If writing fails
+	 */
+	private static void finish(FileChannel channel, Output output,
+			MatrixEncoding encoding, MatrixLayout layout, int rows,
+			int columns, long stored) throws IOException {
+		// Pass on the rest of the payload
+		output.flush();
+
+		// Build the header, the checksum covers its first 24 bytes too
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putShort(VERSION)
+				.put((byte) encoding.ordinal()).put((byte) layout.ordinal())
+				.putInt(rows).putInt(columns).putLong(stored);
+		output.checksum.update(header.array(), 0, header.position());
+		header.putLong(output.checksum.getValue());
+
+		// Write it at the start of the file
+		header.flip();
+		channel.position(0);
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+
+	/**
+	 * Open a matrix file, checking its header. The elements are mapped, not
+	 * read, and the checksum is only checked by {@link #verify()}
+	 * 
+	 * @param path
+	 *            The file to open
+	 * @return The open file
+	 * @throws IOException
+	 *             If the file can not be read or is not a valid matrix file
+	 */
+	public static MatrixFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.READ)) {
+			// Map the whole file, a chunk at a time
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException(path + " is too short to be a matrix file");
+			}
+			int count = (int) ((size + (1L << CHUNK_BITS) - 1) >>> CHUNK_BITS);
+			MappedByteBuffer[] chunks = new MappedByteBuffer[count];
+			for (int i = 0; i < count; i++) {
+				long start = (long) i << CHUNK_BITS;
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						Math.min(1L << CHUNK_BITS, size - start));
+			}
+
+			// The mapping stays valid once the channel is closed
+			return new MatrixFile(path, chunks, size);
+		}
+	}
+
+	/**
+	 * Write a dense matrix of doubles
+	 * 
+	 * @param path
+	 *            The file to write, replacing any that exists
+	 * @param matrix
+	 *            The matrix
+	 * @throws IOException
+	 *             If writing fails
+	 */
+	public static void write(Path path, DoubleMatrix matrix) throws IOException {
+		try (FileChannel channel = MatrixFile.create(path)) {
+			// Write every element, row by row
+			Output output = new Output(channel);
+			double[] data = matrix.getData();
+			for (double value : data) {
+				output.putLong(Double.doubleToLongBits(value));
+			}
+
+			// Write the header
+			MatrixFile.finish(channel, output, MatrixEncoding.DOUBLE,
+					MatrixLayout.DENSE, matrix.getRows(), matrix.getColumns(),
+					data.length);
+		}
+	}
+
+	/**
+	 * Write a matrix
+	 * 
+	 * @param path
+	 *            The file to write, replacing any that exists
+	 * @param matrix
+	 *            The matrix
+	 * @param encoding
+	 *            How to store each element
+	 * @param layout
+	 *            How to arrange the elements, SPARSE only stores the
+	 *            non-zero elements
+	 * @throws IOException
+	 *             If writing fails
+	 * @throws IllegalArgumentException
+	 *             If an element does not fit the encoding
+	 */
+	public static void write(Path path, Matrix matrix,
+			MatrixEncoding encoding, MatrixLayout layout) throws IOException {
+		// The sparse layout is written from the non-zero elements
+		if (layout == MatrixLayout.SPARSE) {
+			MatrixFile.write(path, new SparseMatrix(matrix), encoding);
+			return;
+		}
+
+		try (FileChannel channel = MatrixFile.create(path)) {
+			// Write every element, row by row
+			Output output = new Output(channel);
+			for (int i = 0; i < matrix.getRows(); i++) {
+				for (Fraction value : matrix.getRow(i)) {
+					output.putValue(value, encoding);
+				}
+			}
+
+			// Write the header
+			MatrixFile.finish(channel, output, encoding, MatrixLayout.DENSE,
+					matrix.getRows(), matrix.getColumns(),
+					(long) matrix.getRows() * matrix.getColumns());
+		}
+	}
+
+	/**
+	 * Write the non-zero elements of a sparse matrix
+	 * 
+	 * @param path
+	 *            The file to write, replacing any that exists
+	 * @param matrix
+	 *            The matrix
+	 * @param encoding
+	 *            How to store each element
+	 * @throws IOException
+	 *             If writing fails
+	 * @throws IllegalArgumentException
+	 *             If an element does not fit the encoding
+	 */
+	public static void write(Path path, SparseMatrix matrix,
+			MatrixEncoding encoding) throws IOException {
+		try (FileChannel channel = MatrixFile.create(path)) {
+			Output output = new Output(channel);
+			int[] pointers = matrix.getRowPointers();
+			int[] columns = matrix.getColumnIndices();
+			Fraction[] values = matrix.getValues();
+			int stored = matrix.getNonZeroCount();
+
+			// Write where each row starts, the columns, then the elements
+			for (int i = 0; i <= matrix.getRows(); i++) {
+				output.putLong(pointers[i]);
+			}
+			output.align();
+			for (int p = 0; p < stored; p++) {
+				output.putInt(columns[p]);
+			}
+			output.align();
+			for (int p = 0; p < stored; p++) {
+				output.putValue(values[p], encoding);
+			}
+
+			// Write the header
+			MatrixFile.finish(channel, output, encoding, MatrixLayout.SPARSE,
+					matrix.getRows(), matrix.getColumns(), stored);
+		}
+	}
+
+	/**
+	 * Create or replace a file for writing
+	 * 
+	 * @param path
+	 *            The file
+	 * @return A channel to write to
+	 * @throws IOException
+	 *             If the file can not be created
+	 */
+	private static FileChannel create(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+	}
+
+	// The file, mapped in chunks of 1 << CHUNK_BITS bytes
+	private final MappedByteBuffer[] chunks;
+
+	// How the elements are stored
+	private final MatrixEncoding encoding;
+
+	// How the elements are arranged
+	private final MatrixLayout layout;
+
+	// The checksum from the header
+	private final long checksum;
+
+	// Where each section starts, and the end of the last one
+	private final long columnOffset, end, pointerOffset, valueOffset;
+
+	// The number of stored elements
+	private final long stored;
+
+	private final int columns, rows, size;
+
+	/**
+	 * Read and check the header of a mapped file
+	 * 
+	 * @param path
+	 *            The file, for error messages
+	 * @param chunks
+	 *            The mapped chunks
+	 * @param length
+	 *            The length of the file
+	 * @throws IOException
+	 *             If the header is not valid
+	 */
+	private MatrixFile(Path path, MappedByteBuffer[] chunks, long length)
+			throws IOException {
+		this.chunks = chunks;
+
+		// Check the magic number and version
+		ByteBuffer header = chunks[0];
+		if (header.getInt(0) != MAGIC) {
+			throw new IOException(path + " is not a matrix file");
+		}
+		if (header.getShort(4) != VERSION) {
+			throw new IOException(path + " has unsupported version "
+					+ header.getShort(4));
+		}
+
+		// Read the encoding, layout and shape
+		int encoding = header.get(6), layout = header.get(7);
+		if (encoding < 0 || encoding >= MatrixEncoding.values().length
+				|| layout < 0 || layout >= MatrixLayout.values().length) {
+			throw new IOException(path + " has an unknown encoding or layout");
+		}
+		this.encoding = MatrixEncoding.values()[encoding];
+		this.layout = MatrixLayout.values()[layout];
+		this.rows = header.getInt(8);
+		this.columns = header.getInt(12);
+		this.stored = header.getLong(16);
+		this.checksum = header.getLong(24);
+		this.size = MatrixFile.elementSize(this.encoding);
+
+		// Work out where each section starts
+		if (this.rows < 0 || this.columns < 0 || this.stored < 0) {
+			throw new IOException(path + " has a negative size");
+		}
+		this.pointerOffset = HEADER_SIZE;
+		if (this.layout == MatrixLayout.DENSE) {
+			if (this.stored != (long) this.rows * this.columns) {
+				throw new IOException(path + " has the wrong element count");
+			}
+			this.columnOffset = HEADER_SIZE;
+			this.valueOffset = HEADER_SIZE;
+		} else {
+			this.columnOffset = MatrixFile.align(this.pointerOffset + 8L
+					* (this.rows + 1));
+			this.valueOffset = MatrixFile.align(this.columnOffset + 4
+					* this.stored);
+		}
+		this.end = this.valueOffset + this.size * this.stored;
+
+		// The file must hold every section
+		if (length < this.end) {
+			throw new IOException(path + " is truncated, expected " + this.end
+					+ " bytes but found " + length);
+		}
+	}
+
+	/**
+	 * Read an element at a stored position
+	 * 
+	 * @param position
+	 *            The position among the stored elements
+	 * @return The element
+	 */
+	private Fraction decode(long position) {
+		long offset = this.valueOffset + position * this.size;
+		switch (this.encoding) {
+		case INT64:
+			return Fraction.valueOf(this.getLong(offset));
+		case RATIONAL64:
+			return Fraction.valueOf(this.getLong(offset),
+					this.getLong(offset + 8));
+		default:
+			return Fraction.valueOf(Double.longBitsToDouble(this
+					.getLong(offset)));
+		}
+	}
+
+	/**
+	 * Read an element at a stored position as a double
+	 * 
+	 * @param position
+	 *            The position among the stored elements
+	 * @return The nearest double to the element
+	 */
+	private double decodeDouble(long position) {
+		long offset = this.valueOffset + position * this.size;
+		if (this.encoding == MatrixEncoding.DOUBLE) {
+			return Double.longBitsToDouble(this.getLong(offset));
+		}
+		return this.decode(position).doubleValue();
+	}
+
+	/**
+	 * Find the stored position of an element
+	 * 
+	 * @param row
+	 *            The row
+	 * @param column
+	 *            The column
+	 * @return The position, or -1 if the element is zero and not stored
+	 */
+	private long find(int row, int column) {
+		// Every element is stored in the dense layout
+		if (this.layout == MatrixLayout.DENSE) {
+			return (long) row * this.columns + column;
+		}
+
+		// Search the columns of the row
+		long low = this.getRowStart(row), high = this.getRowStart(row + 1) - 1;
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			int found = this.getInt(this.columnOffset + 4 * middle);
+			if (found < column) {
+				low = middle + 1;
+			} else if (found > column) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the width of the matrix
+	 * 
+	 * @return The number of columns
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Get an element
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @return The element, read from the file
+	 */
+	public Fraction getElement(int row, int column) {
+		long position = this.find(row, column);
+		return (position < 0) ? Fraction.ZERO : this.decode(position);
+	}
+
+	/**
+	 * Get how the elements are stored
+	 * 
+	 * @return The encoding
+	 */
+	public MatrixEncoding getEncoding() {
+		return this.encoding;
+	}
+
+	/**
+	 * Read an int from the file
+	 * 
+	 * @param offset
+	 *            The offset in the file, aligned to 4 bytes
+	 * @return The int
+	 */
+	private int getInt(long offset) {
+		return this.chunks[(int) (offset >>> CHUNK_BITS)]
+				.getInt((int) (offset & ((1 << CHUNK_BITS) - 1)));
+	}
+
+	/**
+	 * Get how the elements are arranged
+	 * 
+	 * @return The layout
+	 */
+	public MatrixLayout getLayout() {
+		return this.layout;
+	}
+
+	/**
+	 * Read a long from the file
+	 * 
+	 * @param offset
+	 *            The offset in the file, aligned to 8 bytes
+	 * @return The long
+	 */
+	private long getLong(long offset) {
+		return this.chunks[(int) (offset >>> CHUNK_BITS)]
+				.getLong((int) (offset & ((1 << CHUNK_BITS) - 1)));
+	}
+
+	/**
+	 * Get the number of elements stored in the file
+	 * 
+	 * @return Every element for the dense layout, the non-zero elements for
+	 *         the sparse layout
+	 */
+	public long getStoredCount() {
+		return this.stored;
+	}
+
+	/**
+	 * Get a row of the matrix
+	 * 
+	 * @param row
+	 *            The index of the row
+	 * @return The elements of the row, read from the file
+	 */
+	public Fraction[] getRow(int row) {
+		Fraction[] values = new Fraction[this.columns];
+		if (this.layout == MatrixLayout.DENSE) {
+			// Read each element in turn
+			long first = (long) row * this.columns;
+			for (int j = 0; j < this.columns; j++) {
+				values[j] = this.decode(first + j);
+			}
+		} else {
+			// Start from zeroes and fill in the stored elements
+			Arrays.fill(values, Fraction.ZERO);
+			for (long p = this.getRowStart(row); p < this.getRowStart(row + 1); p++) {
+				values[this.getInt(this.columnOffset + 4 * p)] = this.decode(p);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Get the height of the matrix
+	 * 
+	 * @return The number of rows
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Get where a row starts among the stored elements of a sparse file
+	 * 
+	 * @param row
+	 *            The row, or the number of rows for the end of the last row
+	 * @return The position of the first element of the row
+	 */
+	private long getRowStart(int row) {
+		return this.getLong(this.pointerOffset + 8L * row);
+	}
+
+	/**
+	 * Open a Matrix over the file. Elements are read from the mapped file
+	 * each time they are used, nothing is copied until the Matrix is changed
+	 * 
+	 * @return A Matrix backed by the file
+	 */
+	public Matrix toMatrix() {
+		return new Matrix(new MappedStorage(this));
+	}
+
+	/**
+	 * Copy the matrix into a DoubleMatrix
+	 * 
+	 * @return The nearest double to each element
+	 */
+	public DoubleMatrix toDoubleMatrix() {
+		// Read each stored element into its place
+		DoubleMatrix matrix = new DoubleMatrix(this.rows, this.columns);
+		double[] data = matrix.getData();
+		if (this.layout == MatrixLayout.DENSE) {
+			for (int index = 0; index < data.length; index++) {
+				data[index] = this.decodeDouble(index);
+			}
+		} else {
+			for (int i = 0; i < this.rows; i++) {
+				for (long p = this.getRowStart(i); p < this.getRowStart(i + 1); p++) {
+					data[i * this.columns
+							+ this.getInt(this.columnOffset + 4 * p)] = this
+							.decodeDouble(p);
+				}
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * Copy the non-zero elements into a SparseMatrix
+	 * 
+	 * @return The sparse matrix
+	 */
+	public SparseMatrix toSparseMatrix() {
+		// A dense file is read through a Matrix over it
+		if (this.layout == MatrixLayout.DENSE) {
+			return new SparseMatrix(this.toMatrix());
+		}
+
+		// List every stored element
+		int count = (int) this.stored;
+		int[] rowIndices = new int[count], columnIndices = new int[count];
+		Fraction[] values = new Fraction[count];
+		for (int i = 0; i < this.rows; i++) {
+			for (long p = this.getRowStart(i); p < this.getRowStart(i + 1); p++) {
+				rowIndices[(int) p] = i;
+				columnIndices[(int) p] = this.getInt(this.columnOffset + 4 * p);
+				values[(int) p] = this.decode(p);
+			}
+		}
+		return new SparseMatrix(this.rows, this.columns, rowIndices,
+				columnIndices, values);
+	}
+
+	/**
+	 * Check the file against its checksum, reading every byte once
+	 * 
+	 * @return True if the contents match the checksum in the header
+	 */
+	public boolean verify() {
+		// Checksum the sections after the header
+		CRC32 checksum = new CRC32();
+		long position = HEADER_SIZE;
+		while (position < this.end) {
+			ByteBuffer chunk = this.chunks[(int) (position >>> CHUNK_BITS)]
+					.duplicate();
+			int start = (int) (position & ((1 << CHUNK_BITS) - 1));
+			int length = (int) Math.min(chunk.capacity() - start, this.end
+					- position);
+			chunk.limit(start + length).position(start);
+			checksum.update(chunk);
+			position += length;
+		}
+
+		// Then the start of the header
+		ByteBuffer header = this.chunks[0].duplicate();
+		header.limit(24).position(0);
+		checksum.update(header);
+		return checksum.getValue() == this.checksum;
+	}
+}
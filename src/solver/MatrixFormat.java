@@ -0,0 +1,33 @@
+package solver;
+
+/**
+ * The layouts a Matrix or Vector can be written in
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum MatrixFormat {
+
+	/**
+	 * Each element followed by a tab, one row per line. The layout of
+	 * toString()
+	 */
+	TAB,
+
+	/**
+	 * Elements separated by commas, one row per line
+	 */
+	CSV,
+
+	/**
+	 * Elements right aligned in columns as wide as their widest element,
+	 * separated by two spaces. Every element is formatted twice, once to
+	 * measure it
+	 */
+	ALIGNED,
+
+	/**
+	 * A LaTeX pmatrix, with fractions written as \frac
+	 */
+	LATEX
+}
@@ -0,0 +1,50 @@
+package solver;
+
+/**
+ * Thrown when text can not be read as a matrix or a fraction, giving the line
+ * and column where reading failed
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class MatrixFormatException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	// Where the problem is, counting from one
+	private final int column, line;
+
+	/**
+	 * Create the exception
+	 * 
+	 * @param message
+	 *            What went wrong
+	 * @param line
+	 *            The line of the problem, from one
+	 * @param column
+	 *            The column of the problem on its line, from one
+	 */
+	public MatrixFormatException(String message, int line, int column) {
+		super("Line " + line + ", column " + column + ": " + message);
+		this.line = line;
+		this.column = column;
+	}
+
+	/**
+	 * Get the column of the problem
+	 * 
+	 * @return The column on its line, counting characters from one
+	 */
+	public int getColumn() {
+		return this.column;
+	}
+
+	/**
+	 * Get the line of the problem
+	 * 
+	 * @return The line, from one
+	 */
+	public int getLine() {
+		return this.line;
+	}
+}
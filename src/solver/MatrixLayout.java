@@ -0,0 +1,23 @@
+package solver;
+
+/**
+ * How the elements are arranged in a {@link MatrixFile}. The order is part of
+ * the file format and must not change
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum MatrixLayout {
+
+	/**
+	 * Every element, row by row
+	 */
+	DENSE,
+
+	/**
+	 * Only the non-zero elements, in compressed sparse row form: the start of
+	 * each row as 8 byte integers, then the column of each element as 4 byte
+	 * integers, then the elements
+	 */
+	SPARSE
+}
@@ -0,0 +1,572 @@
+package solver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reads and writes matrices in the Matrix Market exchange format, in both the
+ * coordinate and array layouts, with integer, real, rational or pattern
+ * elements and general, symmetric or skew-symmetric storage. Files are read with a
+ * {@link FractionTokenizer}, so only the matrix being built grows with the
+ * size of the file. Real elements are read exactly, 0.1 is 1/10
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class MatrixMarket {
+
+	/**
+	 * The header and size line of a file
+	 */
+	private static final class Header {
+
+		// The kind of element
+		final MatrixMarketField field;
+
+		// True for the coordinate layout, false for the array layout
+		final boolean coordinate;
+
+		// True if only the lower triangle is stored, and whether the upper
+		// triangle is its negative
+		final boolean skew, symmetric;
+
+		// The number of stored elements in a coordinate file
+		final long entries;
+
+		final int columns, rows;
+
+		/**
+		 * Read the header and size line
+		 * 
+		 * @param input
+		 *            The file
+		 * @throws IOException
+		 *             If reading fails
+		 * @throws MatrixFormatException
+		 *             If the header is not valid
+		 */
+		Header(FractionTokenizer input) throws IOException {
+			// The banner names the layout, field and symmetry
+			if (!input.next() || !input.isToken("%%MatrixMarket")
+					|| !input.nextInLine() || !input.isToken("matrix")
+					|| !input.nextInLine()) {
+				throw input.error("Expected %%MatrixMarket matrix <layout> <field> <symmetry>");
+			}
+
+			// Read the layout
+			this.coordinate = input.isToken("coordinate");
+			if (!this.coordinate && !input.isToken("array")) {
+				throw input.error("Unknown layout " + input.getToken());
+			}
+
+			// Read the field
+			if (!input.nextInLine()) {
+				throw input.error("Expected a field after the layout");
+			}
+			try {
+				this.field = MatrixMarketField.valueOf(input.getToken()
+						.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				throw input.error("Unsupported field " + input.getToken());
+			}
+			if (this.field == MatrixMarketField.PATTERN && !this.coordinate) {
+				throw input.error("Pattern files must use the coordinate layout");
+			}
+
+			// Read the symmetry
+			if (!input.nextInLine()) {
+				throw input.error("Expected a symmetry after the field");
+			}
+			this.skew = input.isToken("skew-symmetric");
+			this.symmetric = this.skew || input.isToken("symmetric");
+			if (!this.symmetric && !input.isToken("general")) {
+				throw input.error("Unknown symmetry " + input.getToken());
+			}
+
+			// Comments may follow the banner
+			input.nextLine();
+			input.setComment('%');
+
+			// Read the size, symmetric matrices are square
+			this.rows = (int) MatrixMarket.nextSize(input, "a row count", 1,
+					Integer.MAX_VALUE);
+			this.columns = (int) MatrixMarket.nextSize(input,
+					"a column count", 1, Integer.MAX_VALUE);
+			if (this.symmetric && this.rows != this.columns) {
+				throw input.error("A symmetric matrix must be square");
+			}
+			this.entries = this.coordinate ? MatrixMarket.nextSize(input,
+					"an element count", 0, (long) this.rows * this.columns) : 0;
+		}
+	}
+
+	/**
+	 * Collects the elements of a file, into a Matrix or into lists for a
+	 * SparseMatrix
+	 */
+	private static final class Elements {
+
+		// The dense matrix to fill, or null to list the elements
+		private final Matrix matrix;
+
+		// The position and value of each non-zero element
+		private int[] columnIndices, rowIndices;
+		private Fraction[] values;
+
+		private int count;
+
+		/**
+		 * Collect into a Matrix
+		 * 
+		 * @param matrix
+		 *            The matrix to fill, which starts as zeroes
+		 */
+		Elements(Matrix matrix) {
+			this.matrix = matrix;
+		}
+
+		/**
+		 * Collect into lists
+		 * 
+		 * @param capacity
+		 *            The most elements there can be
+		 */
+		Elements(int capacity) {
+			this.matrix = null;
+			this.rowIndices = new int[capacity];
+			this.columnIndices = new int[capacity];
+			this.values = new Fraction[capacity];
+		}
+
+		/**
+		 * Add an element
+		 * 
+		 * @param row
+		 *            The row of the element
+		 * @param column
+		 *            The column of the element
+		 * @param value
+		 *            The element, added to any already at the position
+		 */
+		void add(int row, int column, Fraction value) {
+			if (value.isZero()) {
+				return;
+			}
+			if (this.matrix != null) {
+				this.matrix.setElement(row, column,
+						this.matrix.getElement(row, column).add(value));
+			} else {
+				this.rowIndices[this.count] = row;
+				this.columnIndices[this.count] = column;
+				this.values[this.count++] = value;
+			}
+		}
+
+		/**
+		 * Build a sparse matrix from the lists
+		 * 
+		 * @param header
+		 *            The shape of the matrix
+		 * @return The matrix
+		 */
+		SparseMatrix toSparseMatrix(Header header) {
+			return new SparseMatrix(header.rows, header.columns,
+					Arrays.copyOf(this.rowIndices, this.count),
+					Arrays.copyOf(this.columnIndices, this.count),
+					Arrays.copyOf(this.values, this.count));
+		}
+	}
+
+	// How many characters to gather before passing them on
+	private static final int FLUSH_SIZE = 1 << 13;
+
+	/**
+	 * Add an element and, for a symmetric file, its mirror image
+	 * 
+	 * @param elements
+	 *            Where to put the elements
+	 * @param header
+	 *            The header, giving the symmetry
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @param value
+	 *            The element
+	 */
+	private static void add(Elements elements, Header header, int row,
+			int column, Fraction value) {
+		elements.add(row, column, value);
+		if (header.symmetric && row != column) {
+			elements.add(column, row, header.skew ? value.negate() : value);
+		}
+	}
+
+	/**
+	 * Add an element to a text, in a field
+	 * 
+	 * @param builder
+	 *            The text
+	 * @param value
+	 *            The element
+	 * @param field
+	 *            How to write it
+	 * @throws IllegalArgumentException
+	 *             If the element is not a whole number but the field is
+	 *             INTEGER
+	 */
+	static void append(StringBuilder builder, Fraction value,
+			MatrixMarketField field) {
+		switch (field) {
+		case INTEGER:
+			if (!value.getBigDenominator().equals(BigInteger.ONE)) {
+				throw new IllegalArgumentException(value
+						+ " is not an integer");
+			}
+			value.appendTo(builder, false);
+			break;
+		case REAL:
+			builder.append(value.doubleValue());
+			break;
+		case RATIONAL:
+			value.appendTo(builder, false);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Start a file
+	 * 
+	 * @param builder
+	 *            The text to add the banner to
+	 * @param coordinate
+	 *            True for the coordinate layout, false for the array layout
+	 * @param field
+	 *            The kind of element
+	 * @param symmetric
+	 *            True if only the lower triangle is written
+	 */
+	static void banner(StringBuilder builder, boolean coordinate,
+			MatrixMarketField field, boolean symmetric) {
+		builder.append("%%MatrixMarket matrix ")
+				.append(coordinate ? "coordinate " : "array ")
+				.append(field.name().toLowerCase(Locale.ROOT))
+				.append(symmetric ? " symmetric\n" : " general\n");
+	}
+
+	/**
+	 * Pass on the text once enough has been gathered
+	 * 
+	 * @param builder
+	 *            The text
+	 * @param output
+	 *            Where to write it
+	 * @param force
+	 *            True to pass on the text whatever its length
+	 * @throws IOException
+	 *             If writing fails
+	 */
+	static void flush(StringBuilder builder, Appendable output,
+			boolean force) throws IOException {
+		if (force || builder.length() >= FLUSH_SIZE) {
+			output.append(builder);
+			builder.setLength(0);
+		}
+	}
+
+	/**
+	 * Read the next token as a count between two limits
+	 * 
+	 * @param input
+	 *            The file
+	 * @param name
+	 *            What the count is, for errors
+	 * @param minimum
+	 *            The smallest allowed value
+	 * @param maximum
+	 *            The largest allowed value
+	 * @return The count
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private static long nextSize(FractionTokenizer input, String name,
+			long minimum, long maximum) throws IOException {
+		MatrixMarket.require(input, name);
+		long value = input.getLong();
+		if (value < minimum || value > maximum) {
+			throw input.error("Expected " + name + " from " + minimum
+					+ " to " + maximum + " but found " + value);
+		}
+		return value;
+	}
+
+	/**
+	 * Read the next element
+	 * 
+	 * @param input
+	 *            The file
+	 * @param field
+	 *            The kind of element to expect
+	 * @return The element, one for a pattern file
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private static Fraction nextValue(FractionTokenizer input,
+			MatrixMarketField field) throws IOException {
+		// A pattern file only lists positions
+		if (field == MatrixMarketField.PATTERN) {
+			return Fraction.ONE;
+		}
+
+		// Read the element, which may need to be whole
+		MatrixMarket.require(input, "an element");
+		Fraction value = input.getFraction();
+		if (field == MatrixMarketField.INTEGER
+				&& !value.getBigDenominator().equals(BigInteger.ONE)) {
+			throw input.error("Expected an integer but found "
+					+ input.getToken());
+		}
+		return value;
+	}
+
+	/**
+	 * Read the elements of a file, adding each one and its mirror image
+	 * 
+	 * @param input
+	 *            The file, after the header
+	 * @param header
+	 *            The header
+	 * @param elements
+	 *            Where to put the elements
+	 * @throws IOException
+	 *             If reading fails
+	 * @throws MatrixFormatException
+	 *             If an element is not valid, or anything follows the last
+	 *             one
+	 */
+	private static void read(FractionTokenizer input, Header header,
+			Elements elements)
+			throws IOException {
+		if (header.coordinate) {
+			// Each element is listed with its position
+			for (long k = 0; k < header.entries; k++) {
+				int i = (int) MatrixMarket.nextSize(input, "a row", 1,
+						header.rows) - 1;
+				int j = (int) MatrixMarket.nextSize(input, "a column", 1,
+						header.columns) - 1;
+				MatrixMarket.add(elements, header, i, j,
+						MatrixMarket.nextValue(input, header.field));
+			}
+		} else {
+			// Elements are listed column by column, from the diagonal down
+			// when only the lower triangle is stored
+			for (int j = 0; j < header.columns; j++) {
+				int first = header.skew ? j + 1 : (header.symmetric ? j : 0);
+				for (int i = first; i < header.rows; i++) {
+					MatrixMarket.add(elements, header, i, j,
+							MatrixMarket.nextValue(input, header.field));
+				}
+			}
+		}
+
+		// Nothing may follow the elements
+		if (input.next()) {
+			throw input.error("Expected the end of the file after "
+					+ (header.coordinate ? header.entries + " elements"
+							: "the last element"));
+		}
+	}
+
+	/**
+	 * Read a file into a Matrix, filling in the triangle a symmetric file
+	 * leaves out. Elements are packed as they are read, and listed elements
+	 * at the same position are added together
+	 * 
+	 * @param reader
+	 *            The text of the file, which is not closed
+	 * @return The matrix
+	 * @throws IOException
+	 *             If reading fails
+	 * @throws MatrixFormatException
+	 *             If the text is not a valid file
+	 */
+	public static Matrix readMatrix(Reader reader) throws IOException {
+		FractionTokenizer input = new FractionTokenizer(reader);
+		Header header = new Header(input);
+		Matrix matrix = new Matrix(header.rows, header.columns,
+				StorageType.PACKED);
+		MatrixMarket.read(input, header, new Elements(matrix));
+		return matrix;
+	}
+
+	/**
+	 * Read a file into a SparseMatrix, filling in the triangle a symmetric
+	 * file leaves out. Only the non-zero elements are kept, and listed
+	 * elements at the same position are added together
+	 * 
+	 * @param reader
+	 *            The text of the file, which is not closed
+	 * @return The matrix
+	 * @throws IOException
+	 *             If reading fails
+	 * @throws MatrixFormatException
+	 *             If the text is not a valid file
+	 */
+	public static SparseMatrix readSparseMatrix(Reader reader)
+			throws IOException {
+		FractionTokenizer input = new FractionTokenizer(reader);
+		Header header = new Header(input);
+
+		// Make room for each listed element and its mirror image
+		long listed = header.coordinate ? header.entries : (long) header.rows
+				* header.columns;
+		long capacity = header.symmetric ? 2 * listed : listed;
+		if (capacity > Integer.MAX_VALUE - 8) {
+			throw input.error("Too many elements for a SparseMatrix");
+		}
+		Elements elements = new Elements((int) capacity);
+		MatrixMarket.read(input, header, elements);
+		return elements.toSparseMatrix(header);
+	}
+
+	/**
+	 * Move to the next token, which must exist
+	 * 
+	 * @param input
+	 *            The file
+	 * @param name
+	 *            What the token is, for errors
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	private static void require(FractionTokenizer input, String name)
+			throws IOException {
+		if (!input.next()) {
+			throw input.error("Expected " + name
+					+ " but reached the end of the file");
+		}
+	}
+
+	/**
+	 * Write a Matrix in the array layout, every element column by column
+	 * 
+	 * @param output
+	 *            Where to write the file
+	 * @param matrix
+	 *            The matrix
+	 * @param field
+	 *            How to write each element, INTEGER, REAL or RATIONAL
+	 * @param symmetric
+	 *            True to write only the lower triangle of a symmetric matrix
+	 * @throws IOException
+	 *             If writing fails
+	 * @throws IllegalArgumentException
+	 *             If the field is PATTERN, an element does not fit the field,
+	 *             or the matrix is not symmetric when it should be
+	 */
+	public static void write(Appendable output, Matrix matrix,
+			MatrixMarketField field, boolean symmetric) throws IOException {
+		// Check the matrix can be written this way
+		if (field == MatrixMarketField.PATTERN) {
+			throw new IllegalArgumentException(
+					"Pattern files must use the coordinate layout");
+		}
+		if (symmetric && !matrix.equals(Matrix.transpose(matrix))) {
+			throw new IllegalArgumentException("Matrix is not symmetric");
+		}
+
+		// Write the banner and size
+		StringBuilder builder = new StringBuilder();
+		MatrixMarket.banner(builder, false, field, symmetric);
+		builder.append(matrix.getRows()).append(' ')
+				.append(matrix.getColumns()).append('\n');
+
+		// Write each column, from the diagonal down if symmetric
+		for (int j = 0; j < matrix.getColumns(); j++) {
+			for (int i = symmetric ? j : 0; i < matrix.getRows(); i++) {
+				MatrixMarket.append(builder, matrix.getElement(i, j), field);
+				builder.append('\n');
+				MatrixMarket.flush(builder, output, false);
+			}
+		}
+		MatrixMarket.flush(builder, output, true);
+	}
+
+	/**
+	 * Write the non-zero elements of a SparseMatrix in the coordinate layout,
+	 * row by row
+	 * 
+	 * @param output
+	 *            Where to write the file
+	 * @param matrix
+	 *            The matrix
+	 * @param field
+	 *            How to write each element, PATTERN only writes positions
+	 * @param symmetric
+	 *            True to write only the lower triangle of a symmetric matrix
+	 * @throws IOException
+	 *             If writing fails
+	 * @throws IllegalArgumentException
+	 *             If an element does not fit the field, or the matrix is not
+	 *             symmetric when it should be
+	 */
+	public static void write(Appendable output, SparseMatrix matrix,
+			MatrixMarketField field, boolean symmetric) throws IOException {
+		int[] pointers = matrix.getRowPointers();
+		int[] columns = matrix.getColumnIndices();
+		Fraction[] values = matrix.getValues();
+
+		// Count the elements to write, checking each has its mirror image
+		long count = 0;
+		for (int i = 0; i < matrix.getRows(); i++) {
+			for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+				if (!symmetric) {
+					count++;
+				} else if (columns[p] <= i) {
+					if (!values[p].equals(matrix.getElement(columns[p], i))) {
+						throw new IllegalArgumentException(
+								"Matrix is not symmetric");
+					}
+					count++;
+				} else if (matrix.getElement(columns[p], i).isZero()) {
+					throw new IllegalArgumentException("Matrix is not symmetric");
+				}
+			}
+		}
+
+		// Write the banner and size
+		StringBuilder builder = new StringBuilder();
+		MatrixMarket.banner(builder, true, field, symmetric);
+		builder.append(matrix.getRows()).append(' ')
+				.append(matrix.getColumns()).append(' ').append(count)
+				.append('\n');
+
+		// Write each element with its position, counting from one
+		for (int i = 0; i < matrix.getRows(); i++) {
+			for (int p = pointers[i]; p < pointers[i + 1]; p++) {
+				if (symmetric && columns[p] > i) {
+					break;
+				}
+				builder.append(i + 1).append(' ').append(columns[p] + 1);
+				if (field != MatrixMarketField.PATTERN) {
+					builder.append(' ');
+					MatrixMarket.append(builder, values[p], field);
+				}
+				builder.append('\n');
+				MatrixMarket.flush(builder, output, false);
+			}
+		}
+		MatrixMarket.flush(builder, output, true);
+	}
+
+	/**
+	 * Only static methods, not meant to be created
+	 */
+	private MatrixMarket() {
+	}
+}
@@ -0,0 +1,33 @@
+package solver;
+
+/**
+ * The kinds of element a Matrix Market file can hold
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum MatrixMarketField {
+
+	/**
+	 * Whole numbers of any size
+	 */
+	INTEGER,
+
+	/**
+	 * Decimals such as 2.5 or -1e-3, read exactly. Written as the nearest
+	 * double, so only values a double can hold survive a round trip
+	 */
+	REAL,
+
+	/**
+	 * Exact fractions such as -3/4. Not part of the Matrix Market standard, a
+	 * header naming this field is only understood by this solver
+	 */
+	RATIONAL,
+
+	/**
+	 * Only the positions of the non-zero elements, which are read as one.
+	 * Coordinate files only
+	 */
+	PATTERN
+}
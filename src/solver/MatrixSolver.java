@@ -1,5 +1,14 @@
 package solver;
 
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.Scanner;
 
 /**
@@ -13,6 +22,36 @@ public class MatrixSolver {
 	// Create a Scanner object for keyboard input
 	private static Scanner keyb = new Scanner(System.in);
 
+	/**
+	 * Solve a stream of problems on every processor, reporting the
+	 * throughput and latency on stderr when done
+	 * 
+	 * @param file
+	 *            The file to read, or null for stdin
+	 * @param format
+	 *            How to write matrices
+	 * @param output
+	 *            Where to write results
+	 * @throws IOException
+	 *             If reading or writing fails
+	 */
+	private static void batch(String file, MatrixFormat format, Writer output)
+			throws IOException {
+		// Read the file, or stdin
+		Reader input = (file == null) ? new InputStreamReader(System.in)
+				: new FileReader(file);
+
+		try {
+			// Keep a few problems queued for each worker
+			int threads = Runtime.getRuntime().availableProcessors();
+			BatchProcessor processor = new BatchProcessor(threads, 4 * threads,
+					format);
+			System.err.println(processor.process(input, output));
+		} finally {
+			input.close();
+		}
+	}
+
 	/**
 	 * Get the matrix from the user
 	 * 
@@ -28,14 +67,25 @@ public class MatrixSolver {
 
 		// Get all the rows from the user
 		for (int i = 0; i < rows; i++) {
-			// Get a row at a time from the user, trim it and split at spaces
+			// Get a row at a time from the user
 			System.out.printf("Enter %d element%s for row %d: ", columns,
 					((columns > 1) ? "s" : ""), i + 1);
-			String[] elements = keyb.nextLine().trim().split(" ");
-
-			// Iterate through entered row and add each element to the array
-			for (int j = 0; j < columns; j++) {
-				userMatrix[i][j] = new Fraction(elements[j]);
+			FractionTokenizer tokenizer = new FractionTokenizer(keyb.nextLine());
+			tokenizer.setLine(i + 1);
+
+			try {
+				// Read every element of the row, separated by any spaces
+				if (!tokenizer.readRow(userMatrix[i])) {
+					throw new MatrixFormatException("Expected " + columns
+							+ " elements but found none", i + 1, 1);
+				}
+			} catch (MatrixFormatException e) {
+				// Ask for the row again
+				System.out.println(e.getMessage());
+				i--;
+			} catch (IOException e) {
+				// A String never throws
+				throw new UncheckedIOException(e);
 			}
 		}
 
@@ -45,12 +95,91 @@ public class MatrixSolver {
 
 	/**
 	 * Handles the creation and manipulation of a matrix Using a simple user
-	 * interface
+	 * interface. Results are written to stdout unless a file is given
 	 * 
 	 * @param args
-	 *            Command line arguments, currently not used
+	 *            Command line arguments, --format tab|csv|aligned|latex sets
+	 *            how matrices are written, --output FILE writes results to a
+	 *            file, --batch [FILE] solves every problem in a file or stdin
+	 *            without prompting, see {@link BatchProcessor}
 	 */
 	public static void main(String[] args) {
+		// Read the options
+		MatrixFormat format = MatrixFormat.TAB;
+		String file = null, batchFile = null;
+		boolean batch = false;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--format") && i + 1 < args.length) {
+				try {
+					format = MatrixFormat.valueOf(args[++i].toUpperCase());
+				} catch (IllegalArgumentException e) {
+					System.out.println("Unknown format: " + args[i]);
+					return;
+				}
+			} else if (args[i].equals("--output") && i + 1 < args.length) {
+				file = args[++i];
+			} else if (args[i].equals("--batch")) {
+				// The file is optional, stdin is read without one
+				batch = true;
+				if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+					batchFile = args[++i];
+				}
+			} else {
+				System.out.println("Usage: MatrixSolver [--format "
+						+ "tab|csv|aligned|latex] [--output FILE] "
+						+ "[--batch [FILE]]");
+				return;
+			}
+		}
+
+		// Open where results go, buffered so large matrices stream quickly
+		Writer output;
+		try {
+			output = new BufferedWriter((file == null) ? new OutputStreamWriter(
+					System.out) : new FileWriter(file));
+		} catch (IOException e) {
+			System.out.println("Could not open " + file + ": "
+					+ e.getMessage());
+			return;
+		}
+
+		try {
+			if (batch) {
+				batch(batchFile, format, output);
+			} else {
+				solve(format, output);
+			}
+			output.flush();
+		} catch (IOException e) {
+			System.out.println("Could not write results: " + e.getMessage());
+		} finally {
+			// Close a file, but leave stdout open
+			try {
+				if (file != null) {
+					output.close();
+				}
+			} catch (IOException e) {
+				System.out.println("Could not close " + file + ": "
+						+ e.getMessage());
+			}
+		}
+
+		// Program ends here, close scanner
+		keyb.close();
+	}
+
+	/**
+	 * Read a matrix from the user and solve it the way they choose
+	 * 
+	 * @param format
+	 *            How to write matrices
+	 * @param output
+	 *            Where to write results
+	 * @throws IOException
+	 *             If writing a result fails
+	 */
+	private static void solve(MatrixFormat format, Writer output)
+			throws IOException {
 		// Get matrix dimensions from user
 		System.out.print("Enter height of matrix: ");
 		int rows = Integer.parseInt(keyb.nextLine());
@@ -81,21 +210,39 @@ public class MatrixSolver {
 				System.out.println("Enter solutions vector");
 				Matrix solutionMatrix = buildMatrix(1, userMatrix.getRows());
 
-				// Find the solutions using the Matrix and the solutions matrix
-				Fraction[] solutions = Matrix.findSolution(userMatrix,
-						solutionMatrix);
-
-				// Traverse the solutions
-				for (int i = 0; i < solutions.length; i++) {
-					// Print each solution
-					System.out.printf("X%d = %s\n", i + 1, solutions[i]);
+				try {
+					// Find the solutions using the Matrix and the solutions
+					// matrix
+					Fraction[] solutions = Matrix.findSolution(userMatrix,
+							solutionMatrix);
+
+					// Traverse the solutions
+					for (int i = 0; i < solutions.length; i++) {
+						// Write each solution
+						output.write("X" + (i + 1) + " = " + solutions[i]
+								+ "\n");
+					}
+				} catch (ArithmeticException e) {
+					// A singular matrix has no unique solution
+					output.write("The matrix is singular, "
+							+ "there is no unique solution\n");
 				}
 			} else {
-				// Create a SolverAI object
+				// Create a SolverAI object that keeps each operation
 				SolverAI ai = new SolverAI(userMatrix);
+				ai.setRecorder(new StepRecorder(TraceLevel.OPERATIONS));
 
-				// Print an attempt at solving
-				System.out.println(ai.solve());
+				// Print the steps, the reduced matrix, its rank and the free
+				// variables
+				Matrix reduced = ai.solve();
+				for (SolverStep step : ai.getRecorder().getSteps()) {
+					output.write(step + "\n");
+				}
+				reduced.write(output, format);
+				output.write("Rank: " + ai.getRank() + "\n");
+				for (int column : ai.getFreeColumns()) {
+					output.write("X" + (column + 1) + " is free\n");
+				}
 			}
 			break;
 		default:
@@ -103,9 +250,6 @@ public class MatrixSolver {
 			System.out.println("~~~MATRIX~~~\n" + userMatrix);
 			break;
 		}
-
-		// Program ends here, close scanner
-		keyb.close();
 	}
 
 	/**
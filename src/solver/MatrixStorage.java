@@ -0,0 +1,141 @@
+package solver;
+
+/**
+ * The backing store for the elements of a Matrix or Vector. Elements are
+ * addressed by row and column, and each implementation decides how they are
+ * laid out in memory
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+abstract class MatrixStorage {
+
+	/**
+	 * Creates an empty store of the requested type, filled with zeroes
+	 * 
+	 * @param type
+	 *            The kind of store to create
+	 * @param rows
+	 *            The number of rows
+	 * @param columns
+	 *            The number of columns
+	 * @return A zero filled store
+	 */
+	static MatrixStorage create(StorageType type, int rows, int columns) {
+		switch (type) {
+		case PACKED:
+			return new PackedStorage(rows, columns);
+		default:
+			return new ObjectStorage(rows, columns);
+		}
+	}
+
+	/**
+	 * Get an element
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @return The element at the row and column
+	 */
+	abstract Fraction get(int row, int column);
+
+	/**
+	 * Get the number of columns
+	 * 
+	 * @return The columns in the store
+	 */
+	abstract int getColumns();
+
+	/**
+	 * Creates an unlinked copy of the store, of the same type
+	 * 
+	 * @return The copy
+	 */
+	abstract MatrixStorage getCopy();
+
+	/**
+	 * Get a row of the store
+	 * 
+	 * @param row
+	 *            The index of the row
+	 * @return The elements of the row, which may or may not be linked to the
+	 *         store depending on the type
+	 */
+	abstract Fraction[] getRow(int row);
+
+	/**
+	 * Get the number of rows
+	 * 
+	 * @return The rows in the store
+	 */
+	abstract int getRows();
+
+	/**
+	 * Get the type of the store
+	 * 
+	 * @return The storage type
+	 */
+	abstract StorageType getType();
+
+	/**
+	 * Set an element
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @param value
+	 *            The new value
+	 */
+	abstract void set(int row, int column, Fraction value);
+
+	/**
+	 * Assign a row
+	 * 
+	 * @param row
+	 *            The index of the row
+	 * @param values
+	 *            The new elements of the row
+	 */
+	abstract void setRow(int row, Fraction[] values);
+
+	/**
+	 * Swap two rows
+	 * 
+	 * @param firstRow
+	 *            The first row to swap
+	 * @param secondRow
+	 *            The second row to swap
+	 */
+	abstract void swapRows(int firstRow, int secondRow);
+
+	/**
+	 * Get every element as a 2d array
+	 * 
+	 * @return The elements, which may or may not be linked to the store
+	 *         depending on the type
+	 */
+	Fraction[][] toArray() {
+		// Create an array for the rows
+		Fraction[][] array = new Fraction[this.getRows()][];
+
+		// Fill each row
+		for (int i = 0; i < array.length; i++) {
+			array[i] = this.getRow(i);
+		}
+
+		// Return the array
+		return array;
+	}
+
+	/**
+	 * Get a store that can be changed with the same elements
+	 * 
+	 * @return This store, or a copy of it if this one is read-only
+	 */
+	MatrixStorage toWritable() {
+		return this;
+	}
+}
@@ -0,0 +1,180 @@
+package solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes the elements of a MatrixStorage to an Appendable in a MatrixFormat.
+ * Elements are formatted into one reused buffer, which is handed to the
+ * Appendable in large pieces, so the cost is linear in the size of the output
+ * and values are only read
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+final class MatrixWriter {
+
+	// How many characters to gather before passing them on
+	private static final int FLUSH_SIZE = 1 << 13;
+
+	/**
+	 * Get an element, reading the store as its transpose if asked to
+	 * 
+	 * @param storage
+	 *            The elements
+	 * @param transposed
+	 *            True to swap rows and columns
+	 * @param row
+	 *            The row to read
+	 * @param column
+	 *            The column to read
+	 * @return The element
+	 */
+	private static Fraction get(MatrixStorage storage, boolean transposed,
+			int row, int column) {
+		return transposed ? storage.get(column, row) : storage.get(row, column);
+	}
+
+	/**
+	 * Write elements to a String
+	 * 
+	 * @param storage
+	 *            The elements
+	 * @param transposed
+	 *            True to write the columns of the store as rows
+	 * @param format
+	 *            The layout to use
+	 * @return The text
+	 */
+	static String toString(MatrixStorage storage, boolean transposed,
+			MatrixFormat format) {
+		StringBuilder builder = new StringBuilder();
+		try {
+			MatrixWriter.write(storage, transposed, format, builder);
+		} catch (IOException e) {
+			// A StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Find how wide each column is when formatted
+	 * 
+	 * @param storage
+	 *            The elements
+	 * @param transposed
+	 *            True to swap rows and columns
+	 * @param rows
+	 *            The rows to write
+	 * @param columns
+	 *            The columns to write
+	 * @param buffer
+	 *            A buffer to format into, left empty
+	 * @return The length of the longest element in each column
+	 */
+	private static int[] widths(MatrixStorage storage, boolean transposed,
+			int rows, int columns, StringBuilder buffer) {
+		int[] widths = new int[columns];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				buffer.setLength(0);
+				MatrixWriter.get(storage, transposed, i, j).appendTo(buffer,
+						false);
+				widths[j] = Math.max(widths[j], buffer.length());
+			}
+		}
+		buffer.setLength(0);
+		return widths;
+	}
+
+	/**
+	 * Write elements to an Appendable
+	 * 
+	 * @param storage
+	 *            The elements
+	 * @param transposed
+	 *            True to write the columns of the store as rows
+	 * @param format
+	 *            The layout to use
+	 * @param out
+	 *            Where to write
+	 * @throws IOException
+	 *             If the Appendable fails
+	 */
+	static void write(MatrixStorage storage, boolean transposed,
+			MatrixFormat format, Appendable out) throws IOException {
+		// Find the shape to write
+		int rows = transposed ? storage.getColumns() : storage.getRows();
+		int columns = transposed ? storage.getRows() : storage.getColumns();
+		StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 256);
+
+		// Aligned columns need the width of each column first
+		int[] widths = (format == MatrixFormat.ALIGNED) ? MatrixWriter.widths(
+				storage, transposed, rows, columns, buffer) : null;
+		if (format == MatrixFormat.LATEX) {
+			buffer.append("\\begin{pmatrix}\n");
+		}
+
+		// Write each row
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				Fraction element = MatrixWriter.get(storage, transposed, i, j);
+				switch (format) {
+				case TAB:
+					element.appendTo(buffer, false);
+					buffer.append('\t');
+					break;
+				case CSV:
+					if (j > 0) {
+						buffer.append(',');
+					}
+					element.appendTo(buffer, false);
+					break;
+				case ALIGNED:
+					// Pad on the left to the width of the column
+					if (j > 0) {
+						buffer.append("  ");
+					}
+					int start = buffer.length();
+					element.appendTo(buffer, false);
+					int padding = widths[j] - (buffer.length() - start);
+					for (int k = 0; k < padding; k++) {
+						buffer.insert(start, ' ');
+					}
+					break;
+				default:
+					if (j > 0) {
+						buffer.append(" & ");
+					}
+					element.appendTo(buffer, true);
+					break;
+				}
+			}
+
+			// End the row
+			if (format == MatrixFormat.LATEX && i < rows - 1) {
+				buffer.append(" \\\\");
+			}
+			buffer.append('\n');
+
+			// Pass on what has been gathered once it is large enough
+			if (buffer.length() >= FLUSH_SIZE) {
+				out.append(buffer);
+				buffer.setLength(0);
+			}
+		}
+
+		// Finish and pass on the rest
+		if (format == MatrixFormat.LATEX) {
+			buffer.append("\\end{pmatrix}\n");
+		}
+		out.append(buffer);
+	}
+
+	/**
+	 * Only static methods, not meant to be created
+	 */
+	private MatrixWriter() {
+	}
+}
@@ -0,0 +1,395 @@
+package solver;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds determinants with multi-modular arithmetic. Each row is scaled to
+ * integers, then the determinant is found modulo enough primes to cover the
+ * Hadamard bound, using only long arithmetic, and rebuilt with the Chinese
+ * Remainder Theorem. No value during the elimination grows past a word, and
+ * the primes are independent so they run on a fork/join pool
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+final class ModularDeterminant {
+
+	/**
+	 * Finds the determinant modulo a range of primes, splitting the range
+	 * until it is one prime
+	 */
+	private static class ResidueTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final BigInteger[][] rows;
+
+		private final long[] primes, residues;
+
+		private final int first, last;
+
+		/**
+		 * Create a task for some of the primes
+		 * 
+		 * @param rows
+		 *            The integer matrix, which is not changed
+		 * @param primes
+		 *            All of the primes
+		 * @param residues
+		 *            The array to put the determinant modulo each prime in
+		 * @param first
+		 *            The index of the first prime to use
+		 * @param last
+		 *            The index after the last prime to use
+		 */
+		ResidueTask(BigInteger[][] rows, long[] primes, long[] residues,
+				int first, int last) {
+			this.rows = rows;
+			this.primes = primes;
+			this.residues = residues;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute() {
+			// Work on a single prime directly
+			if (this.last - this.first == 1) {
+				long prime = this.primes[this.first];
+				this.residues[this.first] = ModularDeterminant.determinant(
+						ModularDeterminant.reduce(this.rows, prime), prime);
+				return;
+			}
+
+			// Split the primes in half, each task writes its own residues
+			int middle = (this.first + this.last) >>> 1;
+			invokeAll(new ResidueTask(this.rows, this.primes, this.residues,
+					this.first, middle), new ResidueTask(this.rows,
+					this.primes, this.residues, middle, this.last));
+		}
+	}
+
+	// The largest prime used, every product of two residues fits in a long
+	private static final long LARGEST_PRIME = Integer.MAX_VALUE;
+
+	// Smallest size whose primes are worth running in parallel
+	private static final int PARALLEL_SIZE = 24;
+
+	// Bases that make Miller-Rabin exact for every number below 2^32
+	private static final long[] WITNESSES = { 2, 7, 61 };
+
+	/**
+	 * Get the determinant of a square matrix
+	 * 
+	 * @param matrix
+	 *            The matrix, which is not changed
+	 * @return The determinant of the matrix
+	 */
+	static Fraction determinant(Matrix matrix) {
+		// Scale every row to integers, keeping the product of the scales
+		int size = matrix.getRows();
+		BigInteger scale = BigInteger.ONE;
+		BigInteger[][] rows = new BigInteger[size][size];
+		for (int i = 0; i < size; i++) {
+			scale = scale.multiply(Bareiss.scaleRow(matrix, i, rows[i]));
+		}
+
+		// Return the determinant of the integers, undoing the scales
+		return Fraction.valueOf(determinant(rows), scale);
+	}
+
+	/**
+	 * Get the determinant of a square integer matrix
+	 * 
+	 * @param rows
+	 *            The rows of the matrix, which are not changed
+	 * @return The determinant
+	 */
+	static BigInteger determinant(BigInteger[][] rows) {
+		// Find enough primes for their product to pass twice the bound, so
+		// negative determinants can be told apart
+		long[] primes = primes(hadamardBits(rows) + 1);
+
+		// Find the determinant modulo each prime
+		long[] residues = new long[primes.length];
+		ResidueTask task = new ResidueTask(rows, primes, residues, 0,
+				primes.length);
+		if (rows.length >= PARALLEL_SIZE && primes.length > 1) {
+			ForkJoinPool.commonPool().invoke(task);
+		} else {
+			for (int k = 0; k < primes.length; k++) {
+				residues[k] = determinant(reduce(rows, primes[k]), primes[k]);
+			}
+		}
+
+		// Rebuild the determinant from the residues
+		return reconstruct(residues, primes);
+	}
+
+	/**
+	 * Get the determinant of a square matrix modulo a prime
+	 * 
+	 * @param rows
+	 *            The rows of the matrix, already reduced modulo the prime,
+	 *            which are overwritten
+	 * @param prime
+	 *            The prime, less than 2^31
+	 * @return The determinant, from 0 to prime - 1
+	 */
+	static long determinant(long[][] rows, long prime) {
+		// Track the product of the pivots
+		int size = rows.length;
+		long determinant = 1;
+
+		// Eliminate below each pivot
+		for (int k = 0; k < size; k++) {
+			// Find a row with a non-zero pivot, swapping it into place
+			if (rows[k][k] == 0) {
+				int pivot = k + 1;
+				while (pivot < size && rows[pivot][k] == 0) {
+					pivot++;
+				}
+
+				// A column of zeroes makes the matrix singular
+				if (pivot == size) {
+					return 0;
+				}
+				long[] temp = rows[k];
+				rows[k] = rows[pivot];
+				rows[pivot] = temp;
+				determinant = prime - determinant;
+			}
+
+			// Multiply in the pivot, then divide the rows below by it
+			long[] pivotRow = rows[k];
+			determinant = determinant * pivotRow[k] % prime;
+			long inverse = power(pivotRow[k], prime - 2, prime);
+			for (int i = k + 1; i < size; i++) {
+				long[] row = rows[i];
+				if (row[k] == 0) {
+					continue;
+				}
+
+				// Subtract a multiple of the pivot row, each value stays
+				// below the prime
+				long multiple = prime - row[k] * inverse % prime;
+				for (int j = k + 1; j < size; j++) {
+					row[j] = (row[j] + multiple * pivotRow[j]) % prime;
+				}
+			}
+		}
+
+		// Return the product of the pivots
+		return determinant;
+	}
+
+	/**
+	 * Find how many bits the Hadamard bound on a determinant needs. The
+	 * absolute value of the determinant is at most the product of the lengths
+	 * of the rows
+	 * 
+	 * @param rows
+	 *            The rows of an integer matrix
+	 * @return The number of bits in the bound, rounded up
+	 */
+	private static int hadamardBits(BigInteger[][] rows) {
+		// Add up the bits of each row length
+		int bits = 0;
+		for (BigInteger[] row : rows) {
+			BigInteger squares = BigInteger.ZERO;
+			for (BigInteger element : row) {
+				squares = squares.add(element.multiply(element));
+			}
+
+			// A zero row means the determinant is zero
+			if (squares.signum() == 0) {
+				return 0;
+			}
+
+			// The square root of a number with b bits has at most (b + 1) / 2
+			bits += (squares.bitLength() + 1) / 2;
+		}
+
+		// Return the total
+		return bits;
+	}
+
+	/**
+	 * Checks if a number below 2^32 is prime with deterministic Miller-Rabin
+	 * 
+	 * @param number
+	 *            The number to check
+	 * @return True if the number is prime
+	 */
+	private static boolean isPrime(long number) {
+		// Handle small numbers and even numbers directly
+		if (number < 2) {
+			return false;
+		}
+		for (long witness : WITNESSES) {
+			if (number == witness) {
+				return true;
+			}
+		}
+		if (number % 2 == 0) {
+			return false;
+		}
+
+		// Write number - 1 as odd * 2^twos
+		long odd = number - 1;
+		int twos = 0;
+		while (odd % 2 == 0) {
+			odd /= 2;
+			twos++;
+		}
+
+		// Each witness must see either 1 or -1 along the chain of squares
+		for (long witness : WITNESSES) {
+			long x = power(witness, odd, number);
+			if (x == 1 || x == number - 1) {
+				continue;
+			}
+			boolean composite = true;
+			for (int i = 1; i < twos && composite; i++) {
+				x = x * x % number;
+				composite = x != number - 1;
+			}
+			if (composite) {
+				return false;
+			}
+		}
+
+		// Every witness passed
+		return true;
+	}
+
+	/**
+	 * Raise a number to a power modulo a number below 2^32
+	 * 
+	 * @param base
+	 *            The base, already reduced
+	 * @param exponent
+	 *            The exponent, at least 0
+	 * @param modulus
+	 *            The modulus
+	 * @return base^exponent mod modulus
+	 */
+	private static long power(long base, long exponent, long modulus) {
+		// Square and multiply
+		long result = 1;
+		while (exponent > 0) {
+			if ((exponent & 1) != 0) {
+				result = result * base % modulus;
+			}
+			base = base * base % modulus;
+			exponent >>= 1;
+		}
+
+		// Return the power
+		return result;
+	}
+
+	/**
+	 * Find the largest primes below 2^31 whose product has more than a number
+	 * of bits
+	 * 
+	 * @param bits
+	 *            The number of bits to pass
+	 * @return The primes, largest first
+	 */
+	private static long[] primes(int bits) {
+		// Each prime is above 2^30, so adds at least 30 bits
+		long[] primes = new long[bits / 30 + 1];
+
+		// Take primes downwards until the product is large enough
+		int count = 0;
+		long candidate = LARGEST_PRIME;
+		while (count < primes.length) {
+			if (isPrime(candidate)) {
+				primes[count++] = candidate;
+			}
+			candidate -= 2;
+		}
+
+		// Return the primes
+		return primes;
+	}
+
+	/**
+	 * Combine residues into the unique value between -M/2 and M/2, where M is
+	 * the product of the primes, using Garner's mixed radix form
+	 * 
+	 * @param residues
+	 *            The value modulo each prime
+	 * @param primes
+	 *            The primes
+	 * @return The value
+	 */
+	private static BigInteger reconstruct(long[] residues, long[] primes) {
+		// Start from the first residue
+		BigInteger value = BigInteger.valueOf(residues[0]);
+		BigInteger modulus = BigInteger.valueOf(primes[0]);
+
+		// Add each prime in turn, keeping value correct modulo the product
+		for (int k = 1; k < primes.length; k++) {
+			long prime = primes[k];
+
+			// Solve value + modulus * t = residue (mod prime) for t
+			long current = value.mod(BigInteger.valueOf(prime)).longValue();
+			long inverse = power(modulus.mod(BigInteger.valueOf(prime))
+					.longValue(), prime - 2, prime);
+			long t = (residues[k] - current + prime) % prime * inverse % prime;
+
+			// Move to the larger modulus
+			value = value.add(modulus.multiply(BigInteger.valueOf(t)));
+			modulus = modulus.multiply(BigInteger.valueOf(prime));
+		}
+
+		// Values above half the modulus are negative
+		if (value.shiftLeft(1).compareTo(modulus) > 0) {
+			value = value.subtract(modulus);
+		}
+
+		// Return the value
+		return value;
+	}
+
+	/**
+	 * Reduce an integer matrix modulo a prime
+	 * 
+	 * @param rows
+	 *            The rows of the matrix, which are not changed
+	 * @param prime
+	 *            The prime
+	 * @return The matrix with every element from 0 to prime - 1
+	 */
+	private static long[][] reduce(BigInteger[][] rows, long prime) {
+		// Create the reduced matrix
+		long[][] reduced = new long[rows.length][];
+		BigInteger modulus = BigInteger.valueOf(prime);
+
+		// Reduce each element, directly when it fits in a long
+		for (int i = 0; i < rows.length; i++) {
+			BigInteger[] row = rows[i];
+			reduced[i] = new long[row.length];
+			for (int j = 0; j < row.length; j++) {
+				if (row[j].bitLength() < 64) {
+					reduced[i][j] = Math.floorMod(row[j].longValue(), prime);
+				} else {
+					reduced[i][j] = row[j].mod(modulus).longValue();
+				}
+			}
+		}
+
+		// Return the reduced matrix
+		return reduced;
+	}
+
+	/**
+	 * Only static methods, not meant to be created
+	 */
+	private ModularDeterminant() {
+	}
+}
@@ -0,0 +1,23 @@
+package solver;
+
+/**
+ * The algorithms a Matrix can use to multiply by another
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum MultiplicationMethod {
+
+	/**
+	 * Dot products of rows and columns, n^3 scalar multiplications
+	 */
+	CLASSIC,
+
+	/**
+	 * Strassen's recursive multiplication in Winograd's form, 7 half size
+	 * products instead of 8, about n^2.81 scalar multiplications. Exact
+	 * products are expensive next to additions, so it pays off on smaller
+	 * matrices than it does with doubles
+	 */
+	STRASSEN
+}
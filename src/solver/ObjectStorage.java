@@ -0,0 +1,112 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Stores each element as a Fraction in a 2d array
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+class ObjectStorage extends MatrixStorage {
+
+	private Fraction[][] matrix;
+
+	private int columns;
+
+	/**
+	 * Wraps a 2d Fraction array, without copying it
+	 * 
+	 * @param matrix
+	 *            The elements to store
+	 */
+	ObjectStorage(Fraction[][] matrix) {
+		this.matrix = matrix;
+		this.columns = matrix[0].length;
+	}
+
+	/**
+	 * Creates a store filled with zeroes
+	 * 
+	 * @param rows
+	 *            The number of rows
+	 * @param columns
+	 *            The number of columns
+	 */
+	ObjectStorage(int rows, int columns) {
+		// Create a sized array
+		this.matrix = new Fraction[rows][columns];
+		this.columns = columns;
+
+		// Fill the array with the shared zero
+		for (int i = 0; i < rows; i++) {
+			Arrays.fill(this.matrix[i], Fraction.ZERO);
+		}
+	}
+
+	@Override
+	Fraction get(int row, int column) {
+		return this.matrix[row][column];
+	}
+
+	@Override
+	int getColumns() {
+		return this.columns;
+	}
+
+	@Override
+	MatrixStorage getCopy() {
+		// Create an array for the rows of the copy
+		Fraction[][] copy = new Fraction[this.matrix.length][];
+
+		// Fractions are immutable, so only the rows need copying
+		for (int i = 0; i < copy.length; i++) {
+			copy[i] = this.matrix[i].clone();
+		}
+
+		// Return the copy
+		return new ObjectStorage(copy);
+	}
+
+	@Override
+	Fraction[] getRow(int row) {
+		return this.matrix[row];
+	}
+
+	@Override
+	int getRows() {
+		return this.matrix.length;
+	}
+
+	@Override
+	StorageType getType() {
+		return StorageType.OBJECT;
+	}
+
+	@Override
+	void set(int row, int column, Fraction value) {
+		this.matrix[row][column] = value;
+	}
+
+	@Override
+	void setRow(int row, Fraction[] values) {
+		this.matrix[row] = values;
+	}
+
+	@Override
+	void swapRows(int firstRow, int secondRow) {
+		// Store first row temporarily
+		Fraction[] tempRow = this.matrix[firstRow];
+
+		// Swap first with second
+		this.matrix[firstRow] = this.matrix[secondRow];
+
+		// Swap second with first
+		this.matrix[secondRow] = tempRow;
+	}
+
+	@Override
+	Fraction[][] toArray() {
+		return this.matrix;
+	}
+}
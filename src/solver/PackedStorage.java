@@ -0,0 +1,277 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * Stores numerators and denominators in flat primitive arrays, row by row.
+ * The arrays start as ints and are widened to longs the first time a value
+ * does not fit, values too large for a long are kept aside as Fractions
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+class PackedStorage extends MatrixStorage {
+
+	/**
+	 * Swap two elements of an array
+	 * 
+	 * @param array
+	 *            The array
+	 * @param first
+	 *            The first index
+	 * @param second
+	 *            The second index
+	 */
+	private static void swap(int[] array, int first, int second) {
+		int temp = array[first];
+		array[first] = array[second];
+		array[second] = temp;
+	}
+
+	/**
+	 * Swap two elements of an array
+	 * 
+	 * @param array
+	 *            The array
+	 * @param first
+	 *            The first index
+	 * @param second
+	 *            The second index
+	 */
+	private static void swap(long[] array, int first, int second) {
+		long temp = array[first];
+		array[first] = array[second];
+		array[second] = temp;
+	}
+
+	// Numerators and denominators while every value fits in an int, or null
+	private int[] intNumerators, intDenominators;
+
+	// Numerators and denominators once the store is widened, or null
+	private long[] longNumerators, longDenominators;
+
+	// Values too large for a long, marked by a zero denominator, or null
+	private Fraction[] spilled;
+
+	private int columns, rows;
+
+	/**
+	 * Creates a store filled with zeroes
+	 * 
+	 * @param rows
+	 *            The number of rows
+	 * @param columns
+	 *            The number of columns
+	 * @throws IllegalArgumentException
+	 *             If there are too many elements to hold in one array
+	 */
+	PackedStorage(int rows, int columns) {
+		// Store parameters
+		this.rows = rows;
+		this.columns = columns;
+
+		// Every element must have an index in a single array
+		int size;
+		try {
+			size = Math.multiplyExact(rows, columns);
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("A " + rows + "x" + columns
+					+ " matrix is too large for packed storage");
+		}
+
+		// Every element starts as 0/1
+		this.intNumerators = new int[size];
+		this.intDenominators = new int[size];
+		Arrays.fill(this.intDenominators, 1);
+	}
+
+	/**
+	 * Creates a copy of another packed store
+	 * 
+	 * @param other
+	 *            The store to copy
+	 */
+	private PackedStorage(PackedStorage other) {
+		// Copy the dimensions
+		this.rows = other.rows;
+		this.columns = other.columns;
+
+		// Copy whichever arrays are in use
+		if (other.intNumerators != null) {
+			this.intNumerators = other.intNumerators.clone();
+			this.intDenominators = other.intDenominators.clone();
+		} else {
+			this.longNumerators = other.longNumerators.clone();
+			this.longDenominators = other.longDenominators.clone();
+		}
+		if (other.spilled != null) {
+			this.spilled = other.spilled.clone();
+		}
+	}
+
+	@Override
+	Fraction get(int row, int column) {
+		// Elements are stored row by row
+		int index = row * this.columns + column;
+
+		// Read from whichever arrays are in use
+		long numerator, denominator;
+		if (this.intNumerators != null) {
+			numerator = this.intNumerators[index];
+			denominator = this.intDenominators[index];
+		} else {
+			numerator = this.longNumerators[index];
+			denominator = this.longDenominators[index];
+		}
+
+		// A zero denominator marks a value that was too large
+		if (denominator == 0) {
+			return this.spilled[index];
+		}
+
+		// The parts were stored in lowest terms
+		return Fraction.canonical(numerator, denominator);
+	}
+
+	@Override
+	int getColumns() {
+		return this.columns;
+	}
+
+	@Override
+	MatrixStorage getCopy() {
+		return new PackedStorage(this);
+	}
+
+	@Override
+	Fraction[] getRow(int row) {
+		// Create an array for the row
+		Fraction[] values = new Fraction[this.columns];
+
+		// Read each element of the row
+		for (int i = 0; i < this.columns; i++) {
+			values[i] = this.get(row, i);
+		}
+
+		// Return the row
+		return values;
+	}
+
+	@Override
+	int getRows() {
+		return this.rows;
+	}
+
+	@Override
+	StorageType getType() {
+		return StorageType.PACKED;
+	}
+
+	@Override
+	void set(int row, int column, Fraction value) {
+		// Elements are stored row by row
+		int index = row * this.columns + column;
+
+		// Values too large for a long are kept aside
+		if (!value.isLong()) {
+			this.spill(index, value);
+			return;
+		}
+
+		// Drop any large value that was here before
+		if (this.spilled != null) {
+			this.spilled[index] = null;
+		}
+
+		// Get the parts of the value
+		long numerator = value.getNumerator();
+		long denominator = value.getDenominator();
+
+		// Widen the store the first time a value does not fit in an int
+		if (this.intNumerators != null) {
+			if (numerator == (int) numerator && denominator == (int) denominator) {
+				this.intNumerators[index] = (int) numerator;
+				this.intDenominators[index] = (int) denominator;
+				return;
+			}
+			this.widen();
+		}
+
+		// Store the parts in the long arrays
+		this.longNumerators[index] = numerator;
+		this.longDenominators[index] = denominator;
+	}
+
+	@Override
+	void setRow(int row, Fraction[] values) {
+		// Copy each element into the store
+		for (int i = 0; i < this.columns; i++) {
+			this.set(row, i, values[i]);
+		}
+	}
+
+	/**
+	 * Keep a value that is too large for a long
+	 * 
+	 * @param index
+	 *            The position of the value in the arrays
+	 * @param value
+	 *            The value to keep
+	 */
+	private void spill(int index, Fraction value) {
+		// Create the array for large values the first time it is needed
+		if (this.spilled == null) {
+			this.spilled = new Fraction[this.rows * this.columns];
+		}
+		this.spilled[index] = value;
+
+		// Mark the position with a zero denominator
+		if (this.intNumerators != null) {
+			this.intDenominators[index] = 0;
+		} else {
+			this.longDenominators[index] = 0;
+		}
+	}
+
+	@Override
+	void swapRows(int firstRow, int secondRow) {
+		// Find the start of both rows
+		int first = firstRow * this.columns;
+		int second = secondRow * this.columns;
+
+		// Swap the rows one element at a time, in every array in use
+		for (int i = 0; i < this.columns; i++) {
+			if (this.intNumerators != null) {
+				swap(this.intNumerators, first + i, second + i);
+				swap(this.intDenominators, first + i, second + i);
+			} else {
+				swap(this.longNumerators, first + i, second + i);
+				swap(this.longDenominators, first + i, second + i);
+			}
+			if (this.spilled != null) {
+				Fraction temp = this.spilled[first + i];
+				this.spilled[first + i] = this.spilled[second + i];
+				this.spilled[second + i] = temp;
+			}
+		}
+	}
+
+	/**
+	 * Move every value from the int arrays to long arrays
+	 */
+	private void widen() {
+		// Create the long arrays
+		this.longNumerators = new long[this.intNumerators.length];
+		this.longDenominators = new long[this.intDenominators.length];
+
+		// Copy every value across
+		for (int i = 0; i < this.longNumerators.length; i++) {
+			this.longNumerators[i] = this.intNumerators[i];
+			this.longDenominators[i] = this.intDenominators[i];
+		}
+
+		// The int arrays are no longer used
+		this.intNumerators = null;
+		this.intDenominators = null;
+	}
+}
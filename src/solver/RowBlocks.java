@@ -0,0 +1,138 @@
+package solver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits work over a range of rows into contiguous blocks and runs them on
+ * the common fork/join pool. Each row is handled by exactly one block, so as
+ * long as rows are independent the result is the same as running them in
+ * order on one thread
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+final class RowBlocks {
+
+	/**
+	 * Work on a range of rows
+	 */
+	interface Body {
+
+		/**
+		 * Run on some rows
+		 * 
+		 * @param first
+		 *            The first row
+		 * @param last
+		 *            The row after the last one
+		 */
+		void run(int first, int last);
+	}
+
+	/**
+	 * Splits a range of rows into a number of blocks, halving the blocks at
+	 * each step
+	 */
+	private static class BlockTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Body body;
+
+		private final int first, last, blocks;
+
+		/**
+		 * Create a task for a range of rows
+		 * 
+		 * @param body
+		 *            The work to run
+		 * @param first
+		 *            The first row
+		 * @param last
+		 *            The row after the last one
+		 * @param blocks
+		 *            The number of blocks to split the rows into
+		 */
+		BlockTask(Body body, int first, int last, int blocks) {
+			this.body = body;
+			this.first = first;
+			this.last = last;
+			this.blocks = blocks;
+		}
+
+		@Override
+		protected void compute() {
+			// Run a single block directly
+			if (this.blocks == 1) {
+				this.body.run(this.first, this.last);
+				return;
+			}
+
+			// Give each half its share of the rows
+			int half = this.blocks / 2;
+			int middle = this.first
+					+ (int) ((long) (this.last - this.first) * half / this.blocks);
+			invokeAll(new BlockTask(this.body, this.first, middle, half),
+					new BlockTask(this.body, middle, this.last, this.blocks
+							- half));
+		}
+	}
+
+	// Fewest elements a block should work on, smaller work is not worth a task
+	static final int PARALLEL_WORK = 1 << 15;
+
+	/**
+	 * Get the number of threads work is split across by default
+	 * 
+	 * @return The parallelism of the common fork/join pool
+	 */
+	static int defaultParallelism() {
+		return ForkJoinPool.getCommonPoolParallelism();
+	}
+
+	/**
+	 * Run work over a range of rows, split into blocks when there is enough
+	 * of it
+	 * 
+	 * @param body
+	 *            The work to run
+	 * @param first
+	 *            The first row
+	 * @param last
+	 *            The row after the last one
+	 * @param width
+	 *            Roughly the number of elements worked on in each row
+	 * @param parallelism
+	 *            The most blocks to run at once, 1 runs everything on the
+	 *            calling thread
+	 * @throws IllegalArgumentException
+	 *             If parallelism is less than 1
+	 */
+	static void run(Body body, int first, int last, long width,
+			int parallelism) {
+		// There must be at least one thread
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+
+		// Use as many blocks as the work fills, up to the parallelism
+		int rows = last - first;
+		long minimumRows = Math.max(1, PARALLEL_WORK / Math.max(1, width));
+		int blocks = (int) Math.min(parallelism, rows / minimumRows);
+
+		// Small work is faster on one thread
+		if (blocks <= 1) {
+			body.run(first, last);
+		} else {
+			ForkJoinPool.commonPool().invoke(
+					new BlockTask(body, first, last, blocks));
+		}
+	}
+
+	/**
+	 * Only static methods, not meant to be created
+	 */
+	private RowBlocks() {
+	}
+}
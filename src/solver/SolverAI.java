@@ -1,15 +1,26 @@
 package solver;
 
+import java.util.Arrays;
+
 /**
- * A class for solving Matrices, autonomously
+ * A class for solving Matrices, autonomously. Reduces a matrix of any shape
+ * to reduced row echelon form with Gauss-Jordan elimination, finding its rank
+ * and which variables are free along the way. Each row operation is reported
+ * to a StepRecorder, which keeps nothing unless tracing is turned on
  * 
  * @author Inderpreet
  *
  */
 public class SolverAI {
 
-	private Matrix matrix, identity;
-	private int stopColumn;
+	// The matrix to solve, which is not changed by solve()
+	private Matrix matrix;
+
+	// The column of each pivot of the last reduction, null until solved
+	private int[] pivotColumns;
+
+	// Where each step is reported
+	private StepRecorder recorder;
 
 	/**
 	 * Create an AI with a matrix to solve
@@ -21,212 +32,185 @@ public class SolverAI {
 		// Store the matrix
 		this.matrix = matrix;
 
-		if (matrix.isSquare()) {
-			// Create an identity matrix for the matrix
-			createIdentityMatrix();
-
-			// Set the max column to go to
-			stopColumn = this.matrix.getColumns();
-		} else {
-			// Set the stop column to the smaller of the rows and columns
-			stopColumn = Math.min(this.matrix.getColumns(),
-					this.matrix.getRows());
-		}
+		// Do not trace until asked to
+		this.recorder = new StepRecorder(TraceLevel.OFF);
 	}
 
 	/**
-	 * Builds an identity matrix for the user's matrix
+	 * Get the columns without a pivot, whose variables can take any value
+	 * 
+	 * @return The free columns in increasing order, solving first if needed
 	 */
-	private void createIdentityMatrix() {
-		// Create a 2d array of the same size as the matrix
-		int[][] matrix = new int[this.matrix.getRows()][this.matrix
-				.getColumns()];
-
-		// Set all elements to zero
-		for (int i = 0; i < matrix.length; i++) {
-			for (int j = 0; j < matrix[0].length; j++) {
-				// Set the current element to 1 if i and j are equal, 0
-				// otherwise
-				matrix[i][j] = ((i == j) ? 1 : 0);
+	public int[] getFreeColumns() {
+		// Every column that is not a pivot column is free
+		int[] pivots = this.getPivotColumns();
+		int[] free = new int[this.matrix.getColumns() - pivots.length];
+		int count = 0, next = 0;
+		for (int j = 0; j < this.matrix.getColumns(); j++) {
+			if (next < pivots.length && pivots[next] == j) {
+				next++;
+			} else {
+				free[count++] = j;
 			}
 		}
 
-		// Set the identity to a new Matrix
-		this.identity = new Matrix(matrix);
+		// Return the free columns
+		return free;
 	}
 
-	public Matrix solve() {
-		// Get a copy of the Matrix
-		Matrix temp = this.matrix.getCopy();
-
-		// Sort the copy, using Bubble Sort
-		temp = bubbleSortMatrix(temp);
-
-		System.out.println("Sorted\n" + temp);
-
-		// Reduce each row so it has a leading one
-		for (int i = 0; i < temp.getRows(); i++) {
-			temp = makeLeadingOne(temp, i, 0);
-
-			System.out.printf("Leading one in %d\n%s\n", i + 1, temp);
-		}
-
-		// Make leading zeroes in every row except the first
-		for (int j = 1; j < temp.getRows(); j++) {
-			temp = subtractRowFromRow(temp, 0, j);
-
-			System.out.printf("Subtracted %d from %d\n%s\n", 0, j, temp);
-		}
-
-		// Reduce each row so it has a leading one
-		for (int k = 1; k < temp.getRows(); k++) {
-			temp = makeLeadingOne(temp, k, 1);
-
-			System.out.printf("Leading one in %d\n%s\n", k + 1, temp);
+	/**
+	 * Get the columns with a leading one in the reduced matrix
+	 * 
+	 * @return The pivot columns in increasing order, solving first if needed
+	 */
+	public int[] getPivotColumns() {
+		if (this.pivotColumns == null) {
+			this.solve();
 		}
-
-		// Return the solved Matrix
-		return temp;
+		return this.pivotColumns.clone();
 	}
 
 	/**
-	 * Subtract two rows from a matrix
+	 * Get the rank of the matrix, the number of pivots
 	 * 
-	 * @param matrix
-	 *            The Matrix to use
-	 * @param rowOne
-	 *            The row to subtract
-	 * @param rowTwo
-	 *            The row to subtract the first from
-	 * @return The Matrix after subtraction
+	 * @return The rank, solving first if needed
 	 */
-	private Matrix subtractRowFromRow(Matrix matrix, int rowOne, int rowTwo) {
-		// Make a copy of the Matrix
-		Matrix subtracted = matrix.getCopy();
-
-		// Subtract the two rows
-		subtracted.subtractRows(rowTwo, rowOne);
-
-		// Return the Matrix after subtraction
-		return subtracted;
+	public int getRank() {
+		return this.getPivotColumns().length;
 	}
 
 	/**
-	 * Reduces a row to have a leading one
+	 * Get where each step is reported
 	 * 
-	 * @param matrix
-	 *            The Matrix to operate on
-	 * @param rowIndex
-	 *            The row to reduce
-	 * @return The Matrix with the row at rowIndex having a leading one
+	 * @return The recorder, which holds the steps of the last solve
 	 */
-	private Matrix makeLeadingOne(Matrix matrix, int rowIndex, int columnIndex) {
-		// Get a copy of the Matrix
-		Matrix reduced = matrix.getCopy();
-
-		// Get the leading element of the row
-		Fraction leadingFraction = reduced.getElement(rowIndex, columnIndex);
-
-		// A Fraction reference to hold the divisor for reduction
-		Fraction divisor;
-
-		// Check if the leading element is a zero
-		if (leadingFraction.equals(new Fraction(0))) {
-			// Set the divisor to one so division by zero doesn't occur
-			divisor = new Fraction(1);
-		} else {
-			// If the leading element is non zero, it will be the divisor
-			divisor = leadingFraction;
-		}
-
-		// Traverse the row
-		for (int i = columnIndex; i < reduced.getColumns(); i++) {
-			// Get the element at the index
-			Fraction currentElement = matrix.getElement(rowIndex, i);
-
-			// Divide the current element by the divisor
-			Fraction reducedElement = Fraction.divideFraction(currentElement,
-					divisor);
-
-			// Set the element
-			reduced.setElement(rowIndex, i, reducedElement);
-		}
-
-		// Return the Matrix with a row reduced
-		return reduced;
+	public StepRecorder getRecorder() {
+		return this.recorder;
 	}
 
 	/**
-	 * Sorts a Matrix by first element in each row, highest to lowest, using
-	 * Bubble Sort
+	 * Set where each step is reported
 	 * 
-	 * @param matrix
-	 *            The Matrix to sort
-	 * @return The sorted Matrix, rows sorted from highest to lowest
+	 * @param recorder
+	 *            The recorder to use
 	 */
-	private Matrix bubbleSortMatrix(Matrix matrix) {
-		// Make a copy of the Matrix
-		Matrix sorted = matrix.getCopy();
-
-		// Counter for how many times rows were swapped
-		int swaps;
+	public void setRecorder(StepRecorder recorder) {
+		this.recorder = recorder;
+	}
 
-		// Loop until the Matrix is sorted, when swaps = 0
-		do {
-			// Reset swaps
-			swaps = 0;
+	/**
+	 * Reduce the matrix to reduced row echelon form. Each column is searched
+	 * for a non-zero pivot below the rows that already have one, which is
+	 * swapped up, scaled to a leading one and removed from every other row.
+	 * Columns without a pivot are free. Works on one copy of the matrix in
+	 * place, in O(mn * min(m, n)) operations
+	 * 
+	 * @return The reduced matrix
+	 */
+	public Matrix solve() {
+		// Work on a single copy, so the original matrix is kept
+		Matrix reduced = this.matrix.getCopy();
+		this.recorder.clear();
+		int rows = reduced.getRows(), columns = reduced.getColumns();
+		int[] pivots = new int[Math.min(rows, columns)];
+		int rank = 0;
+
+		// Only build the details of each step when they are kept
+		boolean recording = this.recorder.isRecording();
+
+		// Look for a pivot in each column, until every row has one
+		for (int c = 0; c < columns && rank < rows; c++) {
+			// Find a row with a non-zero element in this column, exact
+			// arithmetic makes any non-zero element a safe pivot
+			int pivot = rank;
+			while (pivot < rows && reduced.getElement(pivot, c).isZero()) {
+				pivot++;
+			}
 
-			// Iterate through the rows of the Matrix
-			for (int i = 0; i < sorted.getRows() - 1; i++) {
-				// Get both elements of the rows we want to compare
-				Fraction firstRowLead = sorted.getElement(i, 0);
-				Fraction secondRowLead = sorted.getElement(i + 1, 0);
+			// Move on when the column has no pivot, its variable is free
+			if (pivot == rows) {
+				continue;
+			}
 
-				// Compare elements
-				boolean firstSmaller = firstRowLead.compareTo(secondRowLead) < 0;
+			// Swap the pivot row into place
+			if (pivot != rank) {
+				reduced.swapRows(rank, pivot);
+				if (recording) {
+					this.recorder.record(StepOperation.SWAP, rank, pivot, null,
+							reduced);
+				}
+			}
 
-				if (firstSmaller) {
-					// Swap the rows if the first row is smaller than the second
-					sorted.swapRows(i, i + 1);
+			// Scale the pivot row to a leading one
+			Fraction lead = reduced.getElement(rank, c);
+			if (!lead.equals(Fraction.ONE)) {
+				reduced.divideRow(rank, lead);
+				if (recording) {
+					this.recorder.record(StepOperation.SCALE, rank, -1,
+							Fraction.getInverse(lead), reduced);
+				}
+			}
 
-					// Increment swaps
-					swaps++;
+			// Remove the column from every other row, above and below
+			for (int i = 0; i < rows; i++) {
+				Fraction multiple = reduced.getElement(i, c);
+				if (i != rank && !multiple.isZero()) {
+					reduced.multiplyAndSubtractRows(i, Fraction.ONE, rank,
+							multiple);
+					if (recording) {
+						this.recorder.record(StepOperation.ADD, i, rank,
+								multiple.negate(), reduced);
+					}
 				}
 			}
-		} while (swaps != 0);
 
-		// Return the sorted Matrix
-		return sorted;
+			// Record the pivot
+			pivots[rank] = c;
+			rank++;
+		}
+
+		// Store the pivot columns and return the reduced matrix
+		this.pivotColumns = Arrays.copyOf(pivots, rank);
+		return reduced;
 	}
 
 	/**
-	 * Basic solving example, works for some at least one 3x3 matrix
+	 * Basic solving example, works for some at least one 3x3 matrix. Changes
+	 * the matrix in place and reports each step to the recorder
 	 */
 	public void exampleSolve() {
-		System.out.println("Start\n" + matrix);
+		// The matrix is changed, so any earlier reduction is out of date
+		this.pivotColumns = null;
+		this.recorder.clear();
 
 		this.matrix.addRows(0, 1);
-		System.out.println("Add 2 to 1\n" + this.matrix);
+		this.recorder.record(StepOperation.ADD, 0, 1, Fraction.ONE,
+				this.matrix);
 
 		this.matrix.multiplyRow(0, 3);
-		System.out.println("Multiply 1 by 3\n" + this.matrix);
+		this.recorder.record(StepOperation.SCALE, 0, -1, Fraction.valueOf(3),
+				this.matrix);
 
 		this.matrix.divideRow(0, 3);
-		System.out.println("Divide 1 by 3\n" + this.matrix);
+		this.recorder.record(StepOperation.SCALE, 0, -1,
+				Fraction.valueOf(1, 3), this.matrix);
 
 		this.matrix.multiplyAndAddRows(0, 1, 1, -3);
-		System.out.println("Add -3 of 2 to 1\n" + this.matrix);
+		this.recorder.record(StepOperation.ADD, 0, 1, Fraction.valueOf(-3),
+				this.matrix);
 
 		this.matrix.swapRows(0, 1);
-		System.out.println("Swap 1 and 2\n" + this.matrix);
+		this.recorder.record(StepOperation.SWAP, 0, 1, null, this.matrix);
 
 		this.matrix.swapRows(1, 0);
-		System.out.println("Swap 2 and 1\n" + this.matrix);
+		this.recorder.record(StepOperation.SWAP, 1, 0, null, this.matrix);
 
 		this.matrix.addRows(0, 2);
-		System.out.println("Add 3 to 1\n" + this.matrix);
+		this.recorder.record(StepOperation.ADD, 0, 2, Fraction.ONE,
+				this.matrix);
 
 		this.matrix.multiplyAndAddRows(1, 1, 2, -2);
-		System.out.println("Add -2 of 3 to 2\n" + this.matrix);
+		this.recorder.record(StepOperation.ADD, 1, 2, Fraction.valueOf(-2),
+				this.matrix);
 	}
 }
@@ -0,0 +1,120 @@
+package solver;
+
+/**
+ * One row operation taken by a solver, with an optional copy of the matrix
+ * after it. Steps never change once they are recorded
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class SolverStep {
+
+	// The operation that was taken
+	private final StepOperation operation;
+
+	// The multiplier of a SCALE or ADD, null for a SWAP
+	private final Fraction multiplier;
+
+	// The matrix after the step, null unless snapshots were recorded
+	private final Matrix snapshot;
+
+	// The row that changed, and the other row involved or -1 for a SCALE
+	private final int sourceRow, targetRow;
+
+	/**
+	 * Create a step
+	 * 
+	 * @param operation
+	 *            The operation that was taken
+	 * @param targetRow
+	 *            The row that changed
+	 * @param sourceRow
+	 *            The other row involved, or -1 for a SCALE
+	 * @param multiplier
+	 *            The multiplier, or null for a SWAP
+	 * @param snapshot
+	 *            A copy of the matrix after the step, or null
+	 */
+	SolverStep(StepOperation operation, int targetRow, int sourceRow,
+			Fraction multiplier, Matrix snapshot) {
+		// Store parameters
+		this.operation = operation;
+		this.targetRow = targetRow;
+		this.sourceRow = sourceRow;
+		this.multiplier = multiplier;
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Get the multiplier of the step
+	 * 
+	 * @return The multiplier of a SCALE or ADD, null for a SWAP
+	 */
+	public Fraction getMultiplier() {
+		return this.multiplier;
+	}
+
+	/**
+	 * Get the operation that was taken
+	 * 
+	 * @return The operation
+	 */
+	public StepOperation getOperation() {
+		return this.operation;
+	}
+
+	/**
+	 * Get the matrix after the step
+	 * 
+	 * @return A copy of the matrix, or null unless snapshots were recorded
+	 */
+	public Matrix getSnapshot() {
+		return (this.snapshot == null) ? null : this.snapshot.getCopy();
+	}
+
+	/**
+	 * Get the other row involved in the step
+	 * 
+	 * @return The row swapped with or added from, or -1 for a SCALE
+	 */
+	public int getSourceRow() {
+		return this.sourceRow;
+	}
+
+	/**
+	 * Get the row that changed
+	 * 
+	 * @return The row swapped, scaled or added to
+	 */
+	public int getTargetRow() {
+		return this.targetRow;
+	}
+
+	/**
+	 * Checks if the step has a copy of the matrix
+	 * 
+	 * @return True if snapshots were recorded
+	 */
+	public boolean hasSnapshot() {
+		return this.snapshot != null;
+	}
+
+	/**
+	 * Describes the step, with rows counted from one. The snapshot is not
+	 * included, use getSnapshot() to render it
+	 */
+	@Override
+	public String toString() {
+		switch (this.operation) {
+		case SWAP:
+			return "Swap R" + (this.targetRow + 1) + " and R"
+					+ (this.sourceRow + 1);
+		case SCALE:
+			return "Multiply R" + (this.targetRow + 1) + " by "
+					+ this.multiplier;
+		default:
+			return "Add " + this.multiplier + " x R" + (this.sourceRow + 1)
+					+ " to R" + (this.targetRow + 1);
+		}
+	}
+}
@@ -0,0 +1,998 @@
+package solver;
+
+import java.util.Arrays;
+
+/**
+ * A matrix that only stores its non-zero elements, in compressed sparse row
+ * (CSR) form. The elements of row i are at positions rowPointers[i] up to
+ * rowPointers[i + 1] of the values, with their columns in increasing order in
+ * the matching positions of the column indices. Every operation only visits
+ * the non-zero elements, so it suits large matrices that are mostly zeroes.
+ * Not safe to change from more than one thread
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class SparseMatrix {
+
+	/**
+	 * Adds two sparse matrices together
+	 * 
+	 * @param one
+	 *            The first matrix
+	 * @param two
+	 *            The matrix to add to the first
+	 * @return A SparseMatrix that represents one + two
+	 * @throws IllegalArgumentException
+	 *             If the matrices are not the same size
+	 */
+	public static SparseMatrix addMatrices(SparseMatrix one, SparseMatrix two) {
+		return SparseMatrix.combine(one, two, Fraction.ONE);
+	}
+
+	/**
+	 * Add a multiple of one matrix to another, merging each pair of rows
+	 * 
+	 * @param one
+	 *            The first matrix
+	 * @param two
+	 *            The second matrix
+	 * @param multiple
+	 *            The multiple of the second matrix to add
+	 * @return A SparseMatrix that represents one + multiple * two
+	 * @throws IllegalArgumentException
+	 *             If the matrices are not the same size
+	 */
+	private static SparseMatrix combine(SparseMatrix one, SparseMatrix two,
+			Fraction multiple) {
+		// Check that the matrices are the same size
+		if (one.rows != two.rows || one.columns != two.columns) {
+			throw new IllegalArgumentException("Can not combine a " + one.rows
+					+ "x" + one.columns + " matrix and a " + two.rows + "x"
+					+ two.columns + " matrix");
+		}
+
+		// Merge each pair of rows into the result
+		SparseMatrix result = new SparseMatrix(one.rows, one.columns,
+				one.size + two.size);
+		for (int i = 0; i < one.rows; i++) {
+			result.size = SparseMatrix.merge(one, i, Fraction.ONE, two, i,
+					multiple, result.columnIndices, result.values, result.size);
+			result.rowPointers[i + 1] = result.size;
+		}
+
+		// Return the result
+		return result;
+	}
+
+	/**
+	 * Merge multiples of two sorted rows, dropping any zeroes
+	 * 
+	 * @param one
+	 *            The matrix holding the first row
+	 * @param first
+	 *            The index of the first row
+	 * @param firstMultiple
+	 *            The multiple of the first row
+	 * @param two
+	 *            The matrix holding the second row
+	 * @param second
+	 *            The index of the second row
+	 * @param secondMultiple
+	 *            The multiple of the second row
+	 * @param columns
+	 *            The array to write the columns of the result to
+	 * @param values
+	 *            The array to write the values of the result to
+	 * @param position
+	 *            The position in the arrays to start writing at
+	 * @return The position after the last element written
+	 */
+	private static int merge(SparseMatrix one, int first,
+			Fraction firstMultiple, SparseMatrix two, int second,
+			Fraction secondMultiple, int[] columns, Fraction[] values,
+			int position) {
+		// Walk both rows in column order
+		int a = one.rowPointers[first], aEnd = one.rowPointers[first + 1];
+		int b = two.rowPointers[second], bEnd = two.rowPointers[second + 1];
+		while (a < aEnd || b < bEnd) {
+			// Take the element with the lower column, or both when they match
+			int aColumn = (a < aEnd) ? one.columnIndices[a] : Integer.MAX_VALUE;
+			int bColumn = (b < bEnd) ? two.columnIndices[b] : Integer.MAX_VALUE;
+			int column = Math.min(aColumn, bColumn);
+			Fraction value = Fraction.ZERO;
+			if (aColumn == column) {
+				value = one.values[a++].multiplyFraction(firstMultiple);
+			}
+			if (bColumn == column) {
+				value = value.add(two.values[b++]
+						.multiplyFraction(secondMultiple));
+			}
+
+			// Only keep non-zero results
+			if (!value.isZero()) {
+				columns[position] = column;
+				values[position] = value;
+				position++;
+			}
+		}
+
+		// Return where the next element goes
+		return position;
+	}
+
+	/**
+	 * Multiply two sparse matrices. Each row of the product is the sum of the
+	 * rows of two picked out by the non-zero elements of a row of one, so
+	 * only pairs of non-zero elements are multiplied
+	 * 
+	 * @param one
+	 *            The first matrix
+	 * @param two
+	 *            The matrix to multiply the first by
+	 * @return The product of the matrices: one * two
+	 * @throws IllegalArgumentException
+	 *             If the width of one is not the height of two
+	 */
+	public static SparseMatrix multiplyMatrices(SparseMatrix one,
+			SparseMatrix two) {
+		// Check that the matrices can be multiplied
+		if (one.columns != two.rows) {
+			throw new IllegalArgumentException("Can not multiply a "
+					+ one.rows + "x" + one.columns + " matrix by a " + two.rows
+					+ "x" + two.columns + " matrix");
+		}
+
+		// One accumulator per column, and a list of the columns in use
+		FractionAccumulator[] sums = new FractionAccumulator[two.columns];
+		boolean[] used = new boolean[two.columns];
+		int[] touched = new int[two.columns];
+
+		// Build the product a row at a time
+		SparseMatrix product = new SparseMatrix(one.rows, two.columns,
+				Math.max(one.size, two.size));
+		for (int i = 0; i < one.rows; i++) {
+			// Add each non-zero of the row times the matching row of two
+			int count = 0;
+			for (int p = one.rowPointers[i]; p < one.rowPointers[i + 1]; p++) {
+				Fraction scale = one.values[p];
+				int k = one.columnIndices[p];
+				for (int q = two.rowPointers[k]; q < two.rowPointers[k + 1]; q++) {
+					int j = two.columnIndices[q];
+					if (!used[j]) {
+						used[j] = true;
+						touched[count++] = j;
+						if (sums[j] == null) {
+							sums[j] = new FractionAccumulator();
+						}
+					}
+					sums[j].addProduct(scale, two.values[q]);
+				}
+			}
+
+			// Store the non-zero sums in column order, resetting as they go
+			Arrays.sort(touched, 0, count);
+			for (int c = 0; c < count; c++) {
+				int j = touched[c];
+				Fraction sum = sums[j].getSum();
+				sums[j].reset();
+				used[j] = false;
+				if (!sum.isZero()) {
+					product.append(j, sum);
+				}
+			}
+			product.rowPointers[i + 1] = product.size;
+		}
+
+		// Return the product
+		return product;
+	}
+
+	/**
+	 * Finds the difference between two sparse matrices
+	 * 
+	 * @param one
+	 *            The first matrix
+	 * @param two
+	 *            The matrix to subtract from the first
+	 * @return A SparseMatrix that represents one - two
+	 * @throws IllegalArgumentException
+	 *             If the matrices are not the same size
+	 */
+	public static SparseMatrix subtractMatrices(SparseMatrix one,
+			SparseMatrix two) {
+		return SparseMatrix.combine(one, two, Fraction.MINUS_ONE);
+	}
+
+	/**
+	 * Swap rows and columns of a sparse matrix. Counting the elements in each
+	 * column gives where each row of the transpose starts, and walking the
+	 * rows in order keeps each row of the transpose sorted
+	 * 
+	 * @param matrix
+	 *            The matrix to transpose
+	 * @return A transposition of the matrix
+	 */
+	public static SparseMatrix transpose(SparseMatrix matrix) {
+		// Count the elements in each column
+		SparseMatrix transposed = new SparseMatrix(matrix.columns,
+				matrix.rows, matrix.size);
+		int[] starts = transposed.rowPointers;
+		for (int p = 0; p < matrix.size; p++) {
+			starts[matrix.columnIndices[p] + 1]++;
+		}
+		for (int j = 0; j < matrix.columns; j++) {
+			starts[j + 1] += starts[j];
+		}
+
+		// Place each element at the next free position of its column
+		int[] next = Arrays.copyOf(starts, matrix.columns);
+		for (int i = 0; i < matrix.rows; i++) {
+			for (int p = matrix.rowPointers[i]; p < matrix.rowPointers[i + 1]; p++) {
+				int position = next[matrix.columnIndices[p]]++;
+				transposed.columnIndices[position] = i;
+				transposed.values[position] = matrix.values[p];
+			}
+		}
+		transposed.size = matrix.size;
+
+		// Return the transpose
+		return transposed;
+	}
+
+	// The column of each stored element
+	private int[] columnIndices;
+
+	// The transpose, whose rows are the columns of this matrix, null until
+	// it is needed and again after any change
+	private SparseMatrix compressedColumns;
+
+	// Where each row starts in the stored elements, with the end at the end
+	private int[] rowPointers;
+
+	// The stored elements, none of them zero
+	private Fraction[] values;
+
+	private int columns, rows, size;
+
+	/**
+	 * Creates an empty sparse matrix, all zeroes
+	 * 
+	 * @param rows
+	 *            The height of the matrix
+	 * @param columns
+	 *            The width of the matrix
+	 */
+	public SparseMatrix(int rows, int columns) {
+		this(rows, columns, 0);
+	}
+
+	/**
+	 * Creates an empty sparse matrix with room for some elements
+	 * 
+	 * @param rows
+	 *            The height of the matrix
+	 * @param columns
+	 *            The width of the matrix
+	 * @param capacity
+	 *            How many elements to make room for
+	 */
+	private SparseMatrix(int rows, int columns, int capacity) {
+		// Store parameters
+		this.rows = rows;
+		this.columns = columns;
+
+		// Every row starts out empty
+		this.rowPointers = new int[rows + 1];
+		this.columnIndices = new int[Math.max(capacity, 4)];
+		this.values = new Fraction[this.columnIndices.length];
+	}
+
+	/**
+	 * Creates a sparse matrix with the non-zero elements of a dense matrix
+	 * 
+	 * @param matrix
+	 *            The matrix to convert
+	 */
+	public SparseMatrix(Matrix matrix) {
+		// Create an empty matrix
+		this(matrix.getRows(), matrix.getColumns(), 0);
+
+		// Keep the non-zero elements of each row
+		for (int i = 0; i < this.rows; i++) {
+			Fraction[] row = matrix.getRow(i);
+			for (int j = 0; j < this.columns; j++) {
+				if (!row[j].isZero()) {
+					this.append(j, row[j]);
+				}
+			}
+			this.rowPointers[i + 1] = this.size;
+		}
+	}
+
+	/**
+	 * Creates a sparse matrix from a list of elements in any order, which is
+	 * much faster than setting each element for large matrices. Elements at
+	 * the same row and column are added together
+	 * 
+	 * @param rows
+	 *            The height of the matrix
+	 * @param columns
+	 *            The width of the matrix
+	 * @param rowIndices
+	 *            The row of each element
+	 * @param columnIndices
+	 *            The column of each element
+	 * @param values
+	 *            The value of each element
+	 * @throws IllegalArgumentException
+	 *             If the lists are different lengths or an element is outside
+	 *             the matrix
+	 */
+	public SparseMatrix(int rows, int columns, int[] rowIndices,
+			int[] columnIndices, Fraction[] values) {
+		// Create an empty matrix with room for every element
+		this(rows, columns, values.length);
+		if (rowIndices.length != values.length
+				|| columnIndices.length != values.length) {
+			throw new IllegalArgumentException(
+					"Expected as many rows and columns as values");
+		}
+
+		// Count the elements in each row
+		int[] starts = new int[rows + 1];
+		for (int p = 0; p < values.length; p++) {
+			if (rowIndices[p] < 0 || rowIndices[p] >= rows
+					|| columnIndices[p] < 0 || columnIndices[p] >= columns) {
+				throw new IllegalArgumentException("Element (" + rowIndices[p]
+						+ ", " + columnIndices[p] + ") is outside a " + rows
+						+ "x" + columns + " matrix");
+			}
+			starts[rowIndices[p] + 1]++;
+		}
+		for (int i = 0; i < rows; i++) {
+			starts[i + 1] += starts[i];
+		}
+
+		// Group the elements by row
+		int[] order = new int[values.length];
+		int[] next = Arrays.copyOf(starts, rows);
+		for (int p = 0; p < values.length; p++) {
+			order[next[rowIndices[p]]++] = p;
+		}
+
+		// Sort each row by column, adding duplicates and dropping zeroes
+		long[] keys = new long[values.length];
+		for (int i = 0; i < rows; i++) {
+			int count = 0;
+			for (int q = starts[i]; q < starts[i + 1]; q++) {
+				keys[count++] = ((long) columnIndices[order[q]] << 32)
+						| order[q];
+			}
+			Arrays.sort(keys, 0, count);
+			for (int q = 0; q < count;) {
+				int column = (int) (keys[q] >>> 32);
+				Fraction sum = values[(int) keys[q++]];
+				while (q < count && (int) (keys[q] >>> 32) == column) {
+					sum = sum.add(values[(int) keys[q++]]);
+				}
+				if (!sum.isZero()) {
+					this.append(column, sum);
+				}
+			}
+			this.rowPointers[i + 1] = this.size;
+		}
+	}
+
+	/**
+	 * Adds two rows of the matrix and stores the result into the first row
+	 * 
+	 * @param firstRow
+	 *            The row to store the result in
+	 * @param secondRow
+	 *            The row to add to the first
+	 */
+	public void addRows(int firstRow, int secondRow) {
+		this.combineRows(firstRow, Fraction.ONE, secondRow, Fraction.ONE);
+	}
+
+	/**
+	 * Add an element after the last stored one, growing the arrays if needed
+	 * 
+	 * @param column
+	 *            The column of the element
+	 * @param value
+	 *            The non-zero value of the element
+	 */
+	private void append(int column, Fraction value) {
+		this.ensureCapacity(this.size + 1);
+		this.columnIndices[this.size] = column;
+		this.values[this.size] = value;
+		this.size++;
+	}
+
+	/**
+	 * Replace a row with a multiple of itself plus a multiple of another row
+	 * 
+	 * @param target
+	 *            The row to replace
+	 * @param targetMultiple
+	 *            The multiple of the target row
+	 * @param source
+	 *            The row to add
+	 * @param sourceMultiple
+	 *            The multiple of the source row
+	 */
+	private void combineRows(int target, Fraction targetMultiple, int source,
+			Fraction sourceMultiple) {
+		// Merge the rows into scratch space
+		int length = this.rowLength(target) + this.rowLength(source);
+		int[] columns = new int[length];
+		Fraction[] values = new Fraction[length];
+		int count = SparseMatrix.merge(this, target, targetMultiple, this,
+				source, sourceMultiple, columns, values, 0);
+
+		// Put the result in place of the target row
+		this.replaceRow(target, columns, values, count);
+	}
+
+	/**
+	 * Divides each element of a row by a number, in place
+	 * 
+	 * @param rowIndex
+	 *            The row to divide
+	 * @param divisor
+	 *            The integer to divide by
+	 */
+	public void divideRow(int rowIndex, int divisor) {
+		this.scaleRow(rowIndex, Fraction.valueOf(1, divisor));
+	}
+
+	/**
+	 * Make sure the arrays can hold a number of elements, growing them by
+	 * half again when they are full
+	 * 
+	 * @param capacity
+	 *            The number of elements needed
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > this.values.length) {
+			int length = Math.max(capacity, this.values.length
+					+ (this.values.length >> 1));
+			this.columnIndices = Arrays.copyOf(this.columnIndices, length);
+			this.values = Arrays.copyOf(this.values, length);
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		// Check if the object is a SparseMatrix
+		if (obj instanceof SparseMatrix) {
+			SparseMatrix comparator = (SparseMatrix) obj;
+
+			// Zeroes are never stored and rows are sorted, so equal matrices
+			// store the same elements in the same places
+			if (this.rows != comparator.rows
+					|| this.columns != comparator.columns
+					|| this.size != comparator.size) {
+				return false;
+			}
+			for (int i = 0; i <= this.rows; i++) {
+				if (this.rowPointers[i] != comparator.rowPointers[i]) {
+					return false;
+				}
+			}
+			for (int p = 0; p < this.size; p++) {
+				if (this.columnIndices[p] != comparator.columnIndices[p]
+						|| !this.values[p].equals(comparator.values[p])) {
+					return false;
+				}
+			}
+			return true;
+		} else {
+			// Return false if the object is not a SparseMatrix
+			return false;
+		}
+	}
+
+	/**
+	 * Find where an element is stored
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @return The position of the element, or -(insertion point) - 1 if it is
+	 *         not stored
+	 */
+	private int find(int row, int column) {
+		return Arrays.binarySearch(this.columnIndices, this.rowPointers[row],
+				this.rowPointers[row + 1], column);
+	}
+
+	/**
+	 * Solve Ax = b approximately with an iterative method, which only
+	 * touches the non-zero elements and suits systems too large to solve
+	 * exactly
+	 * 
+	 * @param solution
+	 *            The right hand side, b
+	 * @param solver
+	 *            The method and settings to use
+	 * @return The estimate of x and how close it came
+	 * @throws ArithmeticException
+	 *             If the method can not run on the matrix
+	 * @throws IllegalArgumentException
+	 *             If the matrix is not square or b is the wrong length
+	 */
+	public IterativeResult findSolution(double[] solution,
+			IterativeSolver solver) {
+		return solver.solve(this, solution);
+	}
+
+	/**
+	 * Get a column of the matrix
+	 * 
+	 * @param columnIndex
+	 *            The index of the column
+	 * @return The column, zeroes included
+	 */
+	public Fraction[] getColumn(int columnIndex) {
+		return this.getCompressedColumns().getRow(columnIndex);
+	}
+
+	/**
+	 * Get the column of each stored element
+	 * 
+	 * @return The array backing the matrix, not copied, only the first
+	 *         getNonZeroCount() entries are used
+	 */
+	int[] getColumnIndices() {
+		return this.columnIndices;
+	}
+
+	/**
+	 * Get the number of columns in the matrix
+	 * 
+	 * @return The columns in the matrix
+	 */
+	public int getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Get the matrix in compressed sparse column (CSC) form, which is the CSR
+	 * form of the transpose. Row j of the returned matrix is column j of this
+	 * one. It is made on the first call and kept until this matrix changes
+	 * 
+	 * @return The transpose of the matrix, shared with this matrix and never
+	 *         handed outside the package, so it must not be changed
+	 */
+	SparseMatrix getCompressedColumns() {
+		if (this.compressedColumns == null) {
+			this.compressedColumns = SparseMatrix.transpose(this);
+		}
+		return this.compressedColumns;
+	}
+
+	/**
+	 * Gets an element at a row and column
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @return The element at the row and column
+	 */
+	public Fraction getElement(int row, int column) {
+		int position = this.find(row, column);
+		return (position >= 0) ? this.values[position] : Fraction.ZERO;
+	}
+
+	/**
+	 * Get the number of elements that are not zero
+	 * 
+	 * @return The number of stored elements
+	 */
+	public int getNonZeroCount() {
+		return this.size;
+	}
+
+	/**
+	 * Get a row of the matrix
+	 * 
+	 * @param row
+	 *            The index of the row
+	 * @return The row, zeroes included
+	 */
+	public Fraction[] getRow(int row) {
+		// Start from zeroes and fill in the stored elements
+		Fraction[] result = new Fraction[this.columns];
+		Arrays.fill(result, Fraction.ZERO);
+		for (int p = this.rowPointers[row]; p < this.rowPointers[row + 1]; p++) {
+			result[this.columnIndices[p]] = this.values[p];
+		}
+
+		// Return the row
+		return result;
+	}
+
+	/**
+	 * Get where each row starts in the stored elements
+	 * 
+	 * @return The array backing the matrix, not copied, with one more entry
+	 *         than there are rows
+	 */
+	int[] getRowPointers() {
+		return this.rowPointers;
+	}
+
+	/**
+	 * Get the number of rows in the matrix
+	 * 
+	 * @return The rows in the matrix
+	 */
+	public int getRows() {
+		return this.rows;
+	}
+
+	/**
+	 * Get the stored elements
+	 * 
+	 * @return The array backing the matrix, not copied, only the first
+	 *         getNonZeroCount() entries are used
+	 */
+	Fraction[] getValues() {
+		return this.values;
+	}
+
+	@Override
+	public int hashCode() {
+		// Combine the position and value of each stored element
+		int hash = 31 * this.rows + this.columns;
+		for (int i = 0; i < this.rows; i++) {
+			for (int p = this.rowPointers[i]; p < this.rowPointers[i + 1]; p++) {
+				hash = 31 * hash + (i * this.columns + this.columnIndices[p]);
+				hash = 31 * hash + this.values[p].hashCode();
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Multiply the matrix by a Fraction
+	 * 
+	 * @param fraction
+	 *            The Fraction to multiply by
+	 * @return The matrix after multiplication
+	 */
+	public SparseMatrix multiply(Fraction fraction) {
+		// Multiplying by zero leaves nothing to store
+		SparseMatrix product = new SparseMatrix(this.rows, this.columns,
+				fraction.isZero() ? 0 : this.size);
+		if (fraction.isZero()) {
+			return product;
+		}
+
+		// Keep the structure and scale each stored element
+		System.arraycopy(this.rowPointers, 0, product.rowPointers, 0,
+				this.rows + 1);
+		System.arraycopy(this.columnIndices, 0, product.columnIndices, 0,
+				this.size);
+		for (int p = 0; p < this.size; p++) {
+			product.values[p] = this.values[p].multiplyFraction(fraction);
+		}
+		product.size = this.size;
+
+		// Return the product
+		return product;
+	}
+
+	/**
+	 * Multiply the matrix by a column vector
+	 * 
+	 * @param vector
+	 *            The vector, as long as the matrix is wide
+	 * @return The product, as long as the matrix is tall
+	 * @throws IllegalArgumentException
+	 *             If the vector is not as long as the matrix is wide
+	 */
+	public Fraction[] multiply(Fraction[] vector) {
+		// Check that the vector fits
+		if (vector.length != this.columns) {
+			throw new IllegalArgumentException("Expected a vector of length "
+					+ this.columns + " but got " + vector.length);
+		}
+
+		// Find the dot product of each row with the vector
+		Fraction[] product = new Fraction[this.rows];
+		FractionAccumulator total = new FractionAccumulator();
+		for (int i = 0; i < this.rows; i++) {
+			total.reset();
+			for (int p = this.rowPointers[i]; p < this.rowPointers[i + 1]; p++) {
+				total.addProduct(this.values[p], vector[this.columnIndices[p]]);
+			}
+			product[i] = total.getSum();
+		}
+
+		// Return the product
+		return product;
+	}
+
+	/**
+	 * Multiply two rows by an integer and then add them, place result in first
+	 * row
+	 * 
+	 * @param firstRow
+	 *            The row to place the result in
+	 * @param firstRowMultiple
+	 *            Integer to multiply first row by
+	 * @param secondRow
+	 *            Row to add to first
+	 * @param secondRowMultiple
+	 *            Integer to multiply second row by
+	 */
+	public void multiplyAndAddRows(int firstRow, int firstRowMultiple,
+			int secondRow, int secondRowMultiple) {
+		this.combineRows(firstRow, Fraction.valueOf(firstRowMultiple),
+				secondRow, Fraction.valueOf(secondRowMultiple));
+	}
+
+	/**
+	 * Multiply two rows by an integer and then subtract them, place result in
+	 * first row
+	 * 
+	 * @param firstRow
+	 *            The row to place the result in
+	 * @param firstRowMultiple
+	 *            Integer to multiply first row by
+	 * @param secondRow
+	 *            Row to subtract from first
+	 * @param secondRowMultiple
+	 *            Integer to multiply second row by
+	 */
+	public void multiplyAndSubtractRows(int firstRow, int firstRowMultiple,
+			int secondRow, int secondRowMultiple) {
+		this.combineRows(firstRow, Fraction.valueOf(firstRowMultiple),
+				secondRow, Fraction.valueOf(-secondRowMultiple));
+	}
+
+	/**
+	 * Multiplies each element of a row by a number, in place
+	 * 
+	 * @param rowIndex
+	 *            The row to multiply
+	 * @param multiple
+	 *            The integer to multiply by
+	 */
+	public void multiplyRow(int rowIndex, int multiple) {
+		this.scaleRow(rowIndex, Fraction.valueOf(multiple));
+	}
+
+	/**
+	 * Replace the stored elements of a row, moving the rows after it
+	 * 
+	 * @param row
+	 *            The row to replace
+	 * @param columns
+	 *            The columns of the new elements, in increasing order
+	 * @param values
+	 *            The new non-zero elements
+	 * @param count
+	 *            The number of new elements
+	 */
+	private void replaceRow(int row, int[] columns, Fraction[] values,
+			int count) {
+		// Make room, or close the gap, for the new length of the row
+		int start = this.rowPointers[row], end = this.rowPointers[row + 1];
+		int shift = count - (end - start);
+		this.ensureCapacity(this.size + shift);
+		System.arraycopy(this.columnIndices, end, this.columnIndices, end
+				+ shift, this.size - end);
+		System.arraycopy(this.values, end, this.values, end + shift, this.size
+				- end);
+
+		// Copy the row in and move the later rows along
+		System.arraycopy(columns, 0, this.columnIndices, start, count);
+		System.arraycopy(values, 0, this.values, start, count);
+		for (int i = row + 1; i <= this.rows; i++) {
+			this.rowPointers[i] += shift;
+		}
+		this.size += shift;
+
+		// Drop references past the end
+		if (shift < 0) {
+			Arrays.fill(this.values, this.size, this.size - shift, null);
+		}
+		this.compressedColumns = null;
+	}
+
+	/**
+	 * Get the number of stored elements in a row
+	 * 
+	 * @param row
+	 *            The row
+	 * @return The number of non-zero elements in the row
+	 */
+	private int rowLength(int row) {
+		return this.rowPointers[row + 1] - this.rowPointers[row];
+	}
+
+	/**
+	 * Multiply each stored element of a row by a Fraction
+	 * 
+	 * @param row
+	 *            The row to scale
+	 * @param multiple
+	 *            The Fraction to multiply by
+	 */
+	private void scaleRow(int row, Fraction multiple) {
+		// A zero multiple empties the row
+		if (multiple.isZero()) {
+			this.replaceRow(row, new int[0], new Fraction[0], 0);
+			return;
+		}
+
+		// Scale in place, the structure does not change
+		for (int p = this.rowPointers[row]; p < this.rowPointers[row + 1]; p++) {
+			this.values[p] = this.values[p].multiplyFraction(multiple);
+		}
+		this.compressedColumns = null;
+	}
+
+	/**
+	 * Sets the value of a single element of the matrix. Setting a new
+	 * non-zero element, or zeroing a stored one, moves every later element
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @param value
+	 *            The value to use
+	 */
+	public void setElement(int row, int column, Fraction value) {
+		int position = this.find(row, column);
+		if (position >= 0) {
+			if (value.isZero()) {
+				// Remove the stored element
+				System.arraycopy(this.columnIndices, position + 1,
+						this.columnIndices, position, this.size - position - 1);
+				System.arraycopy(this.values, position + 1, this.values,
+						position, this.size - position - 1);
+				this.values[--this.size] = null;
+				for (int i = row + 1; i <= this.rows; i++) {
+					this.rowPointers[i]--;
+				}
+			} else {
+				// Replace the stored element
+				this.values[position] = value;
+			}
+		} else if (!value.isZero()) {
+			// Insert a new element where it belongs in the row
+			position = -position - 1;
+			this.ensureCapacity(this.size + 1);
+			System.arraycopy(this.columnIndices, position, this.columnIndices,
+					position + 1, this.size - position);
+			System.arraycopy(this.values, position, this.values, position + 1,
+					this.size - position);
+			this.columnIndices[position] = column;
+			this.values[position] = value;
+			this.size++;
+			for (int i = row + 1; i <= this.rows; i++) {
+				this.rowPointers[i]++;
+			}
+		}
+		this.compressedColumns = null;
+	}
+
+	/**
+	 * Set the value of a particular element of the matrix
+	 * 
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @param value
+	 *            The new value
+	 */
+	public void setElement(int row, int column, int value) {
+		this.setElement(row, column, Fraction.valueOf(value));
+	}
+
+	/**
+	 * Subtracts two rows of the matrix and stores the result into the first row
+	 * 
+	 * @param firstRow
+	 *            The row to store the result in
+	 * @param secondRow
+	 *            The row to subtract from the first
+	 */
+	public void subtractRows(int firstRow, int secondRow) {
+		this.combineRows(firstRow, Fraction.ONE, secondRow, Fraction.MINUS_ONE);
+	}
+
+	/**
+	 * Swaps two rows
+	 * 
+	 * @param firstRow
+	 *            The first row to swap
+	 * @param secondRow
+	 *            The second row to swap
+	 */
+	public void swapRows(int firstRow, int secondRow) {
+		// Order the rows, nothing to do for a row with itself
+		int low = Math.min(firstRow, secondRow);
+		int high = Math.max(firstRow, secondRow);
+		if (low == high) {
+			return;
+		}
+
+		// Rebuild the span from the first row to the end of the second
+		int start = this.rowPointers[low], end = this.rowPointers[high + 1];
+		int[] columns = new int[end - start];
+		Fraction[] values = new Fraction[end - start];
+		int position = 0;
+		int[] order = new int[high - low + 1];
+		for (int i = low; i <= high; i++) {
+			order[i - low] = i;
+		}
+		order[0] = high;
+		order[order.length - 1] = low;
+
+		// Copy the rows in their new order, recording where each starts
+		int[] lengths = new int[order.length];
+		for (int r = 0; r < order.length; r++) {
+			int row = order[r];
+			lengths[r] = this.rowLength(row);
+			System.arraycopy(this.columnIndices, this.rowPointers[row],
+					columns, position, lengths[r]);
+			System.arraycopy(this.values, this.rowPointers[row], values,
+					position, lengths[r]);
+			position += lengths[r];
+		}
+		System.arraycopy(columns, 0, this.columnIndices, start, columns.length);
+		System.arraycopy(values, 0, this.values, start, values.length);
+		for (int r = 0; r < order.length - 1; r++) {
+			this.rowPointers[low + r + 1] = this.rowPointers[low + r]
+					+ lengths[r];
+		}
+		this.compressedColumns = null;
+	}
+
+	/**
+	 * Convert to a dense matrix
+	 * 
+	 * @return A Matrix with the same elements
+	 */
+	public Matrix toMatrix() {
+		// Create a zero matrix and fill in the stored elements
+		Matrix matrix = new Matrix(this.rows, this.columns);
+		for (int i = 0; i < this.rows; i++) {
+			for (int p = this.rowPointers[i]; p < this.rowPointers[i + 1]; p++) {
+				matrix.setElement(i, this.columnIndices[p], this.values[p]);
+			}
+		}
+
+		// Return the matrix
+		return matrix;
+	}
+
+	/**
+	 * Gets each row and column of the matrix in standard form
+	 */
+	@Override
+	public String toString() {
+		// Build each row of the matrix, tab separated
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < this.rows; i++) {
+			for (Fraction element : this.getRow(i)) {
+				builder.append(element).append('\t');
+			}
+			builder.append('\n');
+		}
+
+		// Return the matrix
+		return builder.toString();
+	}
+}
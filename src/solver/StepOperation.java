@@ -0,0 +1,25 @@
+package solver;
+
+/**
+ * The elementary row operations a solver can take in one step
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum StepOperation {
+
+	/**
+	 * Swap the target row with the source row
+	 */
+	SWAP,
+
+	/**
+	 * Multiply the target row by the multiplier
+	 */
+	SCALE,
+
+	/**
+	 * Add the multiplier times the source row to the target row
+	 */
+	ADD
+}
@@ -0,0 +1,96 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the steps a solver takes, keeping as much of each as its
+ * TraceLevel asks for. When it is OFF nothing is stored or copied, so a
+ * solver can always report its steps without slowing down
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class StepRecorder {
+
+	// How much of each step to keep
+	private final TraceLevel level;
+
+	// The steps so far, in order
+	private final List<SolverStep> steps;
+
+	/**
+	 * Create a recorder
+	 * 
+	 * @param level
+	 *            How much of each step to keep
+	 */
+	public StepRecorder(TraceLevel level) {
+		// Store parameters
+		this.level = level;
+		this.steps = new ArrayList<SolverStep>();
+	}
+
+	/**
+	 * Forget every step recorded so far
+	 */
+	public void clear() {
+		this.steps.clear();
+	}
+
+	/**
+	 * Get how much of each step is kept
+	 * 
+	 * @return The trace level
+	 */
+	public TraceLevel getLevel() {
+		return this.level;
+	}
+
+	/**
+	 * Get the steps recorded so far
+	 * 
+	 * @return The steps in order, which can not be changed
+	 */
+	public List<SolverStep> getSteps() {
+		return Collections.unmodifiableList(this.steps);
+	}
+
+	/**
+	 * Checks if steps are being kept
+	 * 
+	 * @return False when the level is OFF
+	 */
+	public boolean isRecording() {
+		return this.level != TraceLevel.OFF;
+	}
+
+	/**
+	 * Record that a step was taken
+	 * 
+	 * @param operation
+	 *            The operation that was taken
+	 * @param targetRow
+	 *            The row that changed
+	 * @param sourceRow
+	 *            The other row involved, or -1 for a SCALE
+	 * @param multiplier
+	 *            The multiplier, or null for a SWAP
+	 * @param matrix
+	 *            The matrix after the step, only copied for SNAPSHOTS
+	 */
+	void record(StepOperation operation, int targetRow, int sourceRow,
+			Fraction multiplier, Matrix matrix) {
+		// Nothing to do when tracing is off
+		if (this.level == TraceLevel.OFF) {
+			return;
+		}
+
+		// Keep the step, with a copy of the matrix if asked for
+		Matrix snapshot = (this.level == TraceLevel.SNAPSHOTS) ? matrix
+				.getCopy() : null;
+		this.steps.add(new SolverStep(operation, targetRow, sourceRow,
+				multiplier, snapshot));
+	}
+}
@@ -0,0 +1,23 @@
+package solver;
+
+/**
+ * The ways a Matrix or Vector can hold its elements in memory
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum StorageType {
+
+	/**
+	 * One Fraction object per element, in a 2d array. Rows returned by the
+	 * Matrix are linked to it
+	 */
+	OBJECT,
+
+	/**
+	 * Numerators and denominators in flat primitive arrays, row by row. The
+	 * arrays are ints while every value fits, longs once one does not, and
+	 * only values too large for a long are kept as Fractions
+	 */
+	PACKED
+}
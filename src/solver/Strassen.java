@@ -0,0 +1,543 @@
+package solver;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Multiplies matrices with Winograd's form of Strassen's algorithm. The rows
+ * of the first matrix and the columns of the second are scaled to integers,
+ * so the recursion only adds and multiplies integers and each element of the
+ * product is reduced once at the end. Each level splits both matrices into
+ * quarters and finds the product with 7 quarter products and 15 additions,
+ * until the quarters are no larger than a cutoff and dot products take over.
+ * Sizes that do not halve evenly are padded with zeroes. The integers are
+ * longs when a bound on their growth allows it, and BigIntegers otherwise
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+final class Strassen {
+
+	// Largest size multiplied directly by default, see MultiplicationBenchmark
+	static final int DEFAULT_CUTOFF = 64;
+
+	// Bits a long holds without overflowing, leaving room for the sign
+	private static final int LONG_BITS = 62;
+
+	/**
+	 * Multiply two integer blocks with dot products
+	 * 
+	 * @param a
+	 *            The first block
+	 * @param b
+	 *            The block to multiply the first by
+	 * @return The product
+	 */
+	private static BigInteger[][] classic(BigInteger[][] a, BigInteger[][] b) {
+		// Start from zero
+		int columns = b[0].length;
+		BigInteger[][] product = new BigInteger[a.length][columns];
+		for (BigInteger[] row : product) {
+			Arrays.fill(row, BigInteger.ZERO);
+		}
+
+		// Add each row of b, scaled by an element of a, into the product
+		for (int i = 0; i < a.length; i++) {
+			BigInteger[] row = product[i];
+			for (int k = 0; k < b.length; k++) {
+				BigInteger scale = a[i][k];
+				if (scale.signum() == 0) {
+					continue;
+				}
+				for (int j = 0; j < columns; j++) {
+					if (b[k][j].signum() != 0) {
+						row[j] = row[j].add(scale.multiply(b[k][j]));
+					}
+				}
+			}
+		}
+
+		// Return the product
+		return product;
+	}
+
+	/**
+	 * Multiply two integer blocks with dot products
+	 * 
+	 * @param a
+	 *            The first block
+	 * @param b
+	 *            The block to multiply the first by
+	 * @return The product, which must fit in longs
+	 */
+	private static long[][] classic(long[][] a, long[][] b) {
+		// Add each row of b, scaled by an element of a, into the product
+		int columns = b[0].length;
+		long[][] product = new long[a.length][columns];
+		for (int i = 0; i < a.length; i++) {
+			long[] row = product[i];
+			for (int k = 0; k < b.length; k++) {
+				long scale = a[i][k];
+				if (scale == 0) {
+					continue;
+				}
+				long[] other = b[k];
+				for (int j = 0; j < columns; j++) {
+					row[j] += scale * other[j];
+				}
+			}
+		}
+
+		// Return the product
+		return product;
+	}
+
+	/**
+	 * Add or subtract two integer blocks element by element
+	 * 
+	 * @param one
+	 *            The first block
+	 * @param two
+	 *            The second block, the same size
+	 * @param subtract
+	 *            True to subtract the second block, false to add it
+	 * @return A new block with the sums or differences
+	 */
+	private static BigInteger[][] combine(BigInteger[][] one,
+			BigInteger[][] two, boolean subtract) {
+		// Combine each element
+		BigInteger[][] result = new BigInteger[one.length][one[0].length];
+		for (int i = 0; i < one.length; i++) {
+			for (int j = 0; j < one[0].length; j++) {
+				result[i][j] = subtract ? one[i][j].subtract(two[i][j])
+						: one[i][j].add(two[i][j]);
+			}
+		}
+
+		// Return the result
+		return result;
+	}
+
+	/**
+	 * Add or subtract two integer blocks element by element
+	 * 
+	 * @param one
+	 *            The first block
+	 * @param two
+	 *            The second block, the same size
+	 * @param subtract
+	 *            True to subtract the second block, false to add it
+	 * @return A new block with the sums or differences
+	 */
+	private static long[][] combine(long[][] one, long[][] two,
+			boolean subtract) {
+		// Combine each element
+		long[][] result = new long[one.length][one[0].length];
+		for (int i = 0; i < one.length; i++) {
+			for (int j = 0; j < one[0].length; j++) {
+				result[i][j] = subtract ? one[i][j] - two[i][j] : one[i][j]
+						+ two[i][j];
+			}
+		}
+
+		// Return the result
+		return result;
+	}
+
+	/**
+	 * Find the most bits in any element of an integer block
+	 * 
+	 * @param block
+	 *            The block
+	 * @return The largest bit length
+	 */
+	private static int maximumBits(BigInteger[][] block) {
+		int bits = 0;
+		for (BigInteger[] row : block) {
+			for (BigInteger element : row) {
+				bits = Math.max(bits, element.bitLength());
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * Multiply two matrices
+	 * 
+	 * @param one
+	 *            The first Matrix
+	 * @param two
+	 *            The Matrix to multiply the first by
+	 * @param cutoff
+	 *            The largest size to multiply directly instead of splitting
+	 * @return The product of the matrices: one * two, stored like one
+	 * @throws IllegalArgumentException
+	 *             If the width of one is not the height of two, or the cutoff
+	 *             is less than 1
+	 */
+	static Matrix multiply(Matrix one, Matrix two, int cutoff) {
+		// Check that the matrices can be multiplied
+		int rows = one.getRows(), inner = one.getColumns();
+		int columns = two.getColumns();
+		if (inner != two.getRows()) {
+			throw new IllegalArgumentException("Can not multiply a " + rows
+					+ "x" + inner + " matrix by a " + two.getRows() + "x"
+					+ columns + " matrix");
+		}
+		if (cutoff < 1) {
+			throw new IllegalArgumentException("Cutoff must be at least 1");
+		}
+
+		// Halve until the largest side fits in the cutoff
+		int largest = Math.max(rows, Math.max(inner, columns));
+		int levels = 0;
+		while (Strassen.padded(largest, levels) >> levels > cutoff) {
+			levels++;
+		}
+
+		// Scale the rows of one and the columns of two to integers, padding
+		// each side so it halves evenly at every level
+		BigInteger[] rowScales = new BigInteger[rows];
+		BigInteger[][] left = Strassen.scale(one, rowScales,
+				Strassen.padded(rows, levels), Strassen.padded(inner, levels));
+		BigInteger[] columnScales = new BigInteger[columns];
+		BigInteger[][] right = Strassen.transpose(Strassen.scale(
+				Matrix.transpose(two, 1), columnScales,
+				Strassen.padded(columns, levels),
+				Strassen.padded(inner, levels)));
+
+		// Each level at most quadruples the operands and adds four products,
+		// so bound the bits of every intermediate value
+		int bits = Strassen.maximumBits(left) + Strassen.maximumBits(right)
+				+ 6 * levels + 2
+				+ (32 - Integer.numberOfLeadingZeros(left[0].length));
+
+		// Multiply on longs when they can not overflow
+		BigInteger[][] product;
+		if (bits <= LONG_BITS) {
+			long[][] result = Strassen.multiply(Strassen.toLong(left),
+					Strassen.toLong(right), levels);
+			product = new BigInteger[rows][columns];
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					product[i][j] = BigInteger.valueOf(result[i][j]);
+				}
+			}
+		} else {
+			product = Strassen.multiply(left, right, levels);
+		}
+
+		// Undo the scales and drop the padding
+		Fraction[][] result = new Fraction[rows][columns];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				result[i][j] = Fraction.valueOf(product[i][j],
+						rowScales[i].multiply(columnScales[j]));
+			}
+		}
+
+		// Return the product, stored like the first matrix
+		return Matrix.fromRows(result, one.getStorageType());
+	}
+
+	/**
+	 * Multiply two integer blocks whose sides all halve evenly a number of
+	 * times
+	 * 
+	 * @param a
+	 *            The first block
+	 * @param b
+	 *            The block to multiply the first by
+	 * @param levels
+	 *            How many more times to split
+	 * @return The product
+	 */
+	private static BigInteger[][] multiply(BigInteger[][] a, BigInteger[][] b,
+			int levels) {
+		// Small enough for dot products
+		if (levels == 0) {
+			return Strassen.classic(a, b);
+		}
+
+		// Split both blocks into quarters
+		int rows = a.length / 2, inner = b.length / 2, columns = b[0].length / 2;
+		BigInteger[][] a11 = quarter(a, 0, 0, rows, inner);
+		BigInteger[][] a12 = quarter(a, 0, inner, rows, inner);
+		BigInteger[][] a21 = quarter(a, rows, 0, rows, inner);
+		BigInteger[][] a22 = quarter(a, rows, inner, rows, inner);
+		BigInteger[][] b11 = quarter(b, 0, 0, inner, columns);
+		BigInteger[][] b12 = quarter(b, 0, columns, inner, columns);
+		BigInteger[][] b21 = quarter(b, inner, 0, inner, columns);
+		BigInteger[][] b22 = quarter(b, inner, columns, inner, columns);
+
+		// Winograd's sums of the quarters of a and b
+		BigInteger[][] s1 = combine(a21, a22, false);
+		BigInteger[][] s2 = combine(s1, a11, true);
+		BigInteger[][] s3 = combine(a11, a21, true);
+		BigInteger[][] s4 = combine(a12, s2, true);
+		BigInteger[][] t1 = combine(b12, b11, true);
+		BigInteger[][] t2 = combine(b22, t1, true);
+		BigInteger[][] t3 = combine(b22, b12, true);
+		BigInteger[][] t4 = combine(t2, b21, true);
+
+		// The seven products
+		int next = levels - 1;
+		BigInteger[][] m1 = multiply(a11, b11, next);
+		BigInteger[][] m2 = multiply(a12, b21, next);
+		BigInteger[][] m3 = multiply(s4, b22, next);
+		BigInteger[][] m4 = multiply(a22, t4, next);
+		BigInteger[][] m5 = multiply(s1, t1, next);
+		BigInteger[][] m6 = multiply(s2, t2, next);
+		BigInteger[][] m7 = multiply(s3, t3, next);
+
+		// Combine the products into the quarters of the result
+		BigInteger[][] u2 = combine(m1, m6, false);
+		BigInteger[][] u3 = combine(u2, m7, false);
+		BigInteger[][] u4 = combine(u2, m5, false);
+		BigInteger[][] product = new BigInteger[2 * rows][];
+		join(product, combine(m1, m2, false), combine(u4, m3, false), 0);
+		join(product, combine(u3, m4, true), combine(u3, m5, false), rows);
+
+		// Return the product
+		return product;
+	}
+
+	/**
+	 * Multiply two integer blocks whose sides all halve evenly a number of
+	 * times
+	 * 
+	 * @param a
+	 *            The first block
+	 * @param b
+	 *            The block to multiply the first by
+	 * @param levels
+	 *            How many more times to split
+	 * @return The product, every intermediate value must fit in a long
+	 */
+	private static long[][] multiply(long[][] a, long[][] b, int levels) {
+		// Small enough for dot products
+		if (levels == 0) {
+			return Strassen.classic(a, b);
+		}
+
+		// Split both blocks into quarters
+		int rows = a.length / 2, inner = b.length / 2, columns = b[0].length / 2;
+		long[][] a11 = quarter(a, 0, 0, rows, inner);
+		long[][] a12 = quarter(a, 0, inner, rows, inner);
+		long[][] a21 = quarter(a, rows, 0, rows, inner);
+		long[][] a22 = quarter(a, rows, inner, rows, inner);
+		long[][] b11 = quarter(b, 0, 0, inner, columns);
+		long[][] b12 = quarter(b, 0, columns, inner, columns);
+		long[][] b21 = quarter(b, inner, 0, inner, columns);
+		long[][] b22 = quarter(b, inner, columns, inner, columns);
+
+		// Winograd's sums of the quarters of a and b
+		long[][] s1 = combine(a21, a22, false);
+		long[][] s2 = combine(s1, a11, true);
+		long[][] s3 = combine(a11, a21, true);
+		long[][] s4 = combine(a12, s2, true);
+		long[][] t1 = combine(b12, b11, true);
+		long[][] t2 = combine(b22, t1, true);
+		long[][] t3 = combine(b22, b12, true);
+		long[][] t4 = combine(t2, b21, true);
+
+		// The seven products
+		int next = levels - 1;
+		long[][] m1 = multiply(a11, b11, next);
+		long[][] m2 = multiply(a12, b21, next);
+		long[][] m3 = multiply(s4, b22, next);
+		long[][] m4 = multiply(a22, t4, next);
+		long[][] m5 = multiply(s1, t1, next);
+		long[][] m6 = multiply(s2, t2, next);
+		long[][] m7 = multiply(s3, t3, next);
+
+		// Combine the products into the quarters of the result
+		long[][] u2 = combine(m1, m6, false);
+		long[][] u3 = combine(u2, m7, false);
+		long[][] u4 = combine(u2, m5, false);
+		long[][] product = new long[2 * rows][];
+		join(product, combine(m1, m2, false), combine(u4, m3, false), 0);
+		join(product, combine(u3, m4, true), combine(u3, m5, false), rows);
+
+		// Return the product
+		return product;
+	}
+
+	/**
+	 * Put two quarters side by side into rows of a block
+	 * 
+	 * @param block
+	 *            The block to fill
+	 * @param left
+	 *            The left quarter
+	 * @param right
+	 *            The right quarter
+	 * @param row
+	 *            The first row of the block to fill
+	 */
+	private static void join(BigInteger[][] block, BigInteger[][] left,
+			BigInteger[][] right, int row) {
+		int columns = left[0].length;
+		for (int i = 0; i < left.length; i++) {
+			block[row + i] = Arrays.copyOf(left[i], 2 * columns);
+			System.arraycopy(right[i], 0, block[row + i], columns, columns);
+		}
+	}
+
+	/**
+	 * Put two quarters side by side into rows of a block
+	 * 
+	 * @param block
+	 *            The block to fill
+	 * @param left
+	 *            The left quarter
+	 * @param right
+	 *            The right quarter
+	 * @param row
+	 *            The first row of the block to fill
+	 */
+	private static void join(long[][] block, long[][] left, long[][] right,
+			int row) {
+		int columns = left[0].length;
+		for (int i = 0; i < left.length; i++) {
+			block[row + i] = Arrays.copyOf(left[i], 2 * columns);
+			System.arraycopy(right[i], 0, block[row + i], columns, columns);
+		}
+	}
+
+	/**
+	 * Round a size up so it halves evenly a number of times
+	 * 
+	 * @param size
+	 *            The size
+	 * @param levels
+	 *            How many times it must halve
+	 * @return The smallest multiple of 2^levels that is at least size
+	 */
+	private static int padded(int size, int levels) {
+		int step = 1 << levels;
+		return (size + step - 1) / step * step;
+	}
+
+	/**
+	 * Copy a quarter out of an integer block
+	 * 
+	 * @param block
+	 *            The block
+	 * @param row
+	 *            The first row of the quarter
+	 * @param column
+	 *            The first column of the quarter
+	 * @param rows
+	 *            The height of the quarter
+	 * @param columns
+	 *            The width of the quarter
+	 * @return The quarter
+	 */
+	private static BigInteger[][] quarter(BigInteger[][] block, int row,
+			int column, int rows, int columns) {
+		BigInteger[][] quarter = new BigInteger[rows][];
+		for (int i = 0; i < rows; i++) {
+			quarter[i] = Arrays.copyOfRange(block[row + i], column, column
+					+ columns);
+		}
+		return quarter;
+	}
+
+	/**
+	 * Copy a quarter out of an integer block
+	 * 
+	 * @param block
+	 *            The block
+	 * @param row
+	 *            The first row of the quarter
+	 * @param column
+	 *            The first column of the quarter
+	 * @param rows
+	 *            The height of the quarter
+	 * @param columns
+	 *            The width of the quarter
+	 * @return The quarter
+	 */
+	private static long[][] quarter(long[][] block, int row, int column,
+			int rows, int columns) {
+		long[][] quarter = new long[rows][];
+		for (int i = 0; i < rows; i++) {
+			quarter[i] = Arrays.copyOfRange(block[row + i], column, column
+					+ columns);
+		}
+		return quarter;
+	}
+
+	/**
+	 * Scale each row of a matrix to integers, padded with zeroes
+	 * 
+	 * @param matrix
+	 *            The matrix
+	 * @param scales
+	 *            The array to fill with the scale of each row
+	 * @param rows
+	 *            The height of the padded block
+	 * @param columns
+	 *            The width of the padded block
+	 * @return The scaled and padded block
+	 */
+	private static BigInteger[][] scale(Matrix matrix, BigInteger[] scales,
+			int rows, int columns) {
+		// Scale each row, then fill the rest with zeroes
+		BigInteger[][] scaled = new BigInteger[rows][columns];
+		BigInteger[] row = new BigInteger[matrix.getColumns()];
+		for (int i = 0; i < rows; i++) {
+			if (i < matrix.getRows()) {
+				scales[i] = Bareiss.scaleRow(matrix, i, row);
+				System.arraycopy(row, 0, scaled[i], 0, row.length);
+				Arrays.fill(scaled[i], row.length, columns, BigInteger.ZERO);
+			} else {
+				Arrays.fill(scaled[i], BigInteger.ZERO);
+			}
+		}
+
+		// Return the block
+		return scaled;
+	}
+
+	/**
+	 * Convert an integer block to longs
+	 * 
+	 * @param block
+	 *            The block, every element must fit in a long
+	 * @return The block as longs
+	 */
+	private static long[][] toLong(BigInteger[][] block) {
+		long[][] result = new long[block.length][block[0].length];
+		for (int i = 0; i < block.length; i++) {
+			for (int j = 0; j < block[0].length; j++) {
+				result[i][j] = block[i][j].longValue();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Swap the rows and columns of an integer block
+	 * 
+	 * @param block
+	 *            The block
+	 * @return The transpose of the block
+	 */
+	private static BigInteger[][] transpose(BigInteger[][] block) {
+		BigInteger[][] transposed = new BigInteger[block[0].length][block.length];
+		for (int i = 0; i < block.length; i++) {
+			for (int j = 0; j < block[0].length; j++) {
+				transposed[j][i] = block[i][j];
+			}
+		}
+		return transposed;
+	}
+
+	/**
+	 * Only static methods, not meant to be created
+	 */
+	private Strassen() {
+	}
+}
@@ -0,0 +1,26 @@
+package solver;
+
+/**
+ * How much a StepRecorder keeps of each step a solver takes
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum TraceLevel {
+
+	/**
+	 * Nothing is kept, tracing costs nothing
+	 */
+	OFF,
+
+	/**
+	 * The operation, rows and multiplier of each step
+	 */
+	OPERATIONS,
+
+	/**
+	 * The operations and a copy of the matrix after each one. The copies are
+	 * only turned into text when asked for
+	 */
+	SNAPSHOTS
+}
@@ -1,5 +1,7 @@
 package solver;
 
+import java.io.IOException;
+
 /**
  * A class for representing and manipulating Vectors
  * 
@@ -19,7 +21,7 @@ public class Vector {
 	 */
 	public static Vector addVectors(Vector one, Vector two) {
 		// Create a new Vector to hold the sum
-		Vector sum = new Vector(one.rows);
+		Vector sum = new Vector(one.rows, one.getStorageType());
 
 		// Traverse the vectors
 		for (int i = 0; i < one.rows; i++) {
@@ -46,10 +48,11 @@ public class Vector {
 	 */
 	public static Vector subtractVectors(Vector one, Vector two) {
 		// Subtracting is the same as adding the negation of one to the other
-		return Vector.addVectors(one, two.multiply(new Fraction(-1)));
+		return Vector.addVectors(one, two.multiply(Fraction.MINUS_ONE));
 	}
 
-	private Fraction[] vector;
+	// The elements, held as a single row
+	private MatrixStorage vector;
 
 	private int rows;
 
@@ -60,11 +63,8 @@ public class Vector {
 	 *            The Fraction array to use
 	 */
 	public Vector(Fraction[] vector) {
-		// Call basic constructor
-		this(vector.length);
-
-		// Store parameters
-		this.vector = vector;
+		// Wrap the array without copying it
+		this(new ObjectStorage(new Fraction[][] { vector }));
 	}
 
 	/**
@@ -74,11 +74,22 @@ public class Vector {
 	 *            The number of rows in the Vector
 	 */
 	public Vector(int rows) {
-		// Store parameters
-		this.rows = rows;
+		// Call storage constructor
+		this(rows, StorageType.OBJECT);
+	}
 
+	/**
+	 * Creates a new Vector with the number of rows, that holds its elements a
+	 * particular way
+	 * 
+	 * @param rows
+	 *            The number of rows in the Vector
+	 * @param type
+	 *            How the elements are stored
+	 */
+	public Vector(int rows, StorageType type) {
 		// Set default vector
-		this.vector = getDefaultVector();
+		this(MatrixStorage.create(type, 1, rows));
 	}
 
 	/**
@@ -92,6 +103,18 @@ public class Vector {
 		this(Fraction.convertRowToFraction(vector));
 	}
 
+	/**
+	 * Creates a Vector around a single row store of elements
+	 * 
+	 * @param vector
+	 *            The store of elements
+	 */
+	private Vector(MatrixStorage vector) {
+		// Store parameters
+		this.vector = vector;
+		this.rows = vector.getColumns();
+	}
+
 	/**
 	 * Divide the Vector by a Fraction
 	 * 
@@ -103,24 +126,6 @@ public class Vector {
 		return this.multiply(Fraction.getInverse(fraction));
 	}
 
-	/**
-	 * Gets a vector filled with zeroes
-	 * 
-	 * @return A zero vector
-	 */
-	private Fraction[] getDefaultVector() {
-		// Create a vector of the right size
-		Fraction[] vector = new Fraction[this.rows];
-
-		// Fill the vector with zeroes
-		for (int i = 0; i < vector.length; i++) {
-			vector[i] = new Fraction(0);
-		}
-
-		// Return the vector
-		return vector;
-	}
-
 	/**
 	 * Get the distance of a vector in standard position
 	 * 
@@ -128,16 +133,17 @@ public class Vector {
 	 */
 	public Exponential getDistance() {
 		// A Fraction to hold the sum of the squares of the elements
-		Fraction total = new Fraction(0);
+		Fraction total = Fraction.ZERO;
 
 		// Traverse the vector
-		for (Fraction element : this.vector) {
+		for (int i = 0; i < this.rows; i++) {
 			// Add the square of the element to the total
-			total.add(Fraction.multiplyFraction(element, element));
+			Fraction element = this.getElement(i);
+			total = total.add(Fraction.multiplyFraction(element, element));
 		}
 
 		// Return an Exponential that represents the square root of the total
-		return new Exponential(total, new Fraction(1, 2));
+		return new Exponential(total, Fraction.HALF);
 	}
 
 	/**
@@ -148,16 +154,26 @@ public class Vector {
 	 * @return The element at the row
 	 */
 	public Fraction getElement(int row) {
-		return this.vector[row];
+		return this.vector.get(0, row);
+	}
+
+	/**
+	 * Get the way the Vector stores its elements
+	 * 
+	 * @return The storage type of the Vector
+	 */
+	public StorageType getStorageType() {
+		return this.vector.getType();
 	}
 
 	/**
-	 * Get the Vector
+	 * Get the Vector. With {@link StorageType#OBJECT} this is the array
+	 * backing the Vector, other types return a copy
 	 * 
 	 * @return A 1d array of fractions that represent the Vector
 	 */
 	public Fraction[] getVector() {
-		return this.vector;
+		return this.vector.getRow(0);
 	}
 
 	/**
@@ -169,12 +185,12 @@ public class Vector {
 	 */
 	public Vector multiply(Fraction fraction) {
 		// Create a Vector of same size
-		Vector multiplied = new Vector(this.rows);
+		Vector multiplied = new Vector(this.rows, this.getStorageType());
 
 		// Traverse the Vector
 		for (int i = 0; i < this.rows; i++) {
 			// Multiply the element at the index by the fraction
-			Fraction product = Fraction.multiplyFraction(this.vector[i],
+			Fraction product = Fraction.multiplyFraction(this.getElement(i),
 					fraction);
 
 			// Set the element of the Vector to the product
@@ -194,22 +210,42 @@ public class Vector {
 	 *            The new value
 	 */
 	public void setElement(int row, Fraction value) {
-		this.vector[row] = value;
+		this.vector.set(0, row, value);
 	}
 
 	/**
 	 * Gets each row of the Vector as a String
 	 */
+	@Override
 	public String toString() {
-		// Empty String to hold Vector
-		String vectorString = "";
+		// A single column in CSV is one element per line
+		return this.toString(MatrixFormat.CSV);
+	}
 
-		// Traverse the vector
-		for (int i = 0; i < this.rows; i++) {
-			vectorString += this.vector[i] + "\n";
-		}
+	/**
+	 * Gets the Vector as a column in a format
+	 * 
+	 * @param format
+	 *            The layout to use
+	 * @return The Vector as text
+	 */
+	public String toString(MatrixFormat format) {
+		// The elements are stored as one row, write them as a column
+		return MatrixWriter.toString(this.vector, true, format);
+	}
 
-		// Return the Vector as a String
-		return vectorString;
+	/**
+	 * Write the Vector as a column, without building the whole text in
+	 * memory first
+	 * 
+	 * @param out
+	 *            Where to write, such as a Writer or StringBuilder
+	 * @param format
+	 *            The layout to use
+	 * @throws IOException
+	 *             If writing fails
+	 */
+	public void write(Appendable out, MatrixFormat format) throws IOException {
+		MatrixWriter.write(this.vector, true, format, out);
 	}
 }
@@ -0,0 +1,68 @@
+package solver;
+
+/**
+ * The kinds of matrix a {@link WorkloadGenerator} can make
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public enum WorkloadFamily {
+
+	/**
+	 * Every element a random integer
+	 */
+	DENSE_INTEGER,
+
+	/**
+	 * Every element a random fraction, with a numerator and denominator of
+	 * exactly the chosen number of bits before it is reduced
+	 */
+	RATIONAL,
+
+	/**
+	 * Random integers at a chosen fraction of the positions, zero elsewhere
+	 */
+	SPARSE,
+
+	/**
+	 * Random integers within a chosen distance of the diagonal, zero
+	 * elsewhere
+	 */
+	BANDED,
+
+	/**
+	 * Random integers, with each diagonal element larger than the rest of
+	 * its row put together, so the matrix is invertible and the iterative
+	 * solvers converge
+	 */
+	DIAGONALLY_DOMINANT,
+
+	/**
+	 * A symmetric, diagonally dominant matrix with a positive diagonal, which
+	 * is always positive definite
+	 */
+	SYMMETRIC_POSITIVE_DEFINITE,
+
+	/**
+	 * The Hilbert matrix, 1 / (i + j + 1), invertible but badly conditioned
+	 */
+	HILBERT,
+
+	/**
+	 * Powers of the nodes 1 to n, (i + 1)^j, invertible with very large
+	 * elements
+	 */
+	VANDERMONDE,
+
+	/**
+	 * Random integers with the last row the sum of two others, so the rank
+	 * is one less than the size
+	 */
+	SINGULAR,
+
+	/**
+	 * A singular matrix with a tiny fraction added to its last diagonal
+	 * element, invertible with a determinant close to zero
+	 */
+	NEAR_SINGULAR
+}
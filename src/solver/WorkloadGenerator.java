@@ -0,0 +1,617 @@
+package solver;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Makes seeded matrices and vectors of classic kinds for benchmarks and
+ * stress tests, in memory or written straight to a file. Each random element
+ * is a hash of the seed, the kind of matrix and its position, so the same
+ * seed and settings always give the same values whatever order they are made
+ * in, and a matrix written to a file is identical to the one made in memory
+ * without ever being held in memory itself
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class WorkloadGenerator {
+
+	/**
+	 * The non-zero elements of one row, reused from row to row
+	 */
+	private static final class Row {
+
+		// The column and value of each element
+		private int[] columns = new int[16];
+		private Fraction[] values = new Fraction[16];
+
+		private int count;
+
+		/**
+		 * Add an element after the others, unless it is zero
+		 *
+		 * @param column
+		 *            The column of the element
+		 * @param value
+		 *            The element
+		 */
+		void add(int column, Fraction value) {
+			if (value.isZero()) {
+				return;
+			}
+			if (this.count == this.columns.length) {
+				this.columns = Arrays.copyOf(this.columns, 2 * this.count);
+				this.values = Arrays.copyOf(this.values, 2 * this.count);
+			}
+			this.columns[this.count] = column;
+			this.values[this.count++] = value;
+		}
+	}
+
+	// The default number of bits in each random element
+	public static final int DEFAULT_BITS = 8;
+
+	// The default distance from the diagonal of a banded matrix
+	public static final int DEFAULT_BANDWIDTH = 2;
+
+	// The default fraction of non-zero elements in a sparse matrix
+	public static final double DEFAULT_DENSITY = 0.01;
+
+	// Separates the hashes of vectors from those of matrices
+	private static final long VECTOR_SALT = WorkloadFamily.values().length;
+
+	/**
+	 * Scramble a value with the SplitMix64 finalizer, so nearby inputs give
+	 * unrelated outputs
+	 * 
+	 * @param value
+	 *            The value
+	 * @return The scrambled value
+	 */
+	private static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	// The distance from the diagonal of a banded matrix
+	private int bandwidth;
+
+	// The number of bits in each random element
+	private int bits;
+
+	// The fraction of non-zero elements in a sparse matrix
+	private double density;
+
+	// The seed every value is made from
+	private final long seed;
+
+	/**
+	 * Create a generator with the default settings
+	 * 
+	 * @param seed
+	 *            The seed, the same seed and settings always give the same
+	 *            matrices
+	 */
+	public WorkloadGenerator(long seed) {
+		this.seed = seed;
+		this.bits = DEFAULT_BITS;
+		this.bandwidth = DEFAULT_BANDWIDTH;
+		this.density = DEFAULT_DENSITY;
+	}
+
+	/**
+	 * Get the sum of the sizes of a row of random integers, leaving out the
+	 * diagonal
+	 * 
+	 * @param family
+	 *            The kind of matrix
+	 * @param size
+	 *            The number of rows and columns
+	 * @param row
+	 *            The row
+	 * @return One more than the sum, a diagonal element that dominates the
+	 *         row
+	 */
+	private Fraction dominant(WorkloadFamily family, int size, int row) {
+		FractionAccumulator total = new FractionAccumulator();
+		total.addProduct(Fraction.ONE, Fraction.ONE);
+		for (int j = 0; j < size; j++) {
+			if (j != row) {
+				Fraction value = this.element(family, size, row, j);
+				total.addProduct((value.signum() < 0) ? value.negate() : value,
+						Fraction.ONE);
+			}
+		}
+		return total.getSum();
+	}
+
+	/**
+	 * Get one element of a matrix from any family but SPARSE
+	 * 
+	 * @param family
+	 *            The kind of matrix
+	 * @param size
+	 *            The number of rows and columns
+	 * @param row
+	 *            The row of the element
+	 * @param column
+	 *            The column of the element
+	 * @return The element
+	 */
+	private Fraction element(WorkloadFamily family, int size, int row,
+			int column) {
+		switch (family) {
+		case RATIONAL:
+			return this.fraction(this.hash(family, row, column));
+		case BANDED:
+			return (Math.abs(row - column) > this.bandwidth) ? Fraction.ZERO
+					: this.integer(this.hash(family, row, column));
+		case DIAGONALLY_DOMINANT:
+			return (row == column) ? this.dominant(family, size, row) : this
+					.integer(this.hash(family, row, column));
+		case SYMMETRIC_POSITIVE_DEFINITE:
+			// Hash each pair once, so the matrix is symmetric
+			return (row == column) ? this.dominant(family, size, row) : this
+					.integer(this.hash(family, Math.min(row, column),
+							Math.max(row, column)));
+		case HILBERT:
+			return Fraction.valueOf(1, row + column + 1);
+		case VANDERMONDE:
+			return Fraction.valueOf(BigInteger.valueOf(row + 1).pow(column),
+					BigInteger.ONE);
+		case SINGULAR:
+		case NEAR_SINGULAR:
+			// The rows above the last are diagonally dominant, so they are
+			// independent, and the last is the sum of two of them
+			if (size == 1) {
+				return (family == WorkloadFamily.SINGULAR) ? Fraction.ZERO
+						: this.perturbation();
+			}
+			if (row < size - 1) {
+				return (row == column) ? this.dominant(family, size, row)
+						: this.integer(this.hash(family, row, column));
+			}
+			Fraction value = this.element(family, size, 0, column).add(
+					this.element(family, size, size - 2, column));
+			return (family == WorkloadFamily.NEAR_SINGULAR && column == row) ? value
+					.add(this.perturbation()) : value;
+		default:
+			return this.integer(this.hash(family, row, column));
+		}
+	}
+
+	/**
+	 * Get the field a file of a kind of matrix needs
+	 * 
+	 * @param family
+	 *            The kind of matrix
+	 * @return RATIONAL if its elements can be fractions, otherwise INTEGER
+	 */
+	private static MatrixMarketField field(WorkloadFamily family) {
+		switch (family) {
+		case RATIONAL:
+		case HILBERT:
+		case NEAR_SINGULAR:
+			return MatrixMarketField.RATIONAL;
+		default:
+			return MatrixMarketField.INTEGER;
+		}
+	}
+
+	/**
+	 * Get a random fraction with a numerator and denominator of exactly the
+	 * set number of bits
+	 * 
+	 * @param hash
+	 *            The random bits to use
+	 * @return The fraction
+	 */
+	private Fraction fraction(long hash) {
+		BigInteger numerator = this.magnitude(hash).setBit(this.bits - 1);
+		BigInteger denominator = this.magnitude(mix(~hash)).setBit(
+				this.bits - 1);
+		return Fraction.valueOf((hash < 0) ? numerator.negate() : numerator,
+				denominator);
+	}
+
+	/**
+	 * Make a square matrix
+	 * 
+	 * @param family
+	 *            The kind of matrix
+	 * @param size
+	 *            The number of rows and columns
+	 * @return The matrix
+	 * @throws IllegalArgumentException
+	 *             If the size is less than one
+	 */
+	public Matrix generate(WorkloadFamily family, int size) {
+		this.checkSize(size);
+
+		// Fill each row from its non-zero elements
+		Fraction[][] elements = new Fraction[size][size];
+		Row row = new Row();
+		for (int i = 0; i < size; i++) {
+			Arrays.fill(elements[i], Fraction.ZERO);
+			this.row(family, size, i, row);
+			for (int k = 0; k < row.count; k++) {
+				elements[i][row.columns[k]] = row.values[k];
+			}
+		}
+		return new Matrix(elements);
+	}
+
+	/**
+	 * Make a square matrix, storing only its non-zero elements. Sparse and
+	 * banded matrices are made without visiting their zeroes, so they can be
+	 * far larger than a Matrix could hold
+	 * 
+	 * @param family
+	 *            The kind of matrix
+	 * @param size
+	 *            The number of rows and columns
+	 * @return The matrix
+	 * @throws IllegalArgumentException
+	 *             If the size is less than one
+	 */
+	public SparseMatrix generateSparse(WorkloadFamily family, int size) {
+		this.checkSize(size);
+
+		// List the non-zero elements, row by row
+		int[] rows = new int[16], columns = new int[16];
+		Fraction[] values = new Fraction[16];
+		int count = 0;
+		Row row = new Row();
+		for (int i = 0; i < size; i++) {
+			this.row(family, size, i, row);
+			if (count + row.count > rows.length) {
+				int capacity = Math.max(2 * rows.length, count + row.count);
+				rows = Arrays.copyOf(rows, capacity);
+				columns = Arrays.copyOf(columns, capacity);
+				values = Arrays.copyOf(values, capacity);
+			}
+			Arrays.fill(rows, count, count + row.count, i);
+			System.arraycopy(row.columns, 0, columns, count, row.count);
+			System.arraycopy(row.values, 0, values, count, row.count);
+			count += row.count;
+		}
+		return new SparseMatrix(size, size, Arrays.copyOf(rows, count),
+				Arrays.copyOf(columns, count), Arrays.copyOf(values, count));
+	}
+
+	/**
+	 * Make a vector of random integers
+	 * 
+	 * @param size
+	 *            The number of elements
+	 * @return The vector
+	 * @throws IllegalArgumentException
+	 *             If the size is less than one
+	 */
+	public Vector generateVector(int size) {
+		this.checkSize(size);
+		Fraction[] elements = new Fraction[size];
+		for (int i = 0; i < size; i++) {
+			elements[i] = this.integer(this.hash(VECTOR_SALT, i, 0));
+		}
+		return new Vector(elements);
+	}
+
+	/**
+	 * Get the distance from the diagonal of a banded matrix
+	 * 
+	 * @return The bandwidth
+	 */
+	public int getBandwidth() {
+		return this.bandwidth;
+	}
+
+	/**
+	 * Get the number of bits in each random element
+	 * 
+	 * @return The number of bits
+	 */
+	public int getBits() {
+		return this.bits;
+	}
+
+	/**
+	 * Get the fraction of non-zero elements in a sparse matrix
+	 * 
+	 * @return The density
+	 */
+	public double getDensity() {
+		return this.density;
+	}
+
+	/**
+	 * Get the seed every value is made from
+	 * 
+	 * @return The seed
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Hash a position in a matrix
+	 * 
+	 * @param family
+	 *            The kind of matrix
+	 * @param row
+	 *            The row
+	 * @param column
+	 *            The column
+	 * @return Random bits for the position
+	 */
+	private long hash(WorkloadFamily family, long row, long column) {
+		return this.hash(family.ordinal(), row, column);
+	}
+
+	/**
+	 * Hash a position in a matrix or vector
+	 * 
+	 * @param salt
+	 *            What is being made
+	 * @param row
+	 *            The row
+	 * @param column
+	 *            The column
+	 * @return Random bits for the position
+	 */
+	private long hash(long salt, long row, long column) {
+		return mix(mix(mix(this.seed + salt) + row) + column);
+	}
+
+	/**
+	 * Get a random integer of at most the set number of bits, which may be
+	 * zero
+	 * 
+	 * @param hash
+	 *            The random bits to use
+	 * @return The integer
+	 */
+	private Fraction integer(long hash) {
+		// Small sizes fit in the hash itself
+		if (this.bits < 63) {
+			long magnitude = (hash >>> 1) >>> (63 - this.bits);
+			return Fraction.valueOf((hash < 0) ? -magnitude : magnitude);
+		}
+		BigInteger magnitude = this.magnitude(hash);
+		return Fraction.valueOf((hash < 0) ? magnitude.negate() : magnitude,
+				BigInteger.ONE);
+	}
+
+	/**
+	 * Get a random positive integer of at most the set number of bits
+	 * 
+	 * @param hash
+	 *            The random bits to start from
+	 * @return The integer
+	 */
+	private BigInteger magnitude(long hash) {
+		// Take 64 bits at a time from a chain of hashes
+		byte[] bytes = new byte[(this.bits + 7) / 8 + 8];
+		for (int k = 0; k < bytes.length; k++) {
+			if (k % 8 == 0) {
+				hash = mix(hash);
+			}
+			bytes[k] = (byte) (hash >>> (8 * (k % 8)));
+		}
+
+		// Keep the lowest bits
+		return new BigInteger(1, bytes).mod(BigInteger.ONE.shiftLeft(this.bits));
+	}
+
+	/**
+	 * Get the amount a near-singular matrix differs from a singular one
+	 * 
+	 * @return One over two to the power of twice the number of bits
+	 */
+	private Fraction perturbation() {
+		return Fraction.valueOf(BigInteger.ONE,
+				BigInteger.ONE.shiftLeft(2 * this.bits));
+	}
+
+	/**
+	 * Find the non-zero elements of a row
+	 * 
+	 * @param family
+	 *            The kind of matrix
+	 * @param size
+	 *            The number of rows and columns
+	 * @param i
+	 *            The row
+	 * @param row
+	 *            Where to put the elements, in column order
+	 */
+	private void row(WorkloadFamily family, int size, int i, Row row) {
+		row.count = 0;
+		switch (family) {
+		case SPARSE:
+			// Skip a random number of columns between elements, each column
+			// is kept with a chance of the density
+			double scale = (this.density < 1) ? 1 / StrictMath
+					.log1p(-this.density) : 0;
+			long hash = this.hash(family, i, -1);
+			for (long j = -1;;) {
+				hash = mix(hash);
+				double uniform = ((hash >>> 11) + 1) * 0x1.0p-53;
+				j += 1 + (long) (StrictMath.log(uniform) * scale);
+				if (j >= size) {
+					break;
+				}
+				row.add((int) j, this.integer(mix(hash ^ j)));
+			}
+			break;
+		case BANDED:
+			// Only the band can hold elements
+			for (int j = Math.max(0, i - this.bandwidth); j <= Math.min(
+					size - 1, (long) i + this.bandwidth); j++) {
+				row.add(j, this.element(family, size, i, j));
+			}
+			break;
+		default:
+			for (int j = 0; j < size; j++) {
+				row.add(j, this.element(family, size, i, j));
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Set the distance from the diagonal of a banded matrix
+	 * 
+	 * @param bandwidth
+	 *            The bandwidth, zero for a diagonal matrix
+	 * @throws IllegalArgumentException
+	 *             If the bandwidth is negative
+	 */
+	public void setBandwidth(int bandwidth) {
+		if (bandwidth < 0) {
+			throw new IllegalArgumentException(
+					"Bandwidth must be at least zero");
+		}
+		this.bandwidth = bandwidth;
+	}
+
+	/**
+	 * Set the number of bits in each random element
+	 * 
+	 * @param bits
+	 *            The number of bits
+	 * @throws IllegalArgumentException
+	 *             If the number of bits is less than one
+	 */
+	public void setBits(int bits) {
+		if (bits < 1) {
+			throw new IllegalArgumentException("Bits must be at least 1");
+		}
+		this.bits = bits;
+	}
+
+	/**
+	 * Set the fraction of non-zero elements in a sparse matrix
+	 * 
+	 * @param density
+	 *            The density
+	 * @throws IllegalArgumentException
+	 *             If the density is not greater than zero and at most one
+	 */
+	public void setDensity(double density) {
+		if (!(density > 0 && density <= 1)) {
+			throw new IllegalArgumentException(
+					"Density must be greater than zero and at most one");
+		}
+		this.density = density;
+	}
+
+	/**
+	 * Write a square matrix in the Matrix Market format without holding it in
+	 * memory. Sparse and banded matrices are written as coordinates row by
+	 * row, counting their elements in a first pass, the others as arrays
+	 * column by column. Each element is made as it is written, so the file
+	 * reads back as exactly the matrix {@link #generate} makes
+	 * 
+	 * @param output
+	 *            Where to write the file
+	 * @param family
+	 *            The kind of matrix
+	 * @param size
+	 *            The number of rows and columns
+	 * @throws IOException
+	 *             If writing fails
+	 * @throws IllegalArgumentException
+	 *             If the size is less than one
+	 */
+	public void write(Appendable output, WorkloadFamily family, int size)
+			throws IOException {
+		this.checkSize(size);
+		MatrixMarketField field = WorkloadGenerator.field(family);
+		StringBuilder builder = new StringBuilder();
+
+		// Write the arrays a column at a time
+		if (family != WorkloadFamily.SPARSE && family != WorkloadFamily.BANDED) {
+			MatrixMarket.banner(builder, false, field, false);
+			builder.append(size).append(' ').append(size).append('\n');
+			for (int j = 0; j < size; j++) {
+				for (int i = 0; i < size; i++) {
+					MatrixMarket.append(builder,
+							this.element(family, size, i, j), field);
+					builder.append('\n');
+					MatrixMarket.flush(builder, output, false);
+				}
+			}
+			MatrixMarket.flush(builder, output, true);
+			return;
+		}
+
+		// Count the elements, the header needs the total before any of them
+		Row row = new Row();
+		long count = 0;
+		for (int i = 0; i < size; i++) {
+			this.row(family, size, i, row);
+			count += row.count;
+		}
+		MatrixMarket.banner(builder, true, field, false);
+		builder.append(size).append(' ').append(size).append(' ')
+				.append(count).append('\n');
+
+		// Make each row again and write its elements, counting from one
+		for (int i = 0; i < size; i++) {
+			this.row(family, size, i, row);
+			for (int k = 0; k < row.count; k++) {
+				builder.append(i + 1).append(' ').append(row.columns[k] + 1)
+						.append(' ');
+				MatrixMarket.append(builder, row.values[k], field);
+				builder.append('\n');
+				MatrixMarket.flush(builder, output, false);
+			}
+		}
+		MatrixMarket.flush(builder, output, true);
+	}
+
+	/**
+	 * Write a vector of random integers in the Matrix Market format, as a
+	 * single column, matching {@link #generateVector}
+	 * 
+	 * @param output
+	 *            Where to write the file
+	 * @param size
+	 *            The number of elements
+	 * @throws IOException
+	 *             If writing fails
+	 * @throws IllegalArgumentException
+	 *             If the size is less than one
+	 */
+	public void writeVector(Appendable output, int size) throws IOException {
+		this.checkSize(size);
+		StringBuilder builder = new StringBuilder();
+		MatrixMarket.banner(builder, false, MatrixMarketField.INTEGER, false);
+		builder.append(size).append(" 1\n");
+		for (int i = 0; i < size; i++) {
+			MatrixMarket.append(builder,
+					this.integer(this.hash(VECTOR_SALT, i, 0)),
+					MatrixMarketField.INTEGER);
+			builder.append('\n');
+			MatrixMarket.flush(builder, output, false);
+		}
+		MatrixMarket.flush(builder, output, true);
+	}
+
+	/**
+	 * Check the size of a matrix or vector
+	 * 
+	 * @param size
+	 *            The size
+	 * @throws IllegalArgumentException
+	 *             If the size is less than one
+	 */
+	private void checkSize(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Size must be at least 1");
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package test;
+
+import java.util.Random;
+
+import solver.DeterminantMethod;
+import solver.Fraction;
+import solver.Matrix;
+
+/**
+ * A class for timing the determinant algorithms against each other, to find
+ * where Bareiss elimination overtakes cofactor expansion and where the
+ * multi-modular algorithm overtakes Bareiss on integer matrices
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class DeterminantBenchmark {
+
+	// Largest size that cofactor expansion is timed at
+	private static final int LAPLACE_LIMIT = 9;
+
+	/**
+	 * Build a matrix of random integers
+	 * 
+	 * @param random
+	 *            The source of random numbers
+	 * @param size
+	 *            The height and width of the matrix
+	 * @return A size x size Matrix
+	 */
+	private static Matrix randomIntegerMatrix(Random random, int size) {
+		// Create an array of integers up to a thousand
+		int[][] matrix = new int[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				matrix[i][j] = random.nextInt(2001) - 1000;
+			}
+		}
+
+		// Return the matrix
+		return new Matrix(matrix);
+	}
+
+	/**
+	 * Build a matrix of random fractions
+	 * 
+	 * @param random
+	 *            The source of random numbers
+	 * @param size
+	 *            The height and width of the matrix
+	 * @return A size x size Matrix
+	 */
+	private static Matrix randomMatrix(Random random, int size) {
+		// Create an empty matrix
+		Matrix matrix = new Matrix(size, size);
+
+		// Fill it with small fractions
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				matrix.setElement(i, j, Fraction.valueOf(
+						random.nextInt(41) - 20, 1 + random.nextInt(6)));
+			}
+		}
+
+		// Return the matrix
+		return matrix;
+	}
+
+	/**
+	 * Time one algorithm on a matrix
+	 * 
+	 * @param matrix
+	 *            The matrix
+	 * @param method
+	 *            The algorithm to time
+	 * @param repeats
+	 *            How many times to repeat the calculation
+	 * @return The average time in nanoseconds
+	 */
+	private static long time(Matrix matrix, DeterminantMethod method,
+			int repeats) {
+		// Run once to warm up
+		matrix.getDeterminant(method);
+
+		// Time the repeats
+		long start = System.nanoTime();
+		for (int i = 0; i < repeats; i++) {
+			matrix.getDeterminant(method);
+		}
+		return (System.nanoTime() - start) / repeats;
+	}
+
+	/**
+	 * Times the determinant algorithms for matrices of increasing size
+	 * 
+	 * @param args
+	 *            Command line arguments, unsupported
+	 */
+	public static void main(String[] args) {
+		// Use a fixed seed so runs are comparable
+		Random random = new Random(42);
+
+		System.out.printf("%6s %16s %16s %16s\n", "size", "laplace ns",
+				"bareiss ns", "modular ns");
+
+		// Go through each size, cofactor expansion only for the small ones
+		for (int size = 1; size <= 60; size += (size < 12) ? 1 : 12) {
+			Matrix matrix = randomMatrix(random, size);
+			int repeats = Math.max(1, 2000 / (size * size));
+
+			// Time Bareiss elimination and the modular algorithm
+			long bareiss = time(matrix, DeterminantMethod.BAREISS, repeats);
+			long modular = time(matrix, DeterminantMethod.MODULAR, repeats);
+
+			// Every algorithm must agree
+			if (!matrix.getDeterminant(DeterminantMethod.MODULAR).equals(
+					matrix.getDeterminant(DeterminantMethod.BAREISS))) {
+				System.out.println("Determinants disagree!");
+			}
+
+			if (size <= LAPLACE_LIMIT) {
+				// Time cofactor expansion, fewer repeats as it grows
+				long laplace = time(matrix, DeterminantMethod.LAPLACE,
+						Math.max(1, repeats / size));
+
+				// Both algorithms must agree
+				if (!matrix.getDeterminant(DeterminantMethod.LAPLACE).equals(
+						matrix.getDeterminant(DeterminantMethod.BAREISS))) {
+					System.out.println("Determinants disagree!");
+				}
+
+				System.out.printf("%6d %16d %16d %16d\n", size, laplace,
+						bareiss, modular);
+			} else {
+				System.out.printf("%6d %16s %16d %16d\n", size, "-", bareiss,
+						modular);
+			}
+		}
+
+		// Compare the integer algorithms on larger integer matrices
+		System.out.printf("\n%6s %16s %16s\n", "size", "bareiss ns",
+				"modular ns");
+		for (int size = 25; size <= 200; size *= 2) {
+			Matrix matrix = randomIntegerMatrix(random, size);
+
+			// Time each algorithm once, the matrices are large
+			long bareiss = time(matrix, DeterminantMethod.BAREISS, 1);
+			long modular = time(matrix, DeterminantMethod.MODULAR, 1);
+
+			// Both algorithms must agree
+			if (!matrix.getDeterminant(DeterminantMethod.MODULAR).equals(
+					matrix.getDeterminant(DeterminantMethod.BAREISS))) {
+				System.out.println("Determinants disagree!");
+			}
+
+			System.out.printf("%6d %16d %16d\n", size, bareiss, modular);
+		}
+	}
+}
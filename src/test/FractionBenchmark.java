@@ -0,0 +1,155 @@
+package test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import solver.Fraction;
+
+/**
+ * A class for timing the reduction of Fractions against the original factor
+ * list implementation
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class FractionBenchmark {
+
+	/**
+	 * Get the factors common to two ArrayLists, as the original Fraction did
+	 * 
+	 * @param firstList
+	 *            The first list of factors
+	 * @param secondList
+	 *            The factors to compare to the first list
+	 * @return An ArrayList containing only factors that are within both
+	 *         parameter lists
+	 */
+	private static ArrayList<Integer> getCommonFactors(
+			ArrayList<Integer> firstList, ArrayList<Integer> secondList) {
+		// New list to hold common factors
+		ArrayList<Integer> commonFactors = new ArrayList<Integer>();
+
+		// Keep the factors of the first list that are also in the second
+		for (Integer factor : firstList) {
+			if (secondList.contains(factor)) {
+				commonFactors.add(factor);
+			}
+		}
+		// Sort the list, low to high
+		commonFactors.sort(null);
+
+		// Return the common factors
+		return commonFactors;
+	}
+
+	/**
+	 * Get the factors of a number, as the original Fraction did
+	 * 
+	 * @param number
+	 *            The number to get the factors of
+	 * @return An ArrayList containing the number's factors
+	 */
+	private static ArrayList<Integer> getFactorsOf(int number) {
+		// A new ArrayList to store the factors
+		ArrayList<Integer> factors = new ArrayList<Integer>();
+
+		// Account for negative numbers
+		number = Math.abs(number);
+
+		// Loop until greater than half the number
+		for (int i = 1; i <= number / 2; i++) {
+			// Check if i divides the number
+			if (number % i == 0) {
+				if (!factors.contains(i)) {
+					factors.add(i);
+				}
+				if (!factors.contains(number / i)) {
+					factors.add(number / i);
+				}
+			}
+		}
+		// Sort factors
+		factors.sort(null);
+
+		// Return the list of factors
+		return factors;
+	}
+
+	/**
+	 * Reduce a fraction using factor lists, as the original Fraction did
+	 * 
+	 * @param numerator
+	 *            The top part of the fraction
+	 * @param denominator
+	 *            The bottom part of the fraction
+	 * @return The numerator of the reduced fraction
+	 */
+	private static int factorListReduce(int numerator, int denominator) {
+		// Intersect the lists of factors
+		ArrayList<Integer> commonFactors = getCommonFactors(
+				getFactorsOf(numerator), getFactorsOf(denominator));
+
+		// The greatest common factor is the last one, or 1 if there are none
+		int gcm = 1;
+		if (commonFactors.size() > 0) {
+			gcm = commonFactors.get(commonFactors.size() - 1);
+		}
+
+		// Return the reduced numerator
+		return numerator / gcm;
+	}
+
+	/**
+	 * Times both reductions for fractions of increasing magnitude
+	 * 
+	 * @param args
+	 *            Command line arguments, unsupported
+	 */
+	public static void main(String[] args) {
+		// Use a fixed seed so runs are comparable
+		Random random = new Random(42);
+
+		System.out.printf("%12s %10s %16s %16s %10s\n", "magnitude", "samples",
+				"factor list ns", "gcd ns", "speedup");
+
+		// Go through each magnitude, from 10 to 10 million
+		for (int magnitude = 10; magnitude <= 10000000; magnitude *= 10) {
+			// Fewer samples for the slow implementation at large magnitudes
+			int samples = Math.max(20, 2000000 / magnitude);
+
+			// Build the fractions, sharing a factor so there is work to do
+			int[] numerators = new int[samples];
+			int[] denominators = new int[samples];
+			for (int i = 0; i < samples; i++) {
+				int common = 1 + random.nextInt(Math.max(1, magnitude / 100));
+				numerators[i] = common * (1 + random.nextInt(100));
+				denominators[i] = common * (1 + random.nextInt(100));
+			}
+
+			// Time the original factor list reduction
+			long checksum = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < samples; i++) {
+				checksum += factorListReduce(numerators[i], denominators[i]);
+			}
+			long factorTime = (System.nanoTime() - start) / samples;
+
+			// Time the gcd reduction, the constructor reduces the fraction
+			start = System.nanoTime();
+			for (int i = 0; i < samples; i++) {
+				checksum -= new Fraction(numerators[i], denominators[i])
+						.getNumerator();
+			}
+			long gcdTime = (System.nanoTime() - start) / samples;
+
+			// Both reductions must agree, so the checksum has to be zero
+			if (checksum != 0) {
+				System.out.println("Reductions disagree!");
+			}
+
+			System.out.printf("%12d %10d %16d %16d %9.1fx\n", magnitude,
+					samples, factorTime, gcdTime, factorTime
+							/ (double) Math.max(1, gcdTime));
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package test;
+
+import solver.Fraction;
+
+/**
+ * A class for testing Fractions whose parts are at the limits of a long
+ * 
+ * @author Inderpreet Dhillon
+ *
+ */
+public class FractionTester {
+
+	/**
+	 * Main testing method
+	 * 
+	 * @param args
+	 *            Command line arguments, unsupported
+	 */
+	public static void main(String[] args) {
+		// A product of exactly Long.MIN_VALUE must still negate and compare
+		Fraction product = Fraction.valueOf(-(1L << 62)).multiply(2);
+		Fraction minimum = Fraction.valueOf(Long.MIN_VALUE);
+
+		System.out.println(product + " equals " + minimum + ": "
+				+ product.equals(minimum));
+		System.out.println(product + " compares to " + minimum + ": "
+				+ product.compareTo(minimum));
+		System.out.println("Negated: " + product.negate());
+		System.out.println("Negated twice equals " + minimum + ": "
+				+ product.negate().negate().equals(minimum));
+
+		// Sum up, so a failure stands out
+		boolean passed = product.equals(minimum)
+				&& product.compareTo(minimum) == 0
+				&& product.negate().signum() == 1
+				&& product.negate().negate().equals(minimum);
+		System.out.println(passed ? "Passed" : "FAILED");
+	}
+}
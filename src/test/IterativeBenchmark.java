@@ -0,0 +1,137 @@
+package test;
+
+import java.util.Arrays;
+
+import solver.DoubleMatrix;
+import solver.Fraction;
+import solver.IterativeMethod;
+import solver.IterativeResult;
+import solver.IterativeSolver;
+import solver.SparseMatrix;
+
+/**
+ * A class for timing the iterative solvers on the five point Laplacian of a
+ * square grid, a sparse, symmetric, positive definite system with five
+ * non-zero elements a row. A small grid is also solved exactly to check the
+ * answers
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class IterativeBenchmark {
+
+	/**
+	 * Build the five point Laplacian of a grid, with an extra amount on the
+	 * diagonal
+	 * 
+	 * @param side
+	 *            The width and height of the grid, the matrix has side^2 rows
+	 * @param shift
+	 *            The amount added to the diagonal, more makes the matrix more
+	 *            diagonally dominant
+	 * @return The sparse matrix
+	 */
+	private static SparseMatrix laplacian(int side, int shift) {
+		// Each point has itself and up to four neighbours
+		int size = side * side;
+		int[] rows = new int[5 * size];
+		int[] columns = new int[5 * size];
+		Fraction[] values = new Fraction[5 * size];
+		Fraction neighbour = Fraction.valueOf(-1);
+		Fraction centre = Fraction.valueOf(4 + shift);
+
+		// List each element, in no particular order
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			int x = i % side, y = i / side;
+			int[] next = { x > 0 ? i - 1 : -1, x < side - 1 ? i + 1 : -1,
+					y > 0 ? i - side : -1, y < side - 1 ? i + side : -1 };
+			rows[count] = i;
+			columns[count] = i;
+			values[count++] = centre;
+			for (int j : next) {
+				if (j >= 0) {
+					rows[count] = i;
+					columns[count] = j;
+					values[count++] = neighbour;
+				}
+			}
+		}
+
+		// Return the matrix
+		return new SparseMatrix(size, size, Arrays.copyOf(rows, count),
+				Arrays.copyOf(columns, count), Arrays.copyOf(values, count));
+	}
+
+	/**
+	 * Solve a system with a method and print how it went
+	 * 
+	 * @param matrix
+	 *            The matrix
+	 * @param solution
+	 *            The right hand side
+	 * @param method
+	 *            The method to use
+	 * @param preconditioned
+	 *            True to precondition conjugate gradient
+	 * @return The result
+	 */
+	private static IterativeResult run(SparseMatrix matrix, double[] solution,
+			IterativeMethod method, boolean preconditioned) {
+		// Set up the solver
+		IterativeSolver solver = new IterativeSolver(method);
+		solver.setTolerance(1e-8);
+		solver.setMaxIterations(5000);
+		solver.setPreconditioned(preconditioned);
+
+		// Time the solve
+		long start = System.nanoTime();
+		IterativeResult result = matrix.findSolution(solution, solver);
+		long time = System.nanoTime() - start;
+		System.out.printf("%8d %20s %10d %12.3e %10s %10d%n", matrix.getRows(),
+				method + (preconditioned ? "+PC" : ""), result.getIterations(),
+				result.getResidual(), result.isConverged(), time / 1000000);
+		return result;
+	}
+
+	/**
+	 * Times each method on grids of increasing size
+	 * 
+	 * @param args
+	 *            Command line arguments, unsupported
+	 */
+	public static void main(String[] args) {
+		// Check a small system against the dense solver
+		SparseMatrix small = laplacian(8, 1);
+		double[] ones = new double[small.getRows()];
+		Arrays.fill(ones, 1);
+		double[] exact = new DoubleMatrix(small.toMatrix()).findSolution(ones);
+		for (IterativeMethod method : IterativeMethod.values()) {
+			IterativeSolver solver = new IterativeSolver(method);
+			double[] estimate = small.findSolution(ones, solver).getSolution();
+			for (int i = 0; i < exact.length; i++) {
+				if (Math.abs(estimate[i] - exact[i]) > 1e-8) {
+					System.out.println(method + " disagrees with LU!");
+					break;
+				}
+			}
+		}
+
+		// Print the header
+		System.out.printf("%8s %20s %10s %12s %10s %10s%n", "unknowns",
+				"method", "iterations", "residual", "converged", "ms");
+
+		// Grids up to about 100000 unknowns, Jacobi and Gauss-Seidel only
+		// converge quickly when the diagonal is well above the neighbours
+		for (int side = 40; side <= 320; side *= 2) {
+			SparseMatrix matrix = laplacian(side, 0);
+			double[] solution = new double[matrix.getRows()];
+			Arrays.fill(solution, 1);
+			run(matrix, solution, IterativeMethod.CONJUGATE_GRADIENT, false);
+			run(matrix, solution, IterativeMethod.CONJUGATE_GRADIENT, true);
+			SparseMatrix shifted = laplacian(side, 1);
+			run(shifted, solution, IterativeMethod.JACOBI, false);
+			run(shifted, solution, IterativeMethod.GAUSS_SEIDEL, false);
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import solver.Fraction;
+import solver.Matrix;
+
+/**
+ * A class for timing Strassen's multiplication against dot products, to find
+ * the size where splitting into quarters starts to pay off for fractions. The
+ * "unsplit" column scales to integers like Strassen's algorithm but never
+ * splits, so the gap between it and each cutoff is the gain from splitting
+ * alone
+ * 
+ * @author Inderpreet Dhillon
+ * 
+ */
+public class MultiplicationBenchmark {
+
+	// The cutoffs Strassen's algorithm is timed with
+	private static final int[] CUTOFFS = { 16, 32, 64 };
+
+	// How many times each product is timed, the fastest is kept
+	private static final int REPEATS = 3;
+
+	/**
+	 * Time every algorithm for matrices of increasing size
+	 * 
+	 * @param random
+	 *            The source of random numbers
+	 * @param smallest
+	 *            The first size, later sizes are multiples of it
+	 * @param largest
+	 *            The last size
+	 * @param bits
+	 *            The bits in each element of a large integer matrix, or 0 for
+	 *            small fractions
+	 */
+	private static void compare(Random random, int smallest, int largest,
+			int bits) {
+		// Print the header, one column per cutoff
+		System.out.printf("%6s %14s %14s", "size", "classic ns", "unsplit ns");
+		for (int cutoff : CUTOFFS) {
+			System.out.printf(" %14s", "strassen " + cutoff);
+		}
+		System.out.println();
+
+		// Go through each size, including some that need padding
+		for (int size = smallest; size <= largest; size += smallest) {
+			Matrix one = (bits == 0) ? randomMatrix(random, size)
+					: randomLargeMatrix(random, size, bits);
+			Matrix two = (bits == 0) ? randomMatrix(random, size)
+					: randomLargeMatrix(random, size, bits);
+
+			// Run once to warm up, the products must agree
+			Matrix expected = Matrix.multiplyMatrices(one, two, 1);
+			for (int cutoff : CUTOFFS) {
+				if (!Matrix.multiplyStrassen(one, two, cutoff).equals(expected)) {
+					System.out.println("Products disagree!");
+				}
+			}
+
+			// Time each algorithm
+			System.out.printf("%6d %14d %14d", size, time(one, two, 0),
+					time(one, two, Integer.MAX_VALUE));
+			for (int cutoff : CUTOFFS) {
+				System.out.printf(" %14d", time(one, two, cutoff));
+			}
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Build a matrix of random large integers
+	 * 
+	 * @param random
+	 *            The source of random numbers
+	 * @param size
+	 *            The height and width of the matrix
+	 * @param bits
+	 *            The most bits in each element
+	 * @return A size x size Matrix
+	 */
+	private static Matrix randomLargeMatrix(Random random, int size, int bits) {
+		// Create an empty matrix
+		Matrix matrix = new Matrix(size, size);
+
+		// Fill it with large integers
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				matrix.setElement(i, j, Fraction.valueOf(new BigInteger(bits,
+						random), BigInteger.ONE));
+			}
+		}
+
+		// Return the matrix
+		return matrix;
+	}
+
+	/**
+	 * Build a matrix of random fractions
+	 * 
+	 * @param random
+	 *            The source of random numbers
+	 * @param size
+	 *            The height and width of the matrix
+	 * @return A size x size Matrix
+	 */
+	private static Matrix randomMatrix(Random random, int size) {
+		// Create an empty matrix
+		Matrix matrix = new Matrix(size, size);
+
+		// Fill it with small fractions
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				matrix.setElement(i, j, Fraction.valueOf(
+						random.nextInt(41) - 20, 1 + random.nextInt(6)));
+			}
+		}
+
+		// Return the matrix
+		return matrix;
+	}
+
+	/**
+	 * Time a multiplication, on one thread so the algorithms are comparable
+	 * 
+	 * @param one
+	 *            The first matrix
+	 * @param two
+	 *            The second matrix
+	 * @param cutoff
+	 *            The cutoff for Strassen's algorithm, or 0 for dot products
+	 * @return The fastest time in nanoseconds
+	 */
+	private static long time(Matrix one, Matrix two, int cutoff) {
+		long fastest = Long.MAX_VALUE;
+		for (int i = 0; i < REPEATS; i++) {
+			long start = System.nanoTime();
+			if (cutoff == 0) {
+				Matrix.multiplyMatrices(one, two, 1);
+			} else {
+				Matrix.multiplyStrassen(one, two, cutoff);
+			}
+			fastest = Math.min(fastest, System.nanoTime() - start);
+		}
+		return fastest;
+	}
+
+	/**
+	 * Times the multiplication algorithms for small fractions and large
+	 * integers
+	 * 
+	 * @param args
+	 *            Command line arguments, unsupported
+	 */
+	public static void main(String[] args) {
+		// Use a fixed seed so runs are comparable
+		Random random = new Random(42);
+
+		// Small fractions, where scaling to integers does most of the work
+		compare(random, 32, 320, 0);
+
+		// Large integers, where each multiplication is expensive
+		System.out.println();
+		compare(random, 64, 256, 200);
+	}
+}